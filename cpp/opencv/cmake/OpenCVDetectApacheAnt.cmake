@@ -1,5 +1,6 @@
 set(OPENCV_JAVA_SOURCE_VERSION "" CACHE STRING "Java source version (javac Ant target)")
 set(OPENCV_JAVA_TARGET_VERSION "" CACHE STRING "Java target version (javac Ant target)")
+set(OPENCV_JAVA_MULTI_RELEASE OFF CACHE BOOL "Add Java 22 classes (MatSegment) to a Multi-Release JAR, requires JDK 22+ (javac Ant target)")
 
 file(TO_CMAKE_PATH "$ENV{ANT_DIR}" ANT_DIR_ENV_PATH)
 file(TO_CMAKE_PATH "$ENV{ProgramFiles}" ProgramFiles_ENV_PATH)
@@ -0,0 +1,56 @@
+package org.opencv.core;
+
+/**
+ * Row cursor over a 8-bit (CV_8U, CV_8S) Mat; see MatCursor.
+ */
+public class ByteCursor extends MatCursor {
+
+    private final byte[] buf;
+
+    public ByteCursor(Mat mat) {
+        super(mat, CvType.CV_8U, CvType.CV_8S);
+        buf = new byte[length];
+    }
+
+    /**
+     * Makes r the current row, writing back the previous one if it was modified.
+     */
+    public ByteCursor row(int r) {
+        moveTo(r);
+        return this;
+    }
+
+    /** Value i (col * channels() + channel) of the current row. */
+    public byte get(int i) {
+        return buf[i];
+    }
+
+    /** Value i of the current row as an unsigned 8-bit number. */
+    public int getU8(int i) {
+        return buf[i] & 0xff;
+    }
+
+    /** Stores the low 8 bits of v. */
+    public void set(int i, int v) {
+        buf[i] = (byte) v;
+        markModified();
+    }
+
+    /**
+     * The row buffer itself, for loops that want plain array access. Call
+     * markModified() after writing to it.
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    @Override
+    void load(Rect r) {
+        mat.get(r, buf, 0, length);
+    }
+
+    @Override
+    void store(Rect r) {
+        mat.put(r, buf, 0, length);
+    }
+}
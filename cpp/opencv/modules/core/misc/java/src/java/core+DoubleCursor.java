@@ -0,0 +1,50 @@
+package org.opencv.core;
+
+/**
+ * Row cursor over a 64-bit float (CV_64F) Mat; see MatCursor.
+ */
+public class DoubleCursor extends MatCursor {
+
+    private final double[] buf;
+
+    public DoubleCursor(Mat mat) {
+        super(mat, CvType.CV_64F, CvType.CV_64F);
+        buf = new double[length];
+    }
+
+    /**
+     * Makes r the current row, writing back the previous one if it was modified.
+     */
+    public DoubleCursor row(int r) {
+        moveTo(r);
+        return this;
+    }
+
+    /** Value i (col * channels() + channel) of the current row. */
+    public double get(int i) {
+        return buf[i];
+    }
+
+    public void set(int i, double v) {
+        buf[i] = v;
+        markModified();
+    }
+
+    /**
+     * The row buffer itself, for loops that want plain array access. Call
+     * markModified() after writing to it.
+     */
+    public double[] array() {
+        return buf;
+    }
+
+    @Override
+    void load(Rect r) {
+        mat.get(r, buf, 0, length);
+    }
+
+    @Override
+    void store(Rect r) {
+        mat.put(r, buf, 0, length);
+    }
+}
@@ -0,0 +1,50 @@
+package org.opencv.core;
+
+/**
+ * Row cursor over a 32-bit float (CV_32F) Mat; see MatCursor.
+ */
+public class FloatCursor extends MatCursor {
+
+    private final float[] buf;
+
+    public FloatCursor(Mat mat) {
+        super(mat, CvType.CV_32F, CvType.CV_32F);
+        buf = new float[length];
+    }
+
+    /**
+     * Makes r the current row, writing back the previous one if it was modified.
+     */
+    public FloatCursor row(int r) {
+        moveTo(r);
+        return this;
+    }
+
+    /** Value i (col * channels() + channel) of the current row. */
+    public float get(int i) {
+        return buf[i];
+    }
+
+    public void set(int i, float v) {
+        buf[i] = v;
+        markModified();
+    }
+
+    /**
+     * The row buffer itself, for loops that want plain array access. Call
+     * markModified() after writing to it.
+     */
+    public float[] array() {
+        return buf;
+    }
+
+    @Override
+    void load(Rect r) {
+        mat.get(r, buf, 0, length);
+    }
+
+    @Override
+    void store(Rect r) {
+        mat.put(r, buf, 0, length);
+    }
+}
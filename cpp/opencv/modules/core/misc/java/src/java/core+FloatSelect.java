@@ -0,0 +1,49 @@
+package org.opencv.core;
+
+/**
+ * Selection of the k-th smallest value of a float array, for the top-N
+ * filters of MatOfKeyPoint and MatOfDMatch.
+ */
+final class FloatSelect {
+
+    private FloatSelect() {
+    }
+
+    /**
+     * Returns the k-th smallest (from 0) of the first length values of a,
+     * reordering them. Runs in linear time on average.
+     */
+    static float kthSmallest(float[] a, int length, int k) {
+        if (k < 0 || k >= length)
+            throw new IllegalArgumentException("k = " + k + " is out of range for " + length + " values");
+        int lo = 0, hi = length - 1;
+        while (lo < hi) {
+            float pivot = a[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (a[i] < pivot)
+                    i++;
+                while (pivot < a[j])
+                    j--;
+                if (i <= j) {
+                    float t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return a[k];
+        }
+        return a[k];
+    }
+
+    static float[] scratch(float[] scratch, int length) {
+        return (scratch != null && scratch.length >= length) ? scratch : new float[length];
+    }
+}
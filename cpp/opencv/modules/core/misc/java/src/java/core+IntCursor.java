@@ -0,0 +1,50 @@
+package org.opencv.core;
+
+/**
+ * Row cursor over a 32-bit integer (CV_32S) Mat; see MatCursor.
+ */
+public class IntCursor extends MatCursor {
+
+    private final int[] buf;
+
+    public IntCursor(Mat mat) {
+        super(mat, CvType.CV_32S, CvType.CV_32S);
+        buf = new int[length];
+    }
+
+    /**
+     * Makes r the current row, writing back the previous one if it was modified.
+     */
+    public IntCursor row(int r) {
+        moveTo(r);
+        return this;
+    }
+
+    /** Value i (col * channels() + channel) of the current row. */
+    public int get(int i) {
+        return buf[i];
+    }
+
+    public void set(int i, int v) {
+        buf[i] = v;
+        markModified();
+    }
+
+    /**
+     * The row buffer itself, for loops that want plain array access. Call
+     * markModified() after writing to it.
+     */
+    public int[] array() {
+        return buf;
+    }
+
+    @Override
+    void load(Rect r) {
+        mat.get(r, buf, 0, length);
+    }
+
+    @Override
+    void store(Rect r) {
+        mat.put(r, buf, 0, length);
+    }
+}
@@ -1,6 +1,16 @@
 package org.opencv.core;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 // C++: class Mat
 //javadoc: Mat
@@ -8,6 +18,30 @@ public class Mat {
 
     public final long nativeObj;
 
+    // record every new Mat in the thread's current MatScope, if one is open
+    {
+        MatScope.track(this);
+    }
+
+    // snapshot of the native header, null until queried and after any call
+    // that may reallocate the Mat; see header()
+    private volatile Header header = null;
+
+    private static final int FLAG_CONTINUOUS = 1, FLAG_SUBMATRIX = 2, FLAG_DATA = 4;
+
+    // native header sharing the data viewed by dataBuffer, see asByteBuffer();
+    // freed by DATA_BUFFER_DELETER once dataBuffer and its views are unreachable
+    private long dataBufferHolder = 0;
+    private ByteBuffer dataBuffer = null;
+
+    private static final NativeCleaner.Deleter DATA_BUFFER_DELETER =
+            new NativeCleaner.Deleter("org.opencv.core.Mat.asByteBuffer") {
+        @Override
+        public void delete(long nativeObj) {
+            n_delete(nativeObj);
+        }
+    };
+
     public Mat(long addr) {
         if (addr == 0)
             throw new UnsupportedOperationException("Native object address is NULL");
@@ -133,7 +167,9 @@ public class Mat {
 
     // javadoc: Mat::adjustROI(dtop, dbottom, dleft, dright)
     public Mat adjustROI(int dtop, int dbottom, int dleft, int dright) {
-        return new Mat(n_adjustROI(nativeObj, dtop, dbottom, dleft, dright));
+        Mat m = new Mat(n_adjustROI(nativeObj, dtop, dbottom, dleft, dright));
+        invalidateHeader(); // the ROI of this Mat is adjusted too
+        return m;
     }
 
     //
@@ -143,11 +179,13 @@ public class Mat {
     // javadoc: Mat::assignTo(m, type)
     public void assignTo(Mat m, int type) {
         n_assignTo(nativeObj, m.nativeObj, type);
+        m.invalidateHeader();
     }
 
     // javadoc: Mat::assignTo(m)
     public void assignTo(Mat m) {
         n_assignTo(nativeObj, m.nativeObj);
+        m.invalidateHeader();
     }
 
     //
@@ -156,7 +194,7 @@ public class Mat {
 
     // javadoc: Mat::channels()
     public int channels() {
-        return n_channels(nativeObj);
+        return CvType.channels(header().type);
     }
 
     //
@@ -166,17 +204,30 @@ public class Mat {
 
     // javadoc: Mat::checkVector(elemChannels, depth, requireContinuous)
     public int checkVector(int elemChannels, int depth, boolean requireContinuous) {
-        return n_checkVector(nativeObj, elemChannels, depth, requireContinuous);
+        Header h = header();
+        if (h.dims != 2)
+            return n_checkVector(nativeObj, elemChannels, depth, requireContinuous);
+        // same test as cv::Mat::checkVector() for 2D matrices
+        int type = h.type;
+        int cn = CvType.channels(type);
+        if ((h.flags & FLAG_DATA) == 0 ||
+                (depth > 0 && CvType.depth(type) != depth) ||
+                (requireContinuous && (h.flags & FLAG_CONTINUOUS) == 0))
+            return -1;
+        int rows = h.rows, cols = h.cols;
+        if (((rows == 1 || cols == 1) && cn == elemChannels) || (cols == elemChannels && cn == 1))
+            return (int) ((long) rows * cols * cn / elemChannels);
+        return -1;
     }
 
     // javadoc: Mat::checkVector(elemChannels, depth)
     public int checkVector(int elemChannels, int depth) {
-        return n_checkVector(nativeObj, elemChannels, depth);
+        return checkVector(elemChannels, depth, true);
     }
 
     // javadoc: Mat::checkVector(elemChannels)
     public int checkVector(int elemChannels) {
-        return n_checkVector(nativeObj, elemChannels);
+        return checkVector(elemChannels, -1, true);
     }
 
     //
@@ -221,7 +272,7 @@ public class Mat {
 
     // javadoc: Mat::dims()
     public int dims() {
-        return n_dims(nativeObj);
+        return header().dims;
     }
 
     //
@@ -230,7 +281,7 @@ public class Mat {
 
     // javadoc: Mat::cols()
     public int cols() {
-        return n_cols(nativeObj);
+        return header().cols;
     }
 
     //
@@ -241,16 +292,19 @@ public class Mat {
     // javadoc: Mat::convertTo(m, rtype, alpha, beta)
     public void convertTo(Mat m, int rtype, double alpha, double beta) {
         n_convertTo(nativeObj, m.nativeObj, rtype, alpha, beta);
+        m.invalidateHeader();
     }
 
     // javadoc: Mat::convertTo(m, rtype, alpha)
     public void convertTo(Mat m, int rtype, double alpha) {
         n_convertTo(nativeObj, m.nativeObj, rtype, alpha);
+        m.invalidateHeader();
     }
 
     // javadoc: Mat::convertTo(m, rtype)
     public void convertTo(Mat m, int rtype) {
         n_convertTo(nativeObj, m.nativeObj, rtype);
+        m.invalidateHeader();
     }
 
     //
@@ -260,6 +314,7 @@ public class Mat {
     // javadoc: Mat::copyTo(m)
     public void copyTo(Mat m) {
         n_copyTo(nativeObj, m.nativeObj);
+        m.invalidateHeader();
     }
 
     //
@@ -269,6 +324,7 @@ public class Mat {
     // javadoc: Mat::copyTo(m, mask)
     public void copyTo(Mat m, Mat mask) {
         n_copyTo(nativeObj, m.nativeObj, mask.nativeObj);
+        m.invalidateHeader();
     }
 
     //
@@ -278,6 +334,7 @@ public class Mat {
     // javadoc: Mat::create(rows, cols, type)
     public void create(int rows, int cols, int type) {
         n_create(nativeObj, rows, cols, type);
+        invalidateHeader();
     }
 
     //
@@ -287,6 +344,7 @@ public class Mat {
     // javadoc: Mat::create(size, type)
     public void create(Size size, int type) {
         n_create(nativeObj, size.width, size.height, type);
+        invalidateHeader();
     }
 
     //
@@ -296,6 +354,7 @@ public class Mat {
     // javadoc: Mat::create(sizes, type)
     public void create(int[] sizes, int type) {
         n_create(nativeObj, sizes.length, sizes, type);
+        invalidateHeader();
     }
 
     //
@@ -305,6 +364,7 @@ public class Mat {
     // javadoc: Mat::copySize(m)
     public void copySize(Mat m) {
         n_copySize(nativeObj, m.nativeObj);
+        invalidateHeader();
     }
 
     //
@@ -331,7 +391,7 @@ public class Mat {
 
     // javadoc: Mat::depth()
     public int depth() {
-        return n_depth(nativeObj);
+        return CvType.depth(header().type);
     }
 
     //
@@ -372,7 +432,7 @@ public class Mat {
 
     // javadoc: Mat::elemSize()
     public long elemSize() {
-        return n_elemSize(nativeObj);
+        return CvType.ELEM_SIZE(header().type);
     }
 
     //
@@ -381,7 +441,8 @@ public class Mat {
 
     // javadoc: Mat::elemSize1()
     public long elemSize1() {
-        return n_elemSize1(nativeObj);
+        int type = header().type;
+        return CvType.ELEM_SIZE(type) / CvType.channels(type);
     }
 
     //
@@ -390,7 +451,8 @@ public class Mat {
 
     // javadoc: Mat::empty()
     public boolean empty() {
-        return n_empty(nativeObj);
+        Header h = header();
+        return (h.flags & FLAG_DATA) == 0 || total() == 0;
     }
 
     //
@@ -431,7 +493,7 @@ public class Mat {
 
     // javadoc: Mat::isContinuous()
     public boolean isContinuous() {
-        return n_isContinuous(nativeObj);
+        return (header().flags & FLAG_CONTINUOUS) != 0;
     }
 
     //
@@ -440,7 +502,7 @@ public class Mat {
 
     // javadoc: Mat::isSubmatrix()
     public boolean isSubmatrix() {
-        return n_isSubmatrix(nativeObj);
+        return (header().flags & FLAG_SUBMATRIX) != 0;
     }
 
     //
@@ -529,6 +591,7 @@ public class Mat {
     // javadoc: Mat::push_back(m)
     public void push_back(Mat m) {
         n_push_back(nativeObj, m.nativeObj);
+        invalidateHeader();
     }
 
     //
@@ -537,7 +600,26 @@ public class Mat {
 
     // javadoc: Mat::release()
     public void release() {
+        dropDataBuffer();
         n_release(nativeObj);
+        invalidateHeader();
+    }
+
+    /**
+     * Keeps the first count elements of this row or column vector, used by
+     * the MatOf* filters after compacting their elements. The data is not
+     * reallocated, only the header is narrowed.
+     */
+    void truncate(int count) {
+        int num = (int) total();
+        if (count >= num)
+            return;
+        if (count <= 0) {
+            release();
+            return;
+        }
+        Mat m = (rows() == 1) ? adjustROI(0, 0, 0, count - num) : adjustROI(0, count - num, 0, 0);
+        m.release();
     }
 
     //
@@ -596,7 +678,7 @@ public class Mat {
 
     // javadoc: Mat::rows()
     public int rows() {
-        return n_rows(nativeObj);
+        return header().rows;
     }
 
     //
@@ -608,6 +690,11 @@ public class Mat {
         return new Mat(n_setTo(nativeObj, s.val[0], s.val[1], s.val[2], s.val[3]));
     }
 
+    // as setTo(Scalar), without creating a header for the result; used by MatPool
+    void fill(double v0, double v1, double v2, double v3) {
+        n_fill(nativeObj, v0, v1, v2, v3);
+    }
+
     //
     // C++: Mat Mat::setTo(Scalar value, Mat mask = Mat())
     //
@@ -637,7 +724,8 @@ public class Mat {
 
     // javadoc: Mat::size()
     public Size size() {
-        return new Size(n_size(nativeObj));
+        Header h = header();
+        return new Size(h.cols, h.rows);
     }
 
     //
@@ -646,6 +734,9 @@ public class Mat {
 
     // javadoc: Mat::size(int i)
     public int size(int i) {
+        Header h = header();
+        if (h.dims == 2 && (i == 0 || i == 1))
+            return i == 0 ? h.rows : h.cols;
         return n_size_i(nativeObj, i);
     }
 
@@ -715,6 +806,9 @@ public class Mat {
 
     // javadoc: Mat::total()
     public long total() {
+        Header h = header();
+        if (h.dims <= 2)
+            return (long) h.rows * h.cols;
         return n_total(nativeObj);
     }
 
@@ -724,7 +818,7 @@ public class Mat {
 
     // javadoc: Mat::type()
     public int type() {
-        return n_type(nativeObj);
+        return header().type;
     }
 
     //
@@ -754,6 +848,47 @@ public class Mat {
         return new Mat(n_zeros(sizes.length, sizes, type));
     }
 
+    /**
+     * Makes the next metadata query (rows(), cols(), type(), isContinuous()
+     * and so on) re-read the native header.
+     * <p>
+     * Mat keeps a Java copy of its header so these queries need no JNI call.
+     * The copy is refreshed automatically by the Mat methods and the generated
+     * wrappers that may reallocate a Mat, including every OpenCV function
+     * taking it as an output argument. Native code of your own that
+     * reallocates a Mat through its nativeObj must call this afterwards.
+     */
+    public void invalidateHeader() {
+        header = null;
+    }
+
+    private Header header() {
+        Header h = header;
+        if (h == null) {
+            int[] fields = new int[Header.LENGTH];
+            n_header(nativeObj, fields);
+            h = new Header(fields);
+            header = h;
+        }
+        return h;
+    }
+
+    // immutable, so a snapshot read by another thread is always complete
+    private static final class Header {
+        // layout of the array filled by n_header()
+        static final int LENGTH = 5;
+
+        final int dims, rows, cols, type, flags;
+
+        Header(int[] fields) {
+            dims = fields[0];
+            rows = fields[1];
+            cols = fields[2];
+            type = fields[3];
+            flags = fields[4];
+        }
+    }
+
     @Override
     protected void finalize() throws Throwable {
         n_delete(nativeObj);
@@ -1125,6 +1260,140 @@ public class Mat {
         throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
     }
 
+    /**
+     * Copies the rectangle roi of this 2D Mat into a Java array with one
+     * native call, honoring the row step of the Mat (so it works on
+     * submatrices) and a separate row stride in the array.
+     * <p>
+     * Row r of the region is stored at data[offset + r * stride], as
+     * roi.width * channels() consecutive values. The Mat depth must match
+     * the array type, as for get(row, col, data).
+     *
+     * @param roi region to read, in Mat coordinates
+     * @param data destination array
+     * @param offset index in data of the first value of the region
+     * @param stride number of array elements between the starts of rows,
+     *               at least roi.width * channels()
+     * @return number of bytes copied
+     */
+    public int get(Rect roi, byte[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_8U || CvType.depth(t) == CvType.CV_8S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nGetRegionB(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::get(roi,data,offset,stride)
+    public int get(Rect roi, short[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_16U || CvType.depth(t) == CvType.CV_16S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nGetRegionS(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::get(roi,data,offset,stride)
+    public int get(Rect roi, int[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_32S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nGetRegionI(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::get(roi,data,offset,stride)
+    public int get(Rect roi, float[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_32F) {
+            checkRegion(roi, data.length, offset, stride);
+            return nGetRegionF(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::get(roi,data,offset,stride)
+    public int get(Rect roi, double[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_64F) {
+            checkRegion(roi, data.length, offset, stride);
+            return nGetRegionD(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    /**
+     * Copies a Java array into the rectangle roi of this 2D Mat with one
+     * native call; the counterpart of get(Rect, data, offset, stride) with
+     * the same layout of data.
+     *
+     * @return number of bytes copied
+     */
+    public int put(Rect roi, byte[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_8U || CvType.depth(t) == CvType.CV_8S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nPutRegionB(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::put(roi,data,offset,stride)
+    public int put(Rect roi, short[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_16U || CvType.depth(t) == CvType.CV_16S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nPutRegionS(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::put(roi,data,offset,stride)
+    public int put(Rect roi, int[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_32S) {
+            checkRegion(roi, data.length, offset, stride);
+            return nPutRegionI(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::put(roi,data,offset,stride)
+    public int put(Rect roi, float[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_32F) {
+            checkRegion(roi, data.length, offset, stride);
+            return nPutRegionF(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    // javadoc:Mat::put(roi,data,offset,stride)
+    public int put(Rect roi, double[] data, int offset, int stride) {
+        int t = type();
+        if (CvType.depth(t) == CvType.CV_64F) {
+            checkRegion(roi, data.length, offset, stride);
+            return nPutRegionD(nativeObj, roi.x, roi.y, roi.width, roi.height, offset, stride, data);
+        }
+        throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    private void checkRegion(Rect roi, int length, int offset, int stride) {
+        if (dims() != 2)
+            throw new UnsupportedOperationException("Region access needs a 2D Mat");
+        if (roi.x < 0 || roi.y < 0 || roi.width < 0 || roi.height < 0 ||
+                roi.x + roi.width > cols() || roi.y + roi.height > rows())
+            throw new IllegalArgumentException("Region " + roi + " is outside of the Mat " + size());
+        int rowLength = roi.width * channels();
+        if (stride < rowLength)
+            throw new IllegalArgumentException("Stride " + stride + " is shorter than a region row (" + rowLength + ")");
+        if (roi.height > 0 && (offset < 0 || offset + (long) (roi.height - 1) * stride + rowLength > length))
+            throw new IllegalArgumentException("Array of length " + length + " is too short for the region");
+    }
+
     // javadoc:Mat::get(row,col)
     public double[] get(int row, int col) {
         return nGet(nativeObj, row, col);
@@ -1137,6 +1406,176 @@ public class Mat {
         return nGetIdx(nativeObj, idx);
     }
 
+    /**
+     * Returns a direct ByteBuffer over the data of this Mat, without copying.
+     * <p>
+     * The buffer has native byte order and spans total() * elemSize() bytes,
+     * so pixels can be read and written in place from Java. Only continuous
+     * matrices can be viewed; use clone() on a submatrix first.
+     * <p>
+     * The viewed data is kept alive by a native header that is freed only
+     * once the buffer, and every duplicate or typed view of it, has become
+     * unreachable. The buffer therefore stays valid after release(), after
+     * this Mat is collected and after the Mat is reallocated by create() or
+     * an OpenCV function; it then keeps the old data, which the Mat no longer
+     * shows. Each call returns a new buffer object with its own position and
+     * limit.
+     */
+    public synchronized ByteBuffer asByteBuffer() {
+        if (!isContinuous())
+            throw new UnsupportedOperationException("Mat data is not continuous");
+        long size = total() * elemSize();
+        if (size > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("Mat data is too large for a ByteBuffer: " + size);
+        if (size == 0)
+            return ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+        if (dataBuffer == null || dataBuffer.capacity() != size || n_dataAddr(dataBufferHolder) != dataAddr()) {
+            dropDataBuffer();
+            long holder = n_shareData(nativeObj);
+            ByteBuffer buffer = n_asByteBuffer(holder);
+            if (buffer == null) {
+                n_delete(holder);
+                throw new UnsupportedOperationException("JVM does not support direct buffer access");
+            }
+            // duplicates and typed views reference the buffer they come from
+            NativeCleaner.register(buffer, holder, DATA_BUFFER_DELETER);
+            dataBufferHolder = holder;
+            dataBuffer = buffer;
+        }
+        return dataBuffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    // javadoc:Mat::asShortBuffer()
+    public ShortBuffer asShortBuffer() {
+        int t = type();
+        if (CvType.depth(t) != CvType.CV_16U && CvType.depth(t) != CvType.CV_16S)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+        return asByteBuffer().asShortBuffer();
+    }
+
+    // javadoc:Mat::asIntBuffer()
+    public IntBuffer asIntBuffer() {
+        int t = type();
+        if (CvType.depth(t) != CvType.CV_32S)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+        return asByteBuffer().asIntBuffer();
+    }
+
+    // javadoc:Mat::asFloatBuffer()
+    public FloatBuffer asFloatBuffer() {
+        int t = type();
+        if (CvType.depth(t) != CvType.CV_32F)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+        return asByteBuffer().asFloatBuffer();
+    }
+
+    // javadoc:Mat::asDoubleBuffer()
+    public DoubleBuffer asDoubleBuffer() {
+        int t = type();
+        if (CvType.depth(t) != CvType.CV_64F)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+        return asByteBuffer().asDoubleBuffer();
+    }
+
+    // the holder is left to DATA_BUFFER_DELETER, buffers handed out may still use it
+    private synchronized void dropDataBuffer() {
+        dataBufferHolder = 0;
+        dataBuffer = null;
+    }
+
+    /**
+     * Runs a kernel on every row of this 2D Mat, in parallel on a shared
+     * ForkJoinPool.
+     * <p>
+     * The rows are split into bands, a few per worker thread. Each band task
+     * reads and writes its rows through its own cursor (see MatCursor), so a
+     * row is fetched with one native call, processed in a primitive array
+     * that is reused for every row of the band, and written back with one
+     * native call if the kernel modified it:
+     * <pre>
+     * mask.parallelRows(new RowKernel&lt;ByteCursor&gt;() {
+     *     public void apply(int row, ByteCursor cur) {
+     *         for (int i = 0; i &lt; cur.length(); i++)
+     *             cur.set(i, cur.getU8(i) &gt; 200 ? 255 : 0);
+     *     }
+     * });
+     * </pre>
+     * The kernel is called concurrently from several threads, never twice for
+     * the same row. The Mat must not be reallocated while this runs. An
+     * exception thrown by the kernel is rethrown here; the row it was thrown
+     * on is not written back.
+     */
+    public <C extends MatCursor> void parallelRows(RowKernel<C> kernel) {
+        parallelRows(kernel, ParallelRows.pool());
+    }
+
+    // javadoc:Mat::parallelRows(kernel, pool)
+    public <C extends MatCursor> void parallelRows(RowKernel<C> kernel, ForkJoinPool pool) {
+        if (dims() != 2)
+            throw new UnsupportedOperationException("parallelRows supports 2D Mat only");
+        int rows = rows();
+        if (rows == 0)
+            return;
+        int bands = Math.min(rows, pool.getParallelism() * ParallelRows.BANDS_PER_THREAD);
+        pool.invoke(new ParallelRows<C>(this, kernel, rows, bands));
+    }
+
+    // splits [0, rows) into bands and runs each band with its own cursor
+    private static class ParallelRows<C extends MatCursor> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int BANDS_PER_THREAD = 4;
+
+        private static ForkJoinPool pool;
+
+        private final Mat mat;
+        private final RowKernel<C> kernel;
+        private final int rows;
+        private final int bands;
+
+        ParallelRows(Mat mat, RowKernel<C> kernel, int rows, int bands) {
+            this.mat = mat;
+            this.kernel = kernel;
+            this.rows = rows;
+            this.bands = bands;
+        }
+
+        static synchronized ForkJoinPool pool() {
+            if (pool == null)
+                pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            return pool;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(bands);
+            for (int b = 0; b < bands; b++) {
+                final int start = (int) ((long) rows * b / bands);
+                final int end = (int) ((long) rows * (b + 1) / bands);
+                tasks.add(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        runBand(start, end);
+                    }
+                });
+            }
+            invokeAll(tasks);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void runBand(int start, int end) {
+            C cursor = (C) MatCursor.create(mat);
+            for (int r = start; r < end; r++) {
+                cursor.moveTo(r);
+                kernel.apply(r, cursor);
+            }
+            cursor.flush();
+        }
+    }
+
     // javadoc:Mat::height()
     public int height() {
         return rows();
@@ -1788,6 +2227,8 @@ public class Mat {
     // C++: Mat Mat::operator =(Scalar s)
     private static native long n_setTo(long nativeObj, double s_val0, double s_val1, double s_val2, double s_val3);
 
+    private static native void n_fill(long nativeObj, double s_val0, double s_val1, double s_val2, double s_val3);
+
     // C++: Mat Mat::setTo(Scalar value, Mat mask = Mat())
     private static native long n_setTo(long nativeObj, double s_val0, double s_val1, double s_val2, double s_val3, long mask_nativeObj);
 
@@ -1837,6 +2278,15 @@ public class Mat {
     // native support for java finalize()
     private static native void n_delete(long nativeObj);
 
+    // dims, rows, cols, type and FLAG_* bits in a single call
+    private static native void n_header(long nativeObj, int[] header);
+
+    // new Mat header sharing the data of nativeObj, backing asByteBuffer()
+    private static native long n_shareData(long nativeObj);
+
+    // direct buffer over the data of a continuous Mat
+    private static native ByteBuffer n_asByteBuffer(long nativeObj);
+
     private static native int nPutD(long self, int row, int col, int count, double[] data);
 
     private static native int nPutDIdx(long self, int[] idx, int count, double[] data);
@@ -1881,6 +2331,26 @@ public class Mat {
 
     private static native int nGetDIdx(long self, int[] idx, int count, double[] vals);
 
+    private static native int nGetRegionB(long self, int x, int y, int width, int height, int offset, int stride, byte[] vals);
+
+    private static native int nPutRegionB(long self, int x, int y, int width, int height, int offset, int stride, byte[] vals);
+
+    private static native int nGetRegionS(long self, int x, int y, int width, int height, int offset, int stride, short[] vals);
+
+    private static native int nPutRegionS(long self, int x, int y, int width, int height, int offset, int stride, short[] vals);
+
+    private static native int nGetRegionI(long self, int x, int y, int width, int height, int offset, int stride, int[] vals);
+
+    private static native int nPutRegionI(long self, int x, int y, int width, int height, int offset, int stride, int[] vals);
+
+    private static native int nGetRegionF(long self, int x, int y, int width, int height, int offset, int stride, float[] vals);
+
+    private static native int nPutRegionF(long self, int x, int y, int width, int height, int offset, int stride, float[] vals);
+
+    private static native int nGetRegionD(long self, int x, int y, int width, int height, int offset, int stride, double[] vals);
+
+    private static native int nPutRegionD(long self, int x, int y, int width, int height, int offset, int stride, double[] vals);
+
     private static native double[] nGet(long self, int row, int col);
 
     private static native double[] nGetIdx(long self, int[] idx);
@@ -0,0 +1,139 @@
+package org.opencv.core;
+
+/**
+ * Base class of the primitive row cursors (ByteCursor, ShortCursor,
+ * IntCursor, FloatCursor, DoubleCursor).
+ * <p>
+ * A cursor keeps one row of a 2D Mat in a Java array. Moving to a row
+ * fetches it with a single region get(); values are then read and written
+ * without boxing or JNI calls, by index c * channels + ch within the row.
+ * A modified row is written back with a single region put() when the
+ * cursor moves to another row, on flush() and on close():
+ * <pre>
+ * try (ByteCursor cur = new ByteCursor(mask)) {
+ *     for (int r = 0; r &lt; cur.rows(); r++) {
+ *         cur.row(r);
+ *         for (int i = 0; i &lt; cur.length(); i++)
+ *             cur.set(i, cur.getU8(i) &gt; 200 ? 255 : 0);
+ *     }
+ * }
+ * </pre>
+ * Cursors work on submatrices. A cursor is not thread-safe; use one cursor
+ * per thread, each on its own rows.
+ */
+public abstract class MatCursor implements AutoCloseable {
+
+    protected final Mat mat;
+    protected final int rows;
+    protected final int cols;
+    protected final int channels;
+    protected final int length;
+
+    private final Rect rowRect;
+    private int row = -1;
+    private boolean dirty = false;
+
+    MatCursor(Mat mat, int depth1, int depth2) {
+        int t = mat.type();
+        if (CvType.depth(t) != depth1 && CvType.depth(t) != depth2)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+        if (mat.dims() != 2)
+            throw new UnsupportedOperationException("MatCursor supports 2D Mat only");
+        this.mat = mat;
+        rows = mat.rows();
+        cols = mat.cols();
+        channels = CvType.channels(t);
+        length = cols * channels;
+        rowRect = new Rect(0, 0, cols, 1);
+    }
+
+    /**
+     * Creates the cursor matching the depth of a Mat.
+     */
+    public static MatCursor create(Mat mat) {
+        switch (mat.depth()) {
+        case CvType.CV_8U:
+        case CvType.CV_8S:
+            return new ByteCursor(mat);
+        case CvType.CV_16U:
+        case CvType.CV_16S:
+            return new ShortCursor(mat);
+        case CvType.CV_32S:
+            return new IntCursor(mat);
+        case CvType.CV_32F:
+            return new FloatCursor(mat);
+        case CvType.CV_64F:
+            return new DoubleCursor(mat);
+        default:
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + mat.type());
+        }
+    }
+
+    public Mat mat() {
+        return mat;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int channels() {
+        return channels;
+    }
+
+    /** Number of values in a row, cols() * channels(). */
+    public int length() {
+        return length;
+    }
+
+    /** The current row, or -1 before the first call to row(). */
+    public int currentRow() {
+        return row;
+    }
+
+    /**
+     * Writes the current row back to the Mat if it was modified.
+     */
+    public void flush() {
+        if (dirty) {
+            rowRect.y = row;
+            store(rowRect);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    // loads row r, writing back the current one first if needed
+    final void moveTo(int r) {
+        if (r == row)
+            return;
+        if (r < 0 || r >= rows)
+            throw new IndexOutOfBoundsException("Row " + r + " out of range [0, " + rows + ")");
+        flush();
+        rowRect.y = r;
+        load(rowRect);
+        row = r;
+    }
+
+    /**
+     * Marks the current row as modified, for writes made through the row
+     * array of a subclass.
+     */
+    public final void markModified() {
+        if (row < 0)
+            throw new IllegalStateException("No current row, call row() first");
+        dirty = true;
+    }
+
+    abstract void load(Rect r);
+
+    abstract void store(Rect r);
+}
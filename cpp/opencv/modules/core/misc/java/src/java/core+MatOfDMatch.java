@@ -1,5 +1,6 @@
 package org.opencv.core;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -80,4 +81,125 @@ public class MatOfDMatch extends Mat {
         DMatch[] adm = toArray();
         return Arrays.asList(adm);
     }
+
+    /*
+     * Structure-of-arrays access: each get* method copies one field of every
+     * match into dst, read in place from the native data, so no DMatch or
+     * intermediate array is created. dst is filled and returned when it has
+     * room for total() values, otherwise (or when it is null) a new array is
+     * returned.
+     */
+
+    public int[] getQueryIdxs(int[] dst) {
+        return getIntField(0, dst);
+    }
+
+    public int[] getTrainIdxs(int[] dst) {
+        return getIntField(1, dst);
+    }
+
+    public int[] getImgIdxs(int[] dst) {
+        return getIntField(2, dst);
+    }
+
+    public float[] getDistances(float[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new float[num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = b.get(_channels * i + 3);
+        }
+        return dst;
+    }
+
+    /**
+     * Keeps the n matches with the smallest distance; matches tied with the
+     * n-th distance are kept too. The matches are compacted in place and
+     * keep their order.
+     *
+     * @return the number of matches kept
+     */
+    public int retainBest(int n) {
+        return retainBest(n, null);
+    }
+
+    /**
+     * retainBest(n), with a scratch array of at least total() floats that is
+     * used instead of allocating one.
+     */
+    public int retainBest(int n, float[] scratch) {
+        int num = (int) total();
+        if (n >= num)
+            return num;
+        if (n <= 0) {
+            truncate(0);
+            return 0;
+        }
+        float[] distances = getDistances(FloatSelect.scratch(scratch, num));
+        float threshold = FloatSelect.kthSmallest(distances, num, n - 1);
+
+        FloatBuffer b = asFloatBuffer();
+        int kept = 0;
+        for (int i = 0; i < num; i++) {
+            if (b.get(_channels * i + 3) <= threshold) {
+                if (kept != i) {
+                    for (int c = 0; c < _channels; c++)
+                        b.put(_channels * kept + c, b.get(_channels * i + c));
+                }
+                kept++;
+            }
+        }
+        truncate(kept);
+        return kept;
+    }
+
+    /**
+     * Lowe's ratio test over the result of DescriptorMatcher.knnMatch with
+     * k >= 2: the best match of a query is kept when its distance is below
+     * ratio times the distance of the second best. Queries with fewer than
+     * two matches are dropped.
+     *
+     * @param knnMatches the k nearest matches of each query, best first
+     * @param dst receives the kept best matches; its data is reused when
+     *            large enough
+     * @return the number of matches kept
+     */
+    public static int ratioTest(List<MatOfDMatch> knnMatches, float ratio, MatOfDMatch dst) {
+        int num = knnMatches.size();
+        if (num == 0) {
+            dst.release();
+            return 0;
+        }
+        dst.alloc(num);
+        FloatBuffer out = dst.asFloatBuffer();
+        float[] best = new float[2 * _channels];
+        int kept = 0;
+        for (int i = 0; i < num; i++) {
+            MatOfDMatch m = knnMatches.get(i);
+            if (m.total() < 2)
+                continue;
+            m.get(0, 0, best); // the first two matches only
+            if (best[3] < ratio * best[_channels + 3]) {
+                out.position(_channels * kept);
+                out.put(best, 0, _channels);
+                kept++;
+            }
+        }
+        dst.truncate(kept);
+        return kept;
+    }
+
+    private int[] getIntField(int field, int[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new int[num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = (int) b.get(_channels * i + field);
+        }
+        return dst;
+    }
 }
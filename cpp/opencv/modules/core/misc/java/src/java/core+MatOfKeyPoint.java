@@ -1,5 +1,6 @@
 package org.opencv.core;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -83,4 +84,121 @@ public class MatOfKeyPoint extends Mat {
         KeyPoint[] akp = toArray();
         return Arrays.asList(akp);
     }
+
+    /*
+     * Structure-of-arrays access: each get* method copies one field of every
+     * keypoint into dst, read in place from the native data, so no KeyPoint
+     * or intermediate array is created. dst is filled and returned when it
+     * has room for total() values, otherwise (or when it is null) a new
+     * array is returned.
+     */
+
+    public float[] getXs(float[] dst) {
+        return getField(0, dst);
+    }
+
+    public float[] getYs(float[] dst) {
+        return getField(1, dst);
+    }
+
+    /** Interleaved x, y coordinates, 2 * total() values. */
+    public float[] getPoints(float[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < 2 * num)
+            dst = new float[2 * num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++) {
+                dst[2 * i] = b.get(_channels * i);
+                dst[2 * i + 1] = b.get(_channels * i + 1);
+            }
+        }
+        return dst;
+    }
+
+    public float[] getSizes(float[] dst) {
+        return getField(2, dst);
+    }
+
+    public float[] getAngles(float[] dst) {
+        return getField(3, dst);
+    }
+
+    public float[] getResponses(float[] dst) {
+        return getField(4, dst);
+    }
+
+    public int[] getOctaves(int[] dst) {
+        return getIntField(5, dst);
+    }
+
+    public int[] getClassIds(int[] dst) {
+        return getIntField(6, dst);
+    }
+
+    /**
+     * Keeps the n keypoints with the strongest response, like
+     * KeyPointsFilter::retainBest: keypoints tied with the n-th response are
+     * kept too. The keypoints are compacted in place and keep their order.
+     *
+     * @return the number of keypoints kept
+     */
+    public int retainBest(int n) {
+        return retainBest(n, null);
+    }
+
+    /**
+     * retainBest(n), with a scratch array of at least total() floats that is
+     * used instead of allocating one.
+     */
+    public int retainBest(int n, float[] scratch) {
+        int num = (int) total();
+        if (n >= num)
+            return num;
+        if (n <= 0) {
+            truncate(0);
+            return 0;
+        }
+        float[] responses = FloatSelect.scratch(scratch, num);
+        getField(4, responses);
+        float threshold = FloatSelect.kthSmallest(responses, num, num - n);
+
+        FloatBuffer b = asFloatBuffer();
+        int kept = 0;
+        for (int i = 0; i < num; i++) {
+            if (b.get(_channels * i + 4) >= threshold) {
+                if (kept != i) {
+                    for (int c = 0; c < _channels; c++)
+                        b.put(_channels * kept + c, b.get(_channels * i + c));
+                }
+                kept++;
+            }
+        }
+        truncate(kept);
+        return kept;
+    }
+
+    private float[] getField(int field, float[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new float[num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = b.get(_channels * i + field);
+        }
+        return dst;
+    }
+
+    private int[] getIntField(int field, int[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new int[num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = (int) b.get(_channels * i + field);
+        }
+        return dst;
+    }
 }
@@ -1,5 +1,6 @@
 package org.opencv.core;
 
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -78,4 +79,39 @@ public class MatOfRect extends Mat {
         Rect[] ar = toArray();
         return Arrays.asList(ar);
     }
+
+    /*
+     * Structure-of-arrays access: each get* method copies one field of every
+     * rect into dst, read in place from the native data. dst is filled and
+     * returned when it has room for total() values, otherwise (or when it is
+     * null) a new array is returned.
+     */
+
+    public int[] getXs(int[] dst) {
+        return getField(0, dst);
+    }
+
+    public int[] getYs(int[] dst) {
+        return getField(1, dst);
+    }
+
+    public int[] getWidths(int[] dst) {
+        return getField(2, dst);
+    }
+
+    public int[] getHeights(int[] dst) {
+        return getField(3, dst);
+    }
+
+    private int[] getField(int field, int[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new int[num];
+        if (num > 0) {
+            IntBuffer b = asIntBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = b.get(_channels * i + field);
+        }
+        return dst;
+    }
 }
@@ -1,5 +1,6 @@
 package org.opencv.core;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -66,11 +67,11 @@ public class MatOfRotatedRect extends Mat {
         RotatedRect[] a = new RotatedRect[num];
         if(num == 0)
             return a;
-        float buff[] = new float[_channels];
-        for(int i=0; i<num; i++) {
-            get(i, 0, buff); //TODO: check ret val!
-            a[i] = new RotatedRect(new Point(buff[0],buff[1]),new Size(buff[2],buff[3]),buff[4]);
-        }
+        float buff[] = new float[num * _channels];
+        get(0, 0, buff); //TODO: check ret val!
+        for(int i=0; i<num; i++)
+            a[i] = new RotatedRect(new Point(buff[_channels*i+0],buff[_channels*i+1]),
+                                   new Size(buff[_channels*i+2],buff[_channels*i+3]),buff[_channels*i+4]);
         return a;
     }
 
@@ -83,4 +84,43 @@ public class MatOfRotatedRect extends Mat {
         RotatedRect[] ar = toArray();
         return Arrays.asList(ar);
     }
+
+    /*
+     * Structure-of-arrays access: each get* method copies one field of every
+     * rect into dst, read in place from the native data. dst is filled and
+     * returned when it has room for total() values, otherwise (or when it is
+     * null) a new array is returned.
+     */
+
+    public float[] getCenterXs(float[] dst) {
+        return getField(0, dst);
+    }
+
+    public float[] getCenterYs(float[] dst) {
+        return getField(1, dst);
+    }
+
+    public float[] getWidths(float[] dst) {
+        return getField(2, dst);
+    }
+
+    public float[] getHeights(float[] dst) {
+        return getField(3, dst);
+    }
+
+    public float[] getAngles(float[] dst) {
+        return getField(4, dst);
+    }
+
+    private float[] getField(int field, float[] dst) {
+        int num = (int) total();
+        if (dst == null || dst.length < num)
+            dst = new float[num];
+        if (num > 0) {
+            FloatBuffer b = asFloatBuffer();
+            for (int i = 0; i < num; i++)
+                dst[i] = b.get(_channels * i + field);
+        }
+        return dst;
+    }
 }
@@ -0,0 +1,202 @@
+package org.opencv.core;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of reusable Mats keyed by (rows, cols, type).
+ * <p>
+ * Code that allocates the same shapes over and over, such as a per-tile
+ * pipeline, can take its buffers from a pool and give them back when done,
+ * so that in steady state no native memory is allocated:
+ * <pre>
+ * Mat gray = pool.acquire(tile.rows(), tile.cols(), CvType.CV_8UC1);
+ * try {
+ *     Imgproc.cvtColor(tile, gray, Imgproc.COLOR_RGB2GRAY);
+ *     ...
+ * } finally {
+ *     pool.release(gray);
+ * }
+ * </pre>
+ * Each thread has its own free lists, so acquire() and release() take no
+ * locks; a Mat released on another thread goes to that thread's lists. At
+ * most maxPerKey Mats of each shape are kept per thread, extra ones are
+ * released. Only the hit and miss counters are shared between threads.
+ * <p>
+ * The content of an acquired Mat is undefined unless acquireZeroed() is
+ * used. A released Mat must not be used any more, and no submatrix or other
+ * view of it may be kept, since its memory will be handed out again.
+ */
+public final class MatPool {
+
+    public static final int DEFAULT_MAX_PER_KEY = 8;
+
+    private final int maxPerKey;
+
+    private final ThreadLocal<Slots> slots = new ThreadLocal<Slots>() {
+        @Override
+        protected Slots initialValue() {
+            return new Slots();
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public MatPool() {
+        this(DEFAULT_MAX_PER_KEY);
+    }
+
+    /**
+     * @param maxPerKey maximum number of free Mats of one shape kept per thread
+     */
+    public MatPool(int maxPerKey) {
+        if (maxPerKey < 1)
+            throw new IllegalArgumentException("maxPerKey must be positive: " + maxPerKey);
+        this.maxPerKey = maxPerKey;
+    }
+
+    /**
+     * Returns a continuous Mat of the given shape, reused if one is free.
+     * Its content is undefined.
+     */
+    public Mat acquire(int rows, int cols, int type) {
+        ArrayDeque<Mat> free = slots.get().find(rows, cols, type);
+        Mat m = free == null ? null : free.pollLast();
+        if (m != null) {
+            // a pooled Mat may have been released behind our back, e.g. by a MatScope
+            if (!m.empty() && m.rows() == rows && m.cols() == cols && m.type() == type) {
+                hits.incrementAndGet();
+                return m;
+            }
+            m.create(rows, cols, type);
+        } else {
+            m = new Mat(rows, cols, type);
+            MatScope.untrack(m);
+        }
+        misses.incrementAndGet();
+        return m;
+    }
+
+    /**
+     * As acquire(), with every element set to zero.
+     */
+    public Mat acquireZeroed(int rows, int cols, int type) {
+        Mat m = acquire(rows, cols, type);
+        m.fill(0, 0, 0, 0);
+        return m;
+    }
+
+    /**
+     * Gives a Mat back to the pool of the current thread. Mats that cannot
+     * be reused (empty, submatrices) and Mats beyond maxPerKey are released
+     * instead. Passing null does nothing.
+     */
+    public void release(Mat m) {
+        if (m == null)
+            return;
+        if (m.empty() || m.dims() != 2 || !m.isContinuous() || m.isSubmatrix()) {
+            m.release();
+            discarded.incrementAndGet();
+            return;
+        }
+        ArrayDeque<Mat> free = slots.get().get(m.rows(), m.cols(), m.type());
+        if (free.size() >= maxPerKey) {
+            m.release();
+            discarded.incrementAndGet();
+            return;
+        }
+        free.addLast(m);
+    }
+
+    /**
+     * Releases the free Mats of the current thread.
+     */
+    public void clear() {
+        Slots s = slots.get();
+        for (ArrayDeque<Mat> free : s.map.values()) {
+            for (Mat m : free)
+                m.release();
+        }
+        s.map.clear();
+    }
+
+    /** Number of acquire calls served by a pooled Mat. */
+    public long hits() {
+        return hits.get();
+    }
+
+    /** Number of acquire calls that had to allocate. */
+    public long misses() {
+        return misses.get();
+    }
+
+    /** Number of Mats released instead of pooled. */
+    public long discarded() {
+        return discarded.get();
+    }
+
+    /** Fraction of acquire calls served by a pooled Mat, 0 before the first call. */
+    public double hitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "MatPool [ hits=" + hits.get() + ", misses=" + misses.get() +
+                ", discarded=" + discarded.get() + ", maxPerKey=" + maxPerKey + " ]";
+    }
+
+    // free lists of one thread
+    private static class Slots {
+        final Map<Key, ArrayDeque<Mat>> map = new HashMap<Key, ArrayDeque<Mat>>();
+        // reused for lookups so that acquire() allocates nothing on a hit
+        final Key probe = new Key(0, 0, 0);
+
+        ArrayDeque<Mat> find(int rows, int cols, int type) {
+            probe.set(rows, cols, type);
+            return map.get(probe);
+        }
+
+        ArrayDeque<Mat> get(int rows, int cols, int type) {
+            ArrayDeque<Mat> free = find(rows, cols, type);
+            if (free == null) {
+                free = new ArrayDeque<Mat>();
+                map.put(new Key(rows, cols, type), free);
+            }
+            return free;
+        }
+    }
+
+    private static class Key {
+        int rows, cols, type;
+
+        Key(int rows, int cols, int type) {
+            set(rows, cols, type);
+        }
+
+        void set(int rows, int cols, int type) {
+            this.rows = rows;
+            this.cols = cols;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return rows == k.rows && cols == k.cols && type == k.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return (rows * 31 + cols) * 31 + type;
+        }
+    }
+}
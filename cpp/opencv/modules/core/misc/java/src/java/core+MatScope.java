@@ -0,0 +1,182 @@
+package org.opencv.core;
+
+import java.util.ArrayList;
+
+/**
+ * Allocation scope for Mat objects.
+ * <p>
+ * While a scope is open on a thread, every Mat created on that thread (including
+ * the results of submat(), reshape(), t(), mul() and Core/Imgproc functions
+ * returning a new Mat) is recorded in it. Closing the scope releases the pixel
+ * data of all recorded Mats, so a per-tile pipeline does not have to track its
+ * temporaries by hand:
+ * <pre>
+ * try (MatScope scope = MatScope.open()) {
+ *     Mat gray = new Mat();
+ *     Imgproc.cvtColor(tile, gray, Imgproc.COLOR_RGB2GRAY);
+ *     ...
+ *     return scope.keep(mask);   // survives the scope
+ * }
+ * </pre>
+ * Scopes nest; a Mat passed to keep() is handed to the enclosing scope, or left
+ * untracked when there is none. Scopes must be closed in reverse order of
+ * opening, on the thread that opened them.
+ * <p>
+ * Closing calls Mat.release(), which frees the pixel data (when no other Mat
+ * shares it) but leaves the small native header to the garbage collector, so a
+ * released Mat is still safe to touch and simply reads as empty.
+ */
+public final class MatScope implements AutoCloseable {
+
+    private static final ThreadLocal<MatScope> current = new ThreadLocal<MatScope>();
+
+    private final MatScope parent;
+    private final Thread owner;
+    private final ArrayList<Mat> mats = new ArrayList<Mat>();
+
+    private long allocations = 0;
+    private long releasedBytes = 0;
+    private boolean closed = false;
+
+    private MatScope(MatScope parent) {
+        this.parent = parent;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Opens a new scope on the current thread, nested in the current scope if any.
+     */
+    public static MatScope open() {
+        MatScope scope = new MatScope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the innermost open scope of the current thread, or null.
+     */
+    public static MatScope current() {
+        return current.get();
+    }
+
+    // called from the Mat instance initializer
+    static void track(Mat m) {
+        MatScope scope = current.get();
+        if (scope != null) {
+            scope.mats.add(m);
+            scope.allocations++;
+        }
+    }
+
+    // called by MatPool, whose Mats outlive the scope they are created in
+    static void untrack(Mat m) {
+        MatScope scope = current.get();
+        if (scope != null) {
+            for (int i = scope.mats.size() - 1; i >= 0; i--) {
+                if (scope.mats.get(i) == m) {
+                    scope.mats.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a Mat out of this scope so it is not released on close. It is
+     * recorded in the enclosing scope, if there is one.
+     *
+     * @param m a Mat created in this scope
+     * @return m, for chaining in return statements
+     */
+    public <T extends Mat> T keep(T m) {
+        checkOwner();
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            if (mats.get(i) == m) {
+                mats.remove(i);
+                if (parent != null) {
+                    parent.mats.add(m);
+                    parent.allocations++;
+                }
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("Mat does not belong to this scope");
+    }
+
+    /**
+     * Number of Mats created in this scope so far, including kept ones.
+     */
+    public long allocations() {
+        return allocations;
+    }
+
+    /**
+     * Number of Mats that will be released when the scope closes.
+     */
+    public int liveCount() {
+        return mats.size();
+    }
+
+    /**
+     * Approximate bytes of pixel data currently held by the Mats of this scope.
+     * Submatrices are not counted; other views sharing a buffer, such as
+     * reshape() results, are.
+     */
+    public long liveBytes() {
+        long bytes = 0;
+        for (Mat m : mats)
+            bytes += bytesOf(m);
+        return bytes;
+    }
+
+    /**
+     * Bytes of pixel data owned by the Mats released when the scope closed.
+     */
+    public long releasedBytes() {
+        return releasedBytes;
+    }
+
+    /**
+     * Releases every Mat still recorded in this scope and makes the enclosing
+     * scope current again. Closing a closed scope does nothing.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        checkOwner();
+        if (current.get() != this)
+            throw new IllegalStateException("MatScope closed out of order");
+        closed = true;
+        // restore the parent first so the Mats released below are not re-tracked
+        if (parent != null)
+            current.set(parent);
+        else
+            current.remove();
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            Mat m = mats.get(i);
+            if (m.nativeObj == 0)
+                continue; // its constructor failed
+            releasedBytes += bytesOf(m);
+            m.release();
+        }
+        mats.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "MatScope [ allocations=" + allocations + ", live=" + mats.size() +
+                ", releasedBytes=" + releasedBytes + (closed ? ", closed" : "") + " ]";
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner)
+            throw new IllegalStateException("MatScope used from a different thread");
+    }
+
+    private static long bytesOf(Mat m) {
+        if (m.nativeObj == 0 || m.isSubmatrix())
+            return 0;
+        return m.total() * m.elemSize();
+    }
+}
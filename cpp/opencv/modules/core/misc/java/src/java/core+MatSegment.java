@@ -0,0 +1,26 @@
+package org.opencv.core;
+
+/**
+ * Access to the data of a Mat as a java.lang.foreign.MemorySegment.
+ * <p>
+ * This is the fallback for JVMs older than Java 22 and for builds without
+ * OPENCV_JAVA_MULTI_RELEASE: isSupported() returns false and of() throws.
+ * The working implementation lives in the META-INF/versions/22 part of a
+ * Multi-Release opencv jar.
+ */
+public final class MatSegment {
+
+    private MatSegment() {
+    }
+
+    /**
+     * Returns true if this jar and JVM provide the MemorySegment implementation.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    public static MatSegment of(Mat m) {
+        throw new UnsupportedOperationException("MatSegment requires Java 22 and a Multi-Release opencv jar");
+    }
+}
@@ -0,0 +1,174 @@
+package org.opencv.core;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Frees the native objects of the generated wrapper classes (Net,
+ * CascadeClassifier, ORB, SVM and so on) without finalize().
+ * <p>
+ * Each wrapper registers itself when it is constructed. Its native object
+ * is freed either explicitly, by close(), or once the wrapper has become
+ * unreachable, by a single daemon thread watching a reference queue, in the
+ * manner of java.lang.ref.Cleaner (which is not available on Java 8 and
+ * older Android releases). Unlike finalization this does not keep the
+ * wrapper alive for an extra GC cycle, so large objects such as DNN nets
+ * and FLANN indexes are freed sooner, and close() frees them at once:
+ * <pre>
+ * try (CascadeClassifier classifier = new CascadeClassifier(file)) {
+ *     classifier.detectMultiScale(image, faces);
+ * }
+ * </pre>
+ * Every generated class also counts its instances whose native object has
+ * not been freed yet, see liveInstances() of each class and
+ * liveInstancesByClass(), to find leaks in long-running services.
+ */
+public final class NativeCleaner {
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    // registered cleanables, kept reachable until they have run
+    private static final Set<Cleanable> pending =
+            Collections.newSetFromMap(new ConcurrentHashMap<Cleanable, Boolean>());
+
+    // every Deleter, for liveInstancesByClass(); weak, so that a Deleter
+    // with no registered object left can be collected with its class
+    private static final Map<Deleter, Boolean> deleters =
+            Collections.synchronizedMap(new WeakHashMap<Deleter, Boolean>());
+
+    private static final Cleanable NONE = new Cleanable(null, 0, null);
+
+    static {
+        NONE.state = 1;
+        Thread t = new Thread("OpenCV native cleaner") {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        ((Cleanable) queue.remove()).clean();
+                    } catch (InterruptedException e) {
+                        // keep running, like the finalizer thread
+                    } catch (Throwable e) {
+                        // a failing delete must not stop the other ones
+                    }
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private NativeCleaner() {
+    }
+
+    /**
+     * Frees the native objects of one wrapper class and counts its live
+     * instances. Each generated class has a single static Deleter. A
+     * Deleter that is no longer referenced, and so has no live instances,
+     * is dropped from liveInstancesByClass().
+     */
+    public static abstract class Deleter {
+        private final String className;
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong freed = new AtomicLong();
+
+        protected Deleter(String className) {
+            this.className = className;
+            deleters.put(this, Boolean.TRUE);
+        }
+
+        /** Deletes the native object, called once per registered object. */
+        public abstract void delete(long nativeObj);
+
+        public String getClassName() {
+            return className;
+        }
+
+        /** Number of objects whose native object has not been freed yet. */
+        public long liveInstances() {
+            return created.get() - freed.get();
+        }
+
+        /** Number of objects registered since start-up. */
+        public long createdInstances() {
+            return created.get();
+        }
+    }
+
+    /** Frees one native object, at most once. */
+    public static final class Cleanable extends PhantomReference<Object> {
+        private static final AtomicIntegerFieldUpdater<Cleanable> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Cleanable.class, "state");
+
+        private final long nativeObj;
+        private final Deleter deleter;
+        private volatile int state = 0;
+
+        Cleanable(Object owner, long nativeObj, Deleter deleter) {
+            super(owner, owner != null ? queue : null);
+            this.nativeObj = nativeObj;
+            this.deleter = deleter;
+        }
+
+        /**
+         * Deletes the native object now, if it was not deleted yet. The
+         * owner must not be used any more.
+         */
+        public void clean() {
+            if (!STATE.compareAndSet(this, 0, 1))
+                return;
+            pending.remove(this);
+            clear();
+            try {
+                deleter.delete(nativeObj);
+            } finally {
+                deleter.freed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Registers owner, so that the native object at nativeObj is deleted by
+     * deleter when owner becomes unreachable or the returned Cleanable is
+     * cleaned. A null address is not registered.
+     */
+    public static Cleanable register(Object owner, long nativeObj, Deleter deleter) {
+        if (nativeObj == 0)
+            return NONE;
+        Cleanable c = new Cleanable(owner, nativeObj, deleter);
+        deleter.created.incrementAndGet();
+        pending.add(c);
+        return c;
+    }
+
+    /**
+     * Live instance counts of the classes that have any, sorted by class
+     * name. Deleters with the same class name are counted together.
+     */
+    public static Map<String, Long> liveInstancesByClass() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        synchronized (deleters) {
+            for (Deleter d : deleters.keySet()) {
+                long n = d.liveInstances();
+                if (n != 0) {
+                    Long c = counts.get(d.getClassName());
+                    counts.put(d.getClassName(), c == null ? n : c + n);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /** Total number of registered native objects not freed yet. */
+    public static long liveInstances() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,22 @@
+package org.opencv.core;
+
+/**
+ * Per-row operation run by Mat.parallelRows().
+ * <p>
+ * The cursor type must match the Mat depth: ByteCursor for CV_8U and CV_8S,
+ * ShortCursor for CV_16U and CV_16S, IntCursor for CV_32S, FloatCursor for
+ * CV_32F and DoubleCursor for CV_64F.
+ *
+ * @param <C> cursor type handed to the kernel
+ */
+public interface RowKernel<C extends MatCursor> {
+
+    /**
+     * Processes one row. The cursor is positioned on the row; values written
+     * through it are stored back in the Mat after the kernel returns.
+     *
+     * @param row index of the row in the Mat
+     * @param cursor cursor on the row, owned by the calling task
+     */
+    void apply(int row, C cursor);
+}
@@ -0,0 +1,56 @@
+package org.opencv.core;
+
+/**
+ * Row cursor over a 16-bit (CV_16U, CV_16S) Mat; see MatCursor.
+ */
+public class ShortCursor extends MatCursor {
+
+    private final short[] buf;
+
+    public ShortCursor(Mat mat) {
+        super(mat, CvType.CV_16U, CvType.CV_16S);
+        buf = new short[length];
+    }
+
+    /**
+     * Makes r the current row, writing back the previous one if it was modified.
+     */
+    public ShortCursor row(int r) {
+        moveTo(r);
+        return this;
+    }
+
+    /** Value i (col * channels() + channel) of the current row. */
+    public short get(int i) {
+        return buf[i];
+    }
+
+    /** Value i of the current row as an unsigned 16-bit number. */
+    public int getU16(int i) {
+        return buf[i] & 0xffff;
+    }
+
+    /** Stores the low 16 bits of v. */
+    public void set(int i, int v) {
+        buf[i] = (short) v;
+        markModified();
+    }
+
+    /**
+     * The row buffer itself, for loops that want plain array access. Call
+     * markModified() after writing to it.
+     */
+    public short[] array() {
+        return buf;
+    }
+
+    @Override
+    void load(Rect r) {
+        mat.get(r, buf, 0, length);
+    }
+
+    @Override
+    void store(Rect r) {
+        mat.put(r, buf, 0, length);
+    }
+}
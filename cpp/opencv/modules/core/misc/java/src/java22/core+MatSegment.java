@@ -0,0 +1,186 @@
+package org.opencv.core;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * Access to the data of a Mat as a java.lang.foreign.MemorySegment.
+ * <p>
+ * The segment covers the Mat data returned by Mat.asByteBuffer(), so every
+ * access is bounds checked and no data is copied. The matrix header (rows,
+ * cols, type, step) is read once when the MatSegment is created; the element
+ * accessors below then run without any JNI call:
+ * <pre>
+ * MatSegment s = MatSegment.of(floatMat);
+ * for (int r = 0; r &lt; s.rows; r++)
+ *     for (int c = 0; c &lt; s.cols; c++)
+ *         s.putFloat(r, c, 0, s.getFloat(r, c, 0) * 0.5f);
+ * </pre>
+ * The segment is a view of the data as it was at creation: create a new
+ * MatSegment after the Mat is reallocated. The data stays valid while the
+ * MatSegment (or the Mat) is reachable and the Mat is not released; keep a
+ * reference to one of them while using segment() directly.
+ */
+public final class MatSegment {
+
+    /** Handles with (MemorySegment, long byteOffset) coordinates, native byte order. */
+    public static final VarHandle BYTE = ValueLayout.JAVA_BYTE.varHandle();
+    public static final VarHandle SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.varHandle();
+    public static final VarHandle INT = ValueLayout.JAVA_INT_UNALIGNED.varHandle();
+    public static final VarHandle FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.varHandle();
+    public static final VarHandle DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.varHandle();
+
+    public final int rows;
+    public final int cols;
+    public final int type;
+    public final int depth;
+    public final int channels;
+    /** Bytes per element (all channels) and per channel value. */
+    public final int elemSize;
+    public final int elemSize1;
+    /** Bytes between the starts of consecutive rows. */
+    public final long step;
+
+    private final Mat mat;
+    private final MemorySegment segment;
+
+    private MatSegment(Mat m) {
+        if (m.dims() > 2)
+            throw new UnsupportedOperationException("MatSegment supports 2D Mat only");
+        if (!m.isContinuous())
+            throw new UnsupportedOperationException("MatSegment supports continuous Mat only");
+        mat = m;
+        rows = m.rows();
+        cols = m.cols();
+        type = m.type();
+        depth = CvType.depth(type);
+        channels = CvType.channels(type);
+        elemSize = (int) m.elemSize();
+        elemSize1 = (int) m.elemSize1();
+        // the rows of a continuous Mat are packed; its own step may be wider
+        // when it is a single row cut out of a larger Mat
+        step = (long) cols * elemSize;
+        segment = MemorySegment.ofBuffer(m.asByteBuffer());
+    }
+
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates a view of a continuous 2D Mat.
+     *
+     * @throws UnsupportedOperationException if the Mat is not continuous
+     */
+    public static MatSegment of(Mat m) {
+        return new MatSegment(m);
+    }
+
+    public Mat mat() {
+        return mat;
+    }
+
+    /** The whole Mat data, total() * elemSize() bytes. */
+    public MemorySegment segment() {
+        return segment;
+    }
+
+    /** The bytes of one row. */
+    public MemorySegment row(int row) {
+        Objects.checkIndex(row, rows);
+        return segment.asSlice(row * step, step);
+    }
+
+    /** Byte offset of channel ch of element (row, col), for use with the VarHandles. */
+    public long offset(int row, int col, int ch) {
+        Objects.checkIndex(row, rows);
+        Objects.checkIndex(col, cols);
+        Objects.checkIndex(ch, channels);
+        return row * step + (long) col * elemSize + (long) ch * elemSize1;
+    }
+
+    public byte getByte(int row, int col, int ch) {
+        checkDepth(CvType.CV_8U, CvType.CV_8S);
+        return segment.get(ValueLayout.JAVA_BYTE, offset(row, col, ch));
+    }
+
+    public void putByte(int row, int col, int ch, byte v) {
+        checkDepth(CvType.CV_8U, CvType.CV_8S);
+        segment.set(ValueLayout.JAVA_BYTE, offset(row, col, ch), v);
+    }
+
+    public short getShort(int row, int col, int ch) {
+        checkDepth(CvType.CV_16U, CvType.CV_16S);
+        return segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, offset(row, col, ch));
+    }
+
+    public void putShort(int row, int col, int ch, short v) {
+        checkDepth(CvType.CV_16U, CvType.CV_16S);
+        segment.set(ValueLayout.JAVA_SHORT_UNALIGNED, offset(row, col, ch), v);
+    }
+
+    public int getInt(int row, int col, int ch) {
+        checkDepth(CvType.CV_32S, CvType.CV_32S);
+        return segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset(row, col, ch));
+    }
+
+    public void putInt(int row, int col, int ch, int v) {
+        checkDepth(CvType.CV_32S, CvType.CV_32S);
+        segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset(row, col, ch), v);
+    }
+
+    public float getFloat(int row, int col, int ch) {
+        checkDepth(CvType.CV_32F, CvType.CV_32F);
+        return segment.get(ValueLayout.JAVA_FLOAT_UNALIGNED, offset(row, col, ch));
+    }
+
+    public void putFloat(int row, int col, int ch, float v) {
+        checkDepth(CvType.CV_32F, CvType.CV_32F);
+        segment.set(ValueLayout.JAVA_FLOAT_UNALIGNED, offset(row, col, ch), v);
+    }
+
+    public double getDouble(int row, int col, int ch) {
+        checkDepth(CvType.CV_64F, CvType.CV_64F);
+        return segment.get(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset(row, col, ch));
+    }
+
+    public void putDouble(int row, int col, int ch, double v) {
+        checkDepth(CvType.CV_64F, CvType.CV_64F);
+        segment.set(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset(row, col, ch), v);
+    }
+
+    /**
+     * Returns the VarHandle matching the depth of the Mat.
+     */
+    public VarHandle elementHandle() {
+        switch (depth) {
+        case CvType.CV_8U:
+        case CvType.CV_8S:
+            return BYTE;
+        case CvType.CV_16U:
+        case CvType.CV_16S:
+            return SHORT;
+        case CvType.CV_32S:
+            return INT;
+        case CvType.CV_32F:
+            return FLOAT;
+        case CvType.CV_64F:
+            return DOUBLE;
+        default:
+            throw new UnsupportedOperationException("Mat data type is not supported: " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MatSegment [ " + rows + "*" + cols + "*" + CvType.typeToString(type) +
+                ", step=" + step + ", byteSize=" + segment.byteSize() + " ]";
+    }
+
+    private void checkDepth(int d1, int d2) {
+        if (depth != d1 && depth != d2)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + type);
+    }
+}
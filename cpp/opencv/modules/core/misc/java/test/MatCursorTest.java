@@ -0,0 +1,85 @@
+package org.opencv.test.core;
+
+import java.util.Arrays;
+
+import org.opencv.core.ByteCursor;
+import org.opencv.core.CvType;
+import org.opencv.core.FloatCursor;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.ShortCursor;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatCursorTest extends OpenCVTestCase {
+
+    public void testByteCursor() {
+        Mat m = new Mat(3, 2, CvType.CV_8UC3, new Scalar(200, 1, 2));
+        ByteCursor cur = new ByteCursor(m);
+
+        assertEquals(6, cur.length());
+        assertEquals(200, cur.row(1).getU8(3));
+        assertEquals((byte) 200, cur.get(0));
+
+        cur.set(4, 300); // stored modulo 256
+        assertEquals(44, cur.getU8(4));
+        cur.row(2); // writes row 1 back
+
+        byte[] pixel = new byte[3];
+        m.get(1, 1, pixel);
+        assertTrue(Arrays.equals(new byte[] { (byte) 200, 44, 2 }, pixel));
+    }
+
+    public void testCloseFlushes() {
+        Mat m = Mat.zeros(2, 2, CvType.CV_32FC1);
+        try (FloatCursor cur = new FloatCursor(m)) {
+            cur.row(0).set(1, 2.5f);
+            assertEquals(0.0, m.get(0, 1)[0]);
+        }
+        assertEquals(2.5, m.get(0, 1)[0]);
+    }
+
+    public void testArrayAccessOnSubmat() {
+        Mat m = Mat.zeros(4, 4, CvType.CV_16UC1);
+        Mat sub = m.submat(1, 3, 1, 3);
+        ShortCursor cur = new ShortCursor(sub);
+
+        short[] row = cur.row(1).array();
+        row[0] = (short) 65535;
+        cur.markModified();
+        cur.flush();
+
+        assertEquals(65535, cur.getU16(0));
+        assertEquals(65535.0, m.get(2, 1)[0]);
+        assertEquals(0.0, m.get(2, 0)[0]);
+        assertEquals(0.0, m.get(2, 3)[0]);
+    }
+
+    public void testIncompatibleType() {
+        try {
+            new FloatCursor(gray0);
+            fail("Expected UnsupportedOperationException (unsupported type)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testRowOutOfRange() {
+        ByteCursor cur = new ByteCursor(gray0);
+        try {
+            cur.row(gray0.rows());
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testSetWithoutRow() {
+        ByteCursor cur = new ByteCursor(gray0);
+        try {
+            cur.set(0, 1);
+            fail("Expected IllegalStateException (no current row)");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.opencv.test.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatOfDMatchTest extends OpenCVTestCase {
+
+    private MatOfDMatch matches;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        matches = new MatOfDMatch(
+                new DMatch(0, 5, 0, 30f),
+                new DMatch(1, 3, 0, 10f),
+                new DMatch(2, 4, 1, 50f),
+                new DMatch(3, 1, 1, 20f));
+    }
+
+    public void testGetFields() {
+        int[] query = matches.getQueryIdxs(null);
+        int[] train = matches.getTrainIdxs(null);
+        int[] img = matches.getImgIdxs(null);
+        float[] distance = matches.getDistances(null);
+
+        DMatch[] expected = matches.toArray();
+        assertEquals(4, query.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].queryIdx, query[i]);
+            assertEquals(expected[i].trainIdx, train[i]);
+            assertEquals(expected[i].imgIdx, img[i]);
+            assertEquals(expected[i].distance, distance[i], EPS);
+        }
+    }
+
+    public void testGetFieldsReusesBuffer() {
+        int[] buf = new int[4];
+
+        assertSame(buf, matches.getTrainIdxs(buf));
+        assertEquals(1, buf[3]);
+    }
+
+    public void testRetainBest() {
+        assertEquals(2, matches.retainBest(2));
+
+        DMatch[] expected = { new DMatch(1, 3, 0, 10f), new DMatch(3, 1, 1, 20f) };
+        assertArrayDMatchEquals(expected, matches.toArray(), EPS);
+    }
+
+    public void testRetainBestAll() {
+        assertEquals(4, matches.retainBest(4));
+        assertEquals(4, matches.total());
+    }
+
+    public void testRatioTest() {
+        List<MatOfDMatch> knn = Arrays.asList(
+                new MatOfDMatch(new DMatch(0, 1, 0, 10f), new DMatch(0, 2, 0, 40f)),
+                new MatOfDMatch(new DMatch(1, 3, 0, 30f), new DMatch(1, 4, 0, 35f)),
+                new MatOfDMatch(new DMatch(2, 5, 0, 5f)),
+                new MatOfDMatch(new DMatch(3, 6, 0, 1f), new DMatch(3, 7, 0, 20f), new DMatch(3, 8, 0, 21f)));
+        MatOfDMatch good = new MatOfDMatch();
+
+        assertEquals(2, MatOfDMatch.ratioTest(knn, 0.75f, good));
+
+        DMatch[] expected = { new DMatch(0, 1, 0, 10f), new DMatch(3, 6, 0, 1f) };
+        assertArrayDMatchEquals(expected, good.toArray(), EPS);
+    }
+
+    public void testRatioTestEmpty() {
+        MatOfDMatch good = new MatOfDMatch(new DMatch(0, 1, 0, 10f));
+
+        assertEquals(0, MatOfDMatch.ratioTest(Arrays.<MatOfDMatch>asList(), 0.75f, good));
+        assertTrue(good.empty());
+    }
+}
@@ -0,0 +1,105 @@
+package org.opencv.test.core;
+
+import org.opencv.core.KeyPoint;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatOfKeyPointTest extends OpenCVTestCase {
+
+    private MatOfKeyPoint keypoints;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        keypoints = new MatOfKeyPoint(
+                new KeyPoint(1, 2, 3, 10, 0.5f, 0, 7),
+                new KeyPoint(4, 5, 6, 20, 0.9f, 1, 8),
+                new KeyPoint(7, 8, 9, 30, 0.1f, 2, 9),
+                new KeyPoint(10, 11, 12, 40, 0.7f, 3, 10));
+    }
+
+    public void testGetFields() {
+        float[] xs = keypoints.getXs(null);
+        float[] ys = keypoints.getYs(null);
+        float[] sizes = keypoints.getSizes(null);
+        float[] angles = keypoints.getAngles(null);
+        float[] responses = keypoints.getResponses(null);
+        int[] octaves = keypoints.getOctaves(null);
+        int[] classIds = keypoints.getClassIds(null);
+
+        KeyPoint[] expected = keypoints.toArray();
+        assertEquals(4, xs.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].pt.x, xs[i], EPS);
+            assertEquals(expected[i].pt.y, ys[i], EPS);
+            assertEquals(expected[i].size, sizes[i], EPS);
+            assertEquals(expected[i].angle, angles[i], EPS);
+            assertEquals(expected[i].response, responses[i], EPS);
+            assertEquals(expected[i].octave, octaves[i]);
+            assertEquals(expected[i].class_id, classIds[i]);
+        }
+    }
+
+    public void testGetFieldsReusesBuffer() {
+        float[] buf = new float[10];
+
+        assertSame(buf, keypoints.getXs(buf));
+        assertEquals(10f, buf[3], EPS);
+
+        float[] small = new float[2];
+        float[] ys = keypoints.getYs(small);
+        assertNotSame(small, ys);
+        assertEquals(4, ys.length);
+    }
+
+    public void testGetPoints() {
+        float[] xy = keypoints.getPoints(null);
+
+        assertEquals(8, xy.length);
+        assertEquals(7f, xy[4], EPS);
+        assertEquals(8f, xy[5], EPS);
+    }
+
+    public void testGetFieldsEmpty() {
+        MatOfKeyPoint empty = new MatOfKeyPoint();
+
+        assertEquals(0, empty.getXs(null).length);
+        assertEquals(0, empty.getOctaves(null).length);
+    }
+
+    public void testRetainBest() {
+        assertEquals(2, keypoints.retainBest(2));
+
+        assertEquals(2, keypoints.total());
+        float[] responses = keypoints.getResponses(null);
+        // order is kept
+        assertEquals(0.9f, responses[0], EPS);
+        assertEquals(0.7f, responses[1], EPS);
+        assertEquals(4f, keypoints.getXs(null)[0], EPS);
+        assertEquals(10, keypoints.getClassIds(null)[1]);
+    }
+
+    public void testRetainBestKeepsTies() {
+        MatOfKeyPoint kps = new MatOfKeyPoint(
+                new KeyPoint(0, 0, 1, -1, 0.5f),
+                new KeyPoint(1, 0, 1, -1, 0.2f),
+                new KeyPoint(2, 0, 1, -1, 0.5f),
+                new KeyPoint(3, 0, 1, -1, 0.9f));
+
+        assertEquals(3, kps.retainBest(2, new float[4]));
+
+        float[] xs = kps.getXs(null);
+        assertEquals(0f, xs[0], EPS);
+        assertEquals(2f, xs[1], EPS);
+        assertEquals(3f, xs[2], EPS);
+    }
+
+    public void testRetainBestAll() {
+        assertEquals(4, keypoints.retainBest(10));
+        assertEquals(4, keypoints.total());
+
+        assertEquals(0, keypoints.retainBest(0));
+        assertTrue(keypoints.empty());
+    }
+}
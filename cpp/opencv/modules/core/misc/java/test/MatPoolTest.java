@@ -0,0 +1,90 @@
+package org.opencv.test.core;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.MatScope;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatPoolTest extends OpenCVTestCase {
+
+    public void testAcquireRelease() {
+        MatPool pool = new MatPool();
+
+        Mat m = pool.acquire(4, 5, CvType.CV_8UC3);
+        assertEquals(4, m.rows());
+        assertEquals(5, m.cols());
+        assertEquals(CvType.CV_8UC3, m.type());
+        long data = m.dataAddr();
+        pool.release(m);
+
+        Mat again = pool.acquire(4, 5, CvType.CV_8UC3);
+        assertSame(m, again);
+        assertEquals(data, again.dataAddr());
+        assertEquals(1, pool.hits());
+        assertEquals(1, pool.misses());
+        assertEquals(0.5, pool.hitRate(), EPS);
+    }
+
+    public void testKeyedByShape() {
+        MatPool pool = new MatPool();
+        Mat m = pool.acquire(4, 4, CvType.CV_8UC1);
+        pool.release(m);
+
+        Mat other = pool.acquire(4, 4, CvType.CV_32FC1);
+        assertNotSame(m, other);
+        assertEquals(0, pool.hits());
+    }
+
+    public void testAcquireZeroed() {
+        MatPool pool = new MatPool();
+        Mat m = pool.acquire(3, 3, CvType.CV_8UC1);
+        m.put(1, 1, 7);
+        pool.release(m);
+
+        Mat zeroed = pool.acquireZeroed(3, 3, CvType.CV_8UC1);
+        assertEquals(0, Core.countNonZero(zeroed));
+
+        Mat f = pool.acquire(2, 2, CvType.CV_32FC3);
+        f.put(0, 1, Float.NaN, 1, -2);
+        pool.release(f);
+
+        zeroed = pool.acquireZeroed(2, 2, CvType.CV_32FC3);
+        assertSame(f, zeroed);
+        assertEquals(0, Core.countNonZero(zeroed.reshape(1)));
+    }
+
+    public void testBounded() {
+        MatPool pool = new MatPool(1);
+        Mat a = pool.acquire(2, 2, CvType.CV_8UC1);
+        Mat b = pool.acquire(2, 2, CvType.CV_8UC1);
+        pool.release(a);
+        pool.release(b);
+
+        assertEquals(1, pool.discarded());
+        assertTrue(b.empty());
+    }
+
+    public void testSubmatNotPooled() {
+        MatPool pool = new MatPool();
+        Mat sub = gray0.clone().submat(0, 2, 0, 2);
+        pool.release(sub);
+
+        assertEquals(1, pool.discarded());
+        assertNotSame(sub, pool.acquire(2, 2, CvType.CV_8UC1));
+    }
+
+    public void testSurvivesScope() {
+        MatPool pool = new MatPool();
+        Mat m;
+        try (MatScope scope = MatScope.open()) {
+            m = pool.acquire(2, 2, CvType.CV_8UC1);
+            assertEquals(0, scope.liveCount());
+            pool.release(m);
+        }
+        assertFalse(m.empty());
+        assertSame(m, pool.acquire(2, 2, CvType.CV_8UC1));
+        assertEquals(1, pool.hits());
+    }
+}
@@ -0,0 +1,97 @@
+package org.opencv.test.core;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatScope;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatScopeTest extends OpenCVTestCase {
+
+    public void testCloseReleasesMats() {
+        Mat a, b;
+        MatScope scope = MatScope.open();
+        try {
+            a = new Mat(10, 10, CvType.CV_8UC3);
+            b = a.t();
+            assertEquals(2, scope.allocations());
+            assertEquals(600, scope.liveBytes());
+        } finally {
+            scope.close();
+        }
+
+        assertTrue(a.empty());
+        assertTrue(b.empty());
+        assertEquals(600, scope.releasedBytes());
+        assertNull(MatScope.current());
+    }
+
+    public void testKeep() {
+        Mat kept;
+        try (MatScope scope = MatScope.open()) {
+            Mat tmp = new Mat(4, 4, CvType.CV_32F);
+            kept = scope.keep(tmp.clone());
+            assertEquals(1, scope.liveCount());
+        }
+
+        assertFalse(kept.empty());
+        assertEquals(4, kept.rows());
+    }
+
+    public void testKeepMovesToParent() {
+        Mat m;
+        MatScope outer = MatScope.open();
+        try {
+            try (MatScope inner = MatScope.open()) {
+                m = inner.keep(new Mat(2, 2, CvType.CV_8U));
+            }
+            assertFalse(m.empty());
+            assertEquals(1, outer.liveCount());
+        } finally {
+            outer.close();
+        }
+        assertTrue(m.empty());
+    }
+
+    public void testKeepForeignMat() {
+        Mat outside = new Mat(2, 2, CvType.CV_8U);
+        try (MatScope scope = MatScope.open()) {
+            scope.keep(outside);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertFalse(outside.empty());
+    }
+
+    public void testSubmatNotCounted() {
+        try (MatScope scope = MatScope.open()) {
+            Mat m = new Mat(10, 10, CvType.CV_8U);
+            m.submat(0, 5, 0, 5);
+            assertEquals(2, scope.allocations());
+            assertEquals(100, scope.liveBytes());
+        }
+    }
+
+    public void testCloseOutOfOrder() {
+        MatScope outer = MatScope.open();
+        MatScope inner = MatScope.open();
+        try {
+            outer.close();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+    public void testUntrackedOutsideScope() {
+        assertNull(MatScope.current());
+        Mat m = new Mat(3, 3, CvType.CV_8U);
+        try (MatScope scope = MatScope.open()) {
+            assertEquals(0, scope.allocations());
+        }
+        assertFalse(m.empty());
+    }
+}
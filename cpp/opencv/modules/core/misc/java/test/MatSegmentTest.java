@@ -0,0 +1,23 @@
+package org.opencv.test.core;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatSegment;
+import org.opencv.test.OpenCVTestCase;
+
+public class MatSegmentTest extends OpenCVTestCase {
+
+    public void testOf() {
+        Mat m = new Mat(2, 2, CvType.CV_32FC1);
+        if (MatSegment.isSupported()) {
+            assertNotNull(MatSegment.of(m));
+        } else {
+            try {
+                MatSegment.of(m);
+                fail("Expected UnsupportedOperationException (no Java 22 classes)");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -2,14 +2,20 @@ package org.opencv.test.core;
 
 import java.util.Arrays;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
+import org.opencv.core.ByteCursor;
 import org.opencv.core.Core;
 import org.opencv.core.CvException;
 import org.opencv.core.CvType;
+import org.opencv.core.FloatCursor;
 import org.opencv.core.Mat;
+import org.opencv.core.NativeCleaner;
 import org.opencv.core.Point;
 import org.opencv.core.Range;
 import org.opencv.core.Rect;
+import org.opencv.core.RowKernel;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.test.OpenCVTestCase;
@@ -35,6 +41,100 @@ public class MatTest extends OpenCVTestCase {
         assertSizeEquals(gray0.size(), size, EPS);
     }
 
+    public void testAsByteBuffer() {
+        Mat m = new Mat(2, 3, CvType.CV_8UC3, new Scalar(1, 2, 3));
+        ByteBuffer buf = m.asByteBuffer();
+
+        assertTrue(buf.isDirect());
+        assertEquals(18, buf.capacity());
+        assertEquals(3, buf.get(5));
+
+        buf.put(4, (byte) 7);
+        byte[] pixel = new byte[3];
+        m.get(0, 1, pixel);
+        assertTrue(Arrays.equals(new byte[] { 1, 7, 3 }, pixel));
+    }
+
+    public void testAsByteBufferSurvivesRealloc() {
+        Mat m = new Mat(4, 4, CvType.CV_8UC1, new Scalar(5));
+        ByteBuffer buf = m.asByteBuffer();
+
+        m.create(8, 8, CvType.CV_32FC1);
+
+        // the old data is still referenced by the view
+        assertEquals(5, buf.get(15));
+        assertEquals(256, m.asByteBuffer().capacity());
+    }
+
+    public void testAsByteBufferSurvivesRelease() {
+        Mat m = new Mat(4, 4, CvType.CV_32FC1, new Scalar(2.5));
+        FloatBuffer buf = m.asFloatBuffer();
+
+        m.release();
+        m = null;
+        System.gc();
+
+        // the typed view keeps the data alive
+        assertEquals(2.5f, buf.get(15), EPS);
+    }
+
+    public void testAsByteBufferFreedWithBuffer() throws InterruptedException {
+        String name = "org.opencv.core.Mat.asByteBuffer";
+        Long before = NativeCleaner.liveInstancesByClass().get(name);
+        long live = before == null ? 0 : before;
+
+        for (int i = 0; i < 100; i++) {
+            Mat m = new Mat(4, 4, CvType.CV_8UC1);
+            m.asByteBuffer();
+            m.create(8, 8, CvType.CV_8UC1);
+            m.asByteBuffer().asIntBuffer();
+            m.release();
+        }
+
+        Long now = NativeCleaner.liveInstancesByClass().get(name);
+        for (int i = 0; i < 50 && now != null && now > live; i++) {
+            System.gc();
+            Thread.sleep(20);
+            now = NativeCleaner.liveInstancesByClass().get(name);
+        }
+        assertTrue(now == null || now <= live);
+    }
+
+    public void testAsByteBufferSubmat() {
+        Mat m = new Mat(4, 4, CvType.CV_8UC1);
+        try {
+            m.submat(1, 3, 1, 3).asByteBuffer();
+            fail("Expected UnsupportedOperationException (non-continuous Mat)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testAsFloatBuffer() {
+        Mat m = new Mat(2, 2, CvType.CV_32FC1);
+        FloatBuffer buf = m.asFloatBuffer();
+        buf.put(new float[] { 1.5f, 2, 3, 4 });
+
+        float[] data = new float[4];
+        m.get(0, 0, data);
+        assertTrue(Arrays.equals(new float[] { 1.5f, 2, 3, 4 }, data));
+
+        try {
+            gray0.asFloatBuffer();
+            fail("Expected UnsupportedOperationException (unsupported type)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testAsIntBuffer() {
+        Mat m = new Mat(1, 3, CvType.CV_32SC1, new Scalar(-9));
+        IntBuffer buf = m.asIntBuffer();
+
+        assertEquals(3, buf.capacity());
+        assertEquals(-9, buf.get(2));
+    }
+
     public void testAssignToMat() {
         gray0.assignTo(dst);
 
@@ -68,6 +168,8 @@ public class MatTest extends OpenCVTestCase {
         assertTrue(0 > new Mat().checkVector(0));
         assertTrue(0 > new Mat(10, 1, CvType.CV_8U).checkVector(10));
         assertTrue(0 > new Mat(10, 20, CvType.CV_8U).checkVector(10));
+        // no data, as cv::Mat::checkVector()
+        assertEquals(-1, new Mat(0, 1, CvType.CV_32SC2).checkVector(2));
     }
 
     public void testCheckVectorIntInt() {
@@ -478,6 +580,42 @@ public class MatTest extends OpenCVTestCase {
         assertArrayEquals(outNonContinuous2, outContinuous2);
     }
 
+    public void testGetRectByteArrayIntInt() {
+        Mat m = new Mat(4, 5, CvType.CV_8UC2);
+        for (int r = 0; r < 4; r++)
+            for (int c = 0; c < 5; c++)
+                m.put(r, c, new byte[] { (byte) (10 * r + c), (byte) -1 });
+        Mat sub = m.submat(1, 4, 1, 5);
+
+        byte[] buf = new byte[1 + 2 * 6];
+        int bytes = sub.get(new Rect(1, 0, 2, 2), buf, 1, 6);
+
+        assertEquals(8, bytes);
+        assertTrue(Arrays.equals(new byte[] { 0, 12, -1, 13, -1, 0, 0, 22, -1, 23, -1, 0, 0 }, buf));
+    }
+
+    public void testGetRectFloatArrayIntInt() {
+        Mat m = new Mat(3, 3, CvType.CV_32FC1);
+        m.put(0, 0, new float[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+
+        float[] buf = new float[4];
+        m.get(new Rect(1, 1, 2, 2), buf, 0, 2);
+        assertTrue(Arrays.equals(new float[] { 5, 6, 8, 9 }, buf));
+
+        try {
+            m.get(new Rect(2, 2, 2, 2), buf, 0, 2);
+            fail("Expected IllegalArgumentException (region outside of the Mat)");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            m.get(new Rect(0, 0, 2, 2), buf, 1, 2);
+            fail("Expected IllegalArgumentException (array too short)");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void testGetNativeObjAddr() {
         assertTrue(0 != gray0.getNativeObjAddr());
     }
@@ -517,6 +655,37 @@ public class MatTest extends OpenCVTestCase {
         assertMatEqual(truth, dst, EPS);
     }
 
+    public void testHeaderFollowsReallocation() {
+        Mat m = new Mat();
+        assertTrue(m.empty());
+
+        m.create(3, 4, CvType.CV_32FC2);
+        assertEquals(3, m.rows());
+        assertEquals(CvType.CV_32FC2, m.type());
+        assertEquals(8, m.elemSize());
+
+        // reallocated through an output argument of a generated wrapper
+        Core.add(gray0, gray1, m);
+        assertEquals(matSize, m.rows());
+        assertEquals(CvType.CV_8UC1, m.type());
+        assertEquals(matSize * matSize, m.total());
+
+        m.push_back(gray0.row(0));
+        assertEquals(matSize + 1, m.rows());
+
+        m.release();
+        assertTrue(m.empty());
+        assertEquals(0, m.total());
+    }
+
+    public void testInvalidateHeader() {
+        Mat m = new Mat(2, 2, CvType.CV_8UC1);
+        assertEquals(CvType.CV_8UC1, m.type());
+        m.invalidateHeader();
+        assertEquals(CvType.CV_8UC1, m.type());
+        assertEquals(new Size(2, 2), m.size());
+    }
+
     public void testIsContinuous() {
         assertTrue(gray0.isContinuous());
 
@@ -715,6 +884,37 @@ public class MatTest extends OpenCVTestCase {
         assertMatEqual(truth, dst);
     }
 
+    public void testParallelRows() {
+        Mat m = new Mat(100, 7, CvType.CV_32FC2, new Scalar(1, 2));
+
+        m.parallelRows(new RowKernel<FloatCursor>() {
+            public void apply(int row, FloatCursor cur) {
+                for (int i = 0; i < cur.length(); i++)
+                    cur.set(i, cur.get(i) + row);
+            }
+        });
+
+        float[] pixel = new float[2];
+        m.get(57, 6, pixel);
+        assertTrue(Arrays.equals(new float[] { 58, 59 }, pixel));
+        m.get(0, 0, pixel);
+        assertTrue(Arrays.equals(new float[] { 1, 2 }, pixel));
+    }
+
+    public void testParallelRowsRethrows() {
+        try {
+            gray0.parallelRows(new RowKernel<ByteCursor>() {
+                public void apply(int row, ByteCursor cur) {
+                    if (row == 3)
+                        throw new IllegalStateException("row 3");
+                }
+            });
+            fail("Expected IllegalStateException from the kernel");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
     public void testPush_back() {
         Mat m1 = new Mat(2, 4, CvType.CV_32F, new Scalar(2));
         Mat m2 = new Mat(3, 4, CvType.CV_32F, new Scalar(3));
@@ -772,6 +972,21 @@ public class MatTest extends OpenCVTestCase {
         }
     }
 
+    public void testPutRectShortArrayIntInt() {
+        Mat m = Mat.zeros(4, 4, CvType.CV_16UC1);
+        Mat sub = m.submat(1, 3, 0, 4);
+
+        sub.put(new Rect(1, 0, 2, 2), new short[] { 1, 2, 99, 3, 4 }, 0, 3);
+
+        short[] row = new short[4];
+        m.get(1, 0, row);
+        assertTrue(Arrays.equals(new short[] { 0, 1, 2, 0 }, row));
+        m.get(2, 0, row);
+        assertTrue(Arrays.equals(new short[] { 0, 3, 4, 0 }, row));
+        m.get(3, 0, row);
+        assertTrue(Arrays.equals(new short[] { 0, 0, 0, 0 }, row));
+    }
+
     public void testPutIntArrayByteArray() {
         Mat m = new Mat(new int[]{5, 5, 5}, CvType.CV_8UC3, new Scalar(1, 2, 3));
         Mat sm = m.submat(new Range[]{ new Range(0, 2), new Range(1, 3), new Range(2, 4)});
@@ -0,0 +1,94 @@
+package org.opencv.test.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opencv.core.NativeCleaner;
+import org.opencv.test.OpenCVTestCase;
+
+public class NativeCleanerTest extends OpenCVTestCase {
+
+    private static final AtomicLong deleted = new AtomicLong();
+    private static final AtomicLong lastDeleted = new AtomicLong();
+
+    // one Deleter for the class, as in the generated wrappers
+    private static final NativeCleaner.Deleter DELETER = new NativeCleaner.Deleter("NativeCleanerTest.Owner") {
+        @Override
+        public void delete(long nativeObj) {
+            deleted.incrementAndGet();
+            lastDeleted.set(nativeObj);
+        }
+    };
+
+    private static class Owner implements AutoCloseable {
+        final NativeCleaner.Cleanable cleanable;
+
+        Owner(long addr) {
+            cleanable = NativeCleaner.register(this, addr, DELETER);
+        }
+
+        @Override
+        public void close() {
+            cleanable.clean();
+        }
+    }
+
+    private long deletedBefore;
+    private long createdBefore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        deletedBefore = deleted.get();
+        createdBefore = DELETER.createdInstances();
+    }
+
+    public void testClose() {
+        long live = DELETER.liveInstances();
+        Owner owner = new Owner(42);
+        assertEquals(live + 1, DELETER.liveInstances());
+        assertEquals(Long.valueOf(live + 1), NativeCleaner.liveInstancesByClass().get("NativeCleanerTest.Owner"));
+
+        owner.close();
+
+        assertEquals(1, deleted.get() - deletedBefore);
+        assertEquals(42, lastDeleted.get());
+        assertEquals(live, DELETER.liveInstances());
+        assertEquals(1, DELETER.createdInstances() - createdBefore);
+    }
+
+    public void testCloseTwice() {
+        Owner owner = new Owner(42);
+
+        owner.close();
+        owner.close();
+
+        assertEquals(1, deleted.get() - deletedBefore);
+    }
+
+    public void testNullAddress() {
+        long live = DELETER.liveInstances();
+        Owner owner = new Owner(0);
+        assertEquals(live, DELETER.liveInstances());
+        assertEquals(0, DELETER.createdInstances() - createdBefore);
+
+        owner.close();
+
+        assertEquals(0, deleted.get() - deletedBefore);
+    }
+
+    public void testUnreachable() throws InterruptedException {
+        long live = DELETER.liveInstances();
+        for (int i = 0; i < 100; i++)
+            new Owner(i + 1);
+        assertEquals(live + 100, DELETER.liveInstances());
+
+        for (int i = 0; i < 50 && DELETER.liveInstances() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, DELETER.liveInstances());
+        assertEquals(live + 100, deleted.get() - deletedBefore);
+        assertNull(NativeCleaner.liveInstancesByClass().get("NativeCleanerTest.Owner"));
+    }
+}
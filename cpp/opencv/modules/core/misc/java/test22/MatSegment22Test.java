@@ -0,0 +1,187 @@
+package org.opencv.test.core;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatSegment;
+import org.opencv.core.Scalar;
+import org.opencv.test.OpenCVTestCase;
+
+/**
+ * Tests of the Java 22 MatSegment, built and run only with a Multi-Release
+ * opencv jar.
+ */
+public class MatSegment22Test extends OpenCVTestCase {
+
+    public void testIsSupported() {
+        assertTrue(MatSegment.isSupported());
+    }
+
+    public void testHeader() {
+        Mat m = new Mat(3, 5, CvType.CV_16SC3);
+        MatSegment s = MatSegment.of(m);
+
+        assertEquals(3, s.rows);
+        assertEquals(5, s.cols);
+        assertEquals(CvType.CV_16SC3, s.type);
+        assertEquals(CvType.CV_16S, s.depth);
+        assertEquals(3, s.channels);
+        assertEquals(6, s.elemSize);
+        assertEquals(2, s.elemSize1);
+        assertEquals(30, s.step);
+        assertEquals(90, s.segment().byteSize());
+        assertSame(m, s.mat());
+    }
+
+    public void testByteRoundTrip() {
+        Mat m = new Mat(2, 3, CvType.CV_8UC3, new Scalar(0));
+        MatSegment s = MatSegment.of(m);
+
+        s.putByte(1, 2, 1, (byte) 200);
+        assertEquals(200.0, m.get(1, 2)[1]);
+
+        m.put(0, 1, new byte[] { 1, 2, 3 });
+        assertEquals(3, s.getByte(0, 1, 2));
+    }
+
+    public void testShortRoundTrip() {
+        Mat m = new Mat(2, 2, CvType.CV_16SC1, new Scalar(0));
+        MatSegment s = MatSegment.of(m);
+
+        s.putShort(1, 0, 0, (short) -1234);
+        assertEquals(-1234.0, m.get(1, 0)[0]);
+
+        m.put(0, 1, new short[] { 567 });
+        assertEquals(567, s.getShort(0, 1, 0));
+    }
+
+    public void testIntRoundTrip() {
+        Mat m = new Mat(2, 2, CvType.CV_32SC2, new Scalar(0));
+        MatSegment s = MatSegment.of(m);
+
+        s.putInt(1, 1, 1, -7);
+        assertEquals(-7.0, m.get(1, 1)[1]);
+
+        m.put(0, 0, new int[] { 11, 12 });
+        assertEquals(12, s.getInt(0, 0, 1));
+    }
+
+    public void testFloatRoundTrip() {
+        Mat m = new Mat(3, 4, CvType.CV_32FC2, new Scalar(0));
+        MatSegment s = MatSegment.of(m);
+
+        s.putFloat(2, 3, 1, 2.5f);
+        assertEquals(2.5, m.get(2, 3)[1], EPS);
+
+        m.put(1, 2, new float[] { 0.25f, -4f });
+        assertEquals(-4f, s.getFloat(1, 2, 1), EPS);
+    }
+
+    public void testDoubleRoundTrip() {
+        Mat m = new Mat(2, 2, CvType.CV_64FC1, new Scalar(0));
+        MatSegment s = MatSegment.of(m);
+
+        s.putDouble(0, 1, 0, Math.PI);
+        assertEquals(Math.PI, m.get(0, 1)[0], EPS);
+
+        m.put(1, 0, -0.5);
+        assertEquals(-0.5, s.getDouble(1, 0, 0), EPS);
+    }
+
+    public void testOffset() {
+        MatSegment s = MatSegment.of(new Mat(4, 5, CvType.CV_32FC3));
+
+        assertEquals(0, s.offset(0, 0, 0));
+        assertEquals(2 * 60 + 3 * 12 + 2 * 4, s.offset(2, 3, 2));
+        assertEquals(s.segment().byteSize() - 4, s.offset(3, 4, 2));
+    }
+
+    public void testOffsetOutOfRange() {
+        MatSegment s = MatSegment.of(new Mat(4, 5, CvType.CV_8UC3));
+        int[][] bad = { { -1, 0, 0 }, { 4, 0, 0 }, { 0, -1, 0 }, { 0, 5, 0 }, { 0, 0, -1 }, { 0, 0, 3 } };
+        for (int[] b : bad) {
+            try {
+                s.offset(b[0], b[1], b[2]);
+                fail("Expected IndexOutOfBoundsException for " + b[0] + ", " + b[1] + ", " + b[2]);
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testRow() {
+        Mat m = new Mat(3, 4, CvType.CV_8UC1, new Scalar(0));
+        m.put(1, 0, new byte[] { 1, 2, 3, 4 });
+        MatSegment s = MatSegment.of(m);
+
+        MemorySegment row = s.row(1);
+        assertEquals(4, row.byteSize());
+        assertEquals(4, row.get(ValueLayout.JAVA_BYTE, 3));
+
+        try {
+            s.row(3);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testSingleRowOfLargerMat() {
+        // continuous, but its step is the step of the parent
+        Mat m = new Mat(4, 6, CvType.CV_16UC1, new Scalar(0));
+        Mat sub = m.submat(2, 3, 1, 4);
+        MatSegment s = MatSegment.of(sub);
+
+        assertEquals(6, s.step);
+        assertEquals(6, s.row(0).byteSize());
+        s.putShort(0, 2, 0, (short) 9);
+        assertEquals(9.0, m.get(2, 3)[0]);
+    }
+
+    public void testNotContinuous() {
+        Mat m = new Mat(4, 4, CvType.CV_8UC1);
+        try {
+            MatSegment.of(m.submat(0, 2, 0, 2));
+            fail("Expected UnsupportedOperationException (not continuous)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testCheckDepth() {
+        MatSegment s = MatSegment.of(new Mat(2, 2, CvType.CV_8UC1));
+        try {
+            s.getFloat(0, 0, 0);
+            fail("Expected UnsupportedOperationException (wrong depth)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            s.putInt(0, 0, 0, 1);
+            fail("Expected UnsupportedOperationException (wrong depth)");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testSignedDepthsShareAccessors() {
+        MatSegment s = MatSegment.of(new Mat(1, 1, CvType.CV_8SC1, new Scalar(-3)));
+        assertEquals(-3, s.getByte(0, 0, 0));
+    }
+
+    public void testElementHandle() {
+        Mat m = new Mat(2, 2, CvType.CV_32FC1, new Scalar(1.5));
+        MatSegment s = MatSegment.of(m);
+
+        assertSame(MatSegment.FLOAT, s.elementHandle());
+        long offset = s.offset(1, 1, 0);
+        assertEquals(1.5f, (float) MatSegment.FLOAT.get(s.segment(), offset), EPS);
+        MatSegment.FLOAT.set(s.segment(), offset, 3f);
+        assertEquals(3.0, m.get(1, 1)[0], EPS);
+
+        assertSame(MatSegment.DOUBLE, MatSegment.of(new Mat(1, 1, CvType.CV_64FC1)).elementHandle());
+        assertSame(MatSegment.SHORT, MatSegment.of(new Mat(1, 1, CvType.CV_16UC1)).elementHandle());
+    }
+}
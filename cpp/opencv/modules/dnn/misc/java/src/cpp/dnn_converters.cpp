@@ -8,6 +8,49 @@
 
 #define LOG_TAG "org.opencv.dnn"
 
+namespace {
+
+// Classes, methods and fields used by the converters below, looked up on
+// first use rather than on every call. The lists themselves go through
+// ObjectArray_to_List and List_to_ObjectArray from listconverters.
+struct DnnClasses
+{
+    jclass layer;
+    jclass integer;
+    jmethodID layer_init;       // Layer(long)
+    jmethodID integer_init;     // Integer(int)
+    jfieldID mat_nativeObj;     // long Mat.nativeObj
+    jfieldID layer_nativeObj;   // long Layer.nativeObj
+
+    explicit DnnClasses(JNIEnv* env)
+    {
+        layer = globalClass(env, "org/opencv/dnn/Layer");
+        integer = globalClass(env, "java/lang/Integer");
+        jclass mat = env->FindClass("org/opencv/core/Mat");
+        layer_init = env->GetMethodID(layer, "<init>", "(J)V");
+        integer_init = env->GetMethodID(integer, "<init>", "(I)V");
+        mat_nativeObj = env->GetFieldID(mat, "nativeObj", "J");
+        layer_nativeObj = env->GetFieldID(layer, "nativeObj", "J");
+        env->DeleteLocalRef(mat);
+    }
+
+    static jclass globalClass(JNIEnv* env, const char* name)
+    {
+        jclass local = env->FindClass(name);
+        jclass global = static_cast<jclass>(env->NewGlobalRef(local));
+        env->DeleteLocalRef(local);
+        return global;
+    }
+};
+
+const DnnClasses& dnnClasses(JNIEnv* env)
+{
+    static const DnnClasses classes(env);
+    return classes;
+}
+
+} // namespace
+
 void Mat_to_MatShape(cv::Mat& mat, MatShape& matshape)
 {
     matshape.clear();
@@ -22,81 +65,86 @@ void MatShape_to_Mat(MatShape& matshape, cv::Mat& mat)
 
 std::vector<MatShape> List_to_vector_MatShape(JNIEnv* env, jobject list)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_size       = LIST_SIZE(env, juArrayList);
-    jmethodID m_get        = LIST_GET(env, juArrayList);
-
-    static jclass jMatOfInt = MATOFINT(env);
-
-    jint len = env->CallIntMethod(list, m_size);
+    const DnnClasses& c = dnnClasses(env);
     std::vector<MatShape> result;
+    jobjectArray array = List_to_ObjectArray(env, list);
+    if (!array)
+        return result;
+    jsize len = env->GetArrayLength(array);
     result.reserve(len);
-    for (jint i=0; i<len; i++)
+    for (jsize i = 0; i < len; i++)
     {
-        jobject element = static_cast<jobject>(env->CallObjectMethod(list, m_get, i));
-        cv::Mat& mat = *((cv::Mat*) GETNATIVEOBJ(env, jMatOfInt, element) );
+        jobject element = env->GetObjectArrayElement(array, i);
+        cv::Mat& mat = *((cv::Mat*) env->GetLongField(element, c.mat_nativeObj));
         MatShape matshape = (MatShape) mat;
         result.push_back(matshape);
         env->DeleteLocalRef(element);
     }
+    env->DeleteLocalRef(array);
     return result;
 }
 
 jobject vector_Ptr_Layer_to_List(JNIEnv* env, std::vector<cv::Ptr<cv::dnn::Layer> >& vs)
 {
-    static jclass juArrayList   = ARRAYLIST(env);
-    static jmethodID m_create   = CONSTRUCTOR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
-
-    static jclass jLayerClass = LAYER(env);
-    static jmethodID m_create_layer = LAYER_CONSTRUCTOR(env, jLayerClass);
-
-    jobject result = env->NewObject(juArrayList, m_create, vs.size());
-    for (std::vector< cv::Ptr<cv::dnn::Layer> >::iterator it = vs.begin(); it != vs.end(); ++it) {
-        jobject element = env->NewObject(jLayerClass, m_create_layer, (*it).get());
-        env->CallBooleanMethod(result, m_add, element);
+    const DnnClasses& c = dnnClasses(env);
+    jobjectArray array = env->NewObjectArray((jsize)vs.size(), c.layer, NULL);
+    if (!array)
+        return NULL;
+    for (size_t i = 0; i < vs.size(); i++)
+    {
+        jobject element = env->NewObject(c.layer, c.layer_init, vs[i].get());
+        if (!element)
+        {
+            env->DeleteLocalRef(array);
+            return NULL;
+        }
+        env->SetObjectArrayElement(array, (jsize)i, element);
         env->DeleteLocalRef(element);
     }
+    jobject result = ObjectArray_to_List(env, array);
+    env->DeleteLocalRef(array);
     return result;
 }
 
 jobject vector_Target_to_List(JNIEnv* env, std::vector<cv::dnn::Target>& vs)
 {
-    static jclass juArrayList   = ARRAYLIST(env);
-    static jmethodID m_create   = CONSTRUCTOR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
-
-    static jclass jInteger = env->FindClass("java/lang/Integer");
-    static jmethodID m_create_Integer = env->GetMethodID(jInteger, "<init>", "(I)V");
-
-    jobject result = env->NewObject(juArrayList, m_create, vs.size());
-    for (size_t i = 0; i < vs.size(); ++i)
+    const DnnClasses& c = dnnClasses(env);
+    jobjectArray array = env->NewObjectArray((jsize)vs.size(), c.integer, NULL);
+    if (!array)
+        return NULL;
+    for (size_t i = 0; i < vs.size(); i++)
     {
-        jobject element = env->NewObject(jInteger, m_create_Integer, vs[i]);
-        env->CallBooleanMethod(result, m_add, element);
+        jobject element = env->NewObject(c.integer, c.integer_init, vs[i]);
+        if (!element)
+        {
+            env->DeleteLocalRef(array);
+            return NULL;
+        }
+        env->SetObjectArrayElement(array, (jsize)i, element);
         env->DeleteLocalRef(element);
     }
+    jobject result = ObjectArray_to_List(env, array);
+    env->DeleteLocalRef(array);
     return result;
 }
 
 std::vector<cv::Ptr<cv::dnn::Layer> > List_to_vector_Ptr_Layer(JNIEnv* env, jobject list)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_size       = LIST_SIZE(env, juArrayList);
-    jmethodID m_get        = LIST_GET(env, juArrayList);
-
-    static jclass jLayerClass = LAYER(env);
-
-    jint len = env->CallIntMethod(list, m_size);
+    const DnnClasses& c = dnnClasses(env);
     std::vector< cv::Ptr<cv::dnn::Layer> > result;
+    jobjectArray array = List_to_ObjectArray(env, list);
+    if (!array)
+        return result;
+    jsize len = env->GetArrayLength(array);
     result.reserve(len);
-    for (jint i=0; i<len; i++)
+    for (jsize i = 0; i < len; i++)
     {
-        jobject element = static_cast<jobject>(env->CallObjectMethod(list, m_get, i));
-        cv::Ptr<cv::dnn::Layer>* layer_ptr = (cv::Ptr<cv::dnn::Layer>*) GETNATIVEOBJ(env, jLayerClass, element) ;
+        jobject element = env->GetObjectArrayElement(array, i);
+        cv::Ptr<cv::dnn::Layer>* layer_ptr = (cv::Ptr<cv::dnn::Layer>*) env->GetLongField(element, c.layer_nativeObj);
         cv::Ptr<cv::dnn::Layer> layer = *(layer_ptr);
         result.push_back(layer);
         env->DeleteLocalRef(element);
     }
+    env->DeleteLocalRef(array);
     return result;
 }
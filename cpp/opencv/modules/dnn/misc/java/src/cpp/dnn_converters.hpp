@@ -9,12 +9,10 @@
 
 #include <jni.h>
 #include "opencv_java.hpp"
+#include "listconverters.hpp"
 #include "opencv2/core.hpp"
 #include "opencv2/dnn/dnn.hpp"
 
-#define LAYER(ENV) static_cast<jclass>(ENV->NewGlobalRef(ENV->FindClass("org/opencv/dnn/Layer")))
-#define LAYER_CONSTRUCTOR(ENV, CLS) ENV->GetMethodID(CLS, "<init>", "(J)V")
-
 
 using namespace cv::dnn;
 
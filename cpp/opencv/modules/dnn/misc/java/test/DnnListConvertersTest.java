@@ -0,0 +1,75 @@
+package org.opencv.test.dnn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+import org.opencv.dnn.TextRecognitionModel;
+import org.opencv.test.OpenCVTestCase;
+
+/*
+*  java.util.List conversions of the dnn module (listconverters and
+*  dnn_converters), on a synthetic net that needs no test data
+*/
+
+public class DnnListConvertersTest extends OpenCVTestCase {
+
+    // two ReLU layers, both reading the input, so both are unconnected outputs
+    private final static String PROTO =
+            "input: \"data\"\n" +
+            "input_shape { dim: 1 dim: 1 dim: 8 dim: 8 }\n" +
+            "layer { name: \"relu0\" type: \"ReLU\" bottom: \"data\" top: \"relu0\" }\n" +
+            "layer { name: \"relu1\" type: \"ReLU\" bottom: \"data\" top: \"relu1\" }\n";
+
+    Net net;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        net = Dnn.readNetFromCaffe(new MatOfByte(PROTO.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    public void testGetAvailableTargets() {
+        List<Integer> targets = Dnn.getAvailableTargets(Dnn.DNN_BACKEND_OPENCV);
+        assertTrue(targets.contains(Dnn.DNN_TARGET_CPU));
+    }
+
+    public void testGetLayerNames() {
+        assertEquals(Arrays.asList("relu0", "relu1"), net.getLayerNames());
+        assertEquals(Arrays.asList("relu0", "relu1"), net.getUnconnectedOutLayersNames());
+    }
+
+    public void testGetFLOPS() {
+        List<MatOfInt> netInputShapes = new ArrayList<MatOfInt>();
+        netInputShapes.add(new MatOfInt(1, 1, 8, 8));
+        long flops = net.getFLOPS(netInputShapes);
+        assertTrue(flops > 0);
+
+        netInputShapes.set(0, new MatOfInt(2, 1, 8, 8));
+        assertEquals(2 * flops, net.getFLOPS(netInputShapes));
+    }
+
+    public void testGetMemoryConsumption() {
+        List<MatOfInt> netInputShapes = new ArrayList<MatOfInt>();
+        netInputShapes.add(new MatOfInt(1, 1, 8, 8));
+        long[] weights = new long[1];
+        long[] blobs = new long[1];
+        net.getMemoryConsumption(1, netInputShapes, weights, blobs);
+        assertEquals(0, weights[0]);
+        assertEquals(8 * 8 * 4, blobs[0]);
+    }
+
+    public void testVocabularyRoundTrip() {
+        TextRecognitionModel model = new TextRecognitionModel(net);
+        List<String> vocabulary = Arrays.asList("a", "", "\u00e9t\u00e9");
+        model.setVocabulary(vocabulary);
+        assertEquals(vocabulary, model.getVocabulary());
+
+        model.setVocabulary(new ArrayList<String>());
+        assertTrue(model.getVocabulary().isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package org.opencv.highgui;
+
+/**
+ * Display statistics of one HighGui window: frames per second actually
+ * painted, and the latency from imshow() to the paint that showed the frame.
+ * <p>
+ * Rates and latencies are averaged over the last completed interval of about
+ * one second. A frame replaced by the next imshow() before it was painted is
+ * counted as dropped.
+ */
+public final class FrameCounter {
+
+    private static final long INTERVAL_NANOS = 1000000000L;
+
+    private long submitted = 0;
+    private long painted = 0;
+    private long dropped = 0;
+    // imshow() time of the oldest frame not painted yet, 0 if none
+    private long pendingNanos = 0;
+
+    private long intervalStart = 0;
+    private int intervalFrames = 0;
+    private long intervalLatency = 0;
+
+    private double fps = 0;
+    private double latencyMillis = 0;
+
+    // called by imshow()
+    synchronized void frameSubmitted() {
+        if (pendingNanos != 0)
+            dropped++;
+        else
+            pendingNanos = System.nanoTime();
+        submitted++;
+    }
+
+    // called on the event dispatch thread after the window painted its image
+    synchronized void framePainted() {
+        if (pendingNanos == 0)
+            return; // repaint of a frame already counted
+        long now = System.nanoTime();
+        painted++;
+        intervalLatency += now - pendingNanos;
+        pendingNanos = 0;
+        if (intervalStart == 0)
+            intervalStart = now;
+        intervalFrames++;
+        long elapsed = now - intervalStart;
+        if (elapsed >= INTERVAL_NANOS) {
+            fps = intervalFrames * 1e9 / elapsed;
+            latencyMillis = intervalLatency / 1e6 / intervalFrames;
+            intervalStart = now;
+            intervalFrames = 0;
+            intervalLatency = 0;
+        }
+    }
+
+    /** Frames painted per second over the last interval. */
+    public synchronized double fps() {
+        return fps;
+    }
+
+    /** Mean time from imshow() to paint over the last interval, in milliseconds. */
+    public synchronized double latencyMillis() {
+        return latencyMillis;
+    }
+
+    /** Frames passed to imshow(). */
+    public synchronized long submitted() {
+        return submitted;
+    }
+
+    /** Frames that reached the screen. */
+    public synchronized long painted() {
+        return painted;
+    }
+
+    /** Frames replaced by a newer one before they were painted. */
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    public synchronized void reset() {
+        submitted = painted = dropped = 0;
+        pendingNanos = 0;
+        intervalStart = 0;
+        intervalFrames = 0;
+        intervalLatency = 0;
+        fps = 0;
+        latencyMillis = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%.1f fps, %.1f ms latency, %d painted, %d dropped",
+                fps, latencyMillis, painted, dropped);
+    }
+}
@@ -57,12 +57,27 @@ public final class HighGui {
     }
 
     public static Image toBufferedImage(Mat m) {
+        return toBufferedImage(m, null);
+    }
+
+    /**
+     * Copies a CV_8U Mat into reuse when it has the size and type of the Mat
+     * (TYPE_BYTE_GRAY for one channel, TYPE_3BYTE_BGR otherwise), or into a
+     * new BufferedImage.
+     *
+     * @return the image holding the pixels
+     */
+    public static BufferedImage toBufferedImage(Mat m, BufferedImage reuse) {
         int type = BufferedImage.TYPE_BYTE_GRAY;
 
         if (m.channels() > 1) {
             type = BufferedImage.TYPE_3BYTE_BGR;
         }
-        BufferedImage image = new BufferedImage(m.cols(), m.rows(), type);
+        BufferedImage image = reuse;
+        if (image == null || image.getType() != type ||
+                image.getWidth() != m.cols() || image.getHeight() != m.rows()) {
+            image = new BufferedImage(m.cols(), m.rows(), type);
+        }
         final byte[] targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
         m.get(0, 0, targetPixels);
 
@@ -135,14 +150,13 @@ public final class HighGui {
 
             if (win.img != null) {
 
-                ImageIcon icon = new ImageIcon(toBufferedImage(win.img));
+                // copies the pixels only after an imshow and repaints what changed
+                win.updateImage();
 
                 if (win.lbl == null) {
                     JFrame frame = createJFrame(win.name, win.flag);
-                    JLabel lbl = new JLabel(icon);
+                    JLabel lbl = win.createLabel();
                     win.setFrameLabelVisible(frame, lbl);
-                } else {
-                    win.lbl.setIcon(icon);
                 }
             } else {
                 System.err.println("Error: no imshow associated with" + " namedWindow: \"" + win.name + "\"");
@@ -181,6 +195,15 @@ public final class HighGui {
         if (tmpWin != null) tmpWin.setNewDimension(width, height);
     }
 
+    /**
+     * Returns the frame rate and latency counter of a window, or null if there
+     * is no window with that name.
+     */
+    public static FrameCounter getFrameCounter(String winname) {
+        ImageWindow tmpWin = windows.get(winname);
+        return tmpWin != null ? tmpWin.getFrameCounter() : null;
+    }
+
     public static void moveWindow(String winname, int x, int y) {
         ImageWindow tmpWin = windows.get(winname);
         if (tmpWin != null) tmpWin.setNewPosition(x, y);
@@ -6,10 +6,17 @@ import org.opencv.imgproc.Imgproc;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 
 /**
  * This class was designed to create and manipulate
  * the Windows to be used by the HighGui class.
+ * <p>
+ * Each window keeps one BufferedImage that its label displays. A new frame is
+ * copied into it only after setMat(), and only the rows that changed are
+ * repainted, so streaming frames of a constant size allocates nothing. Once
+ * the label exists, the image is only written on the event dispatch thread.
  */
 public final class ImageWindow {
 
@@ -19,7 +26,6 @@ public final class ImageWindow {
     public String name;
     public Mat img = null;
     public Boolean alreadyUsed = false;
-    public Boolean imgToBeResized = false;
     public Boolean windowToBeResized = false;
     public Boolean positionToBeChanged = false;
     public JFrame frame = null;
@@ -30,10 +36,33 @@ public final class ImageWindow {
     public int width = -1;
     public int height = -1;
 
+    private final FrameCounter counter = new FrameCounter();
+    private boolean imgChanged = false;
+    private Mat scaled = null;
+    private BufferedImage image = null;
+    private byte[] pixels = null;
+
+    // last frame read from img by updateImage(), guarded by this
+    private byte[] nextPixels = null;
+    private int nextRows = 0;
+    private int nextCols = 0;
+    private boolean nextGray = false;
+    // true while a copy of nextPixels into the image is queued
+    private boolean copyPending = false;
+
+    private final Runnable copyFrame = new Runnable() {
+        @Override
+        public void run() {
+            copyFrame();
+        }
+    };
+
     public ImageWindow(String name, Mat img) {
         this.name = name;
         this.img = img;
         this.flag = WINDOW_NORMAL;
+        this.imgChanged = true;
+        counter.frameSubmitted();
     }
 
     public ImageWindow(String name, int flag) {
@@ -63,12 +92,114 @@ public final class ImageWindow {
 
         this.img = img;
         this.alreadyUsed = false;
+        this.imgChanged = true;
+        counter.frameSubmitted();
+    }
+
+    public FrameCounter getFrameCounter() {
+        return counter;
+    }
+
+    /**
+     * Reads the Mat passed to setMat(), if it was not read yet, then copies
+     * it into the window image and repaints the rows that differ from the
+     * previous frame. The copy and the repaint run on the event dispatch
+     * thread once the label exists; a frame still queued there is replaced
+     * by the new one. The image is only reallocated when its size or type
+     * changes.
+     */
+    public void updateImage() {
+        if (!imgChanged || img == null)
+            return;
+        imgChanged = false;
+
+        Mat src = img;
+        if (flag == WINDOW_NORMAL && width > 0 && height > 0) {
+            Size tmpSize = keepAspectRatioSize(img.width(), img.height(), width, height);
+            if (tmpSize.width != img.width() || tmpSize.height != img.height()) {
+                if (scaled == null)
+                    scaled = new Mat();
+                Imgproc.resize(img, scaled, tmpSize, 0, 0, Imgproc.INTER_LINEAR_EXACT);
+                src = scaled;
+            }
+        }
+
+        synchronized (this) {
+            int length = (int) (src.total() * src.channels());
+            if (nextPixels == null || nextPixels.length != length)
+                nextPixels = new byte[length];
+            src.get(0, 0, nextPixels);
+            nextRows = src.rows();
+            nextCols = src.cols();
+            nextGray = src.channels() == 1;
+            if (copyPending)
+                return;
+            copyPending = true;
+        }
+
+        if (lbl == null)
+            copyFrame(); // nothing paints the image yet
+        else
+            SwingUtilities.invokeLater(copyFrame);
+    }
 
-        if (imgToBeResized) {
-            resizeImage();
-            imgToBeResized = false;
+    private void copyFrame() {
+        int first = -1;
+        int last = -1;
+        int rows;
+        synchronized (this) {
+            copyPending = false;
+            rows = nextRows;
+            if (image == null || image.getWidth() != nextCols || image.getHeight() != nextRows ||
+                    (image.getType() == BufferedImage.TYPE_BYTE_GRAY) != nextGray) {
+                image = new BufferedImage(nextCols, nextRows,
+                        nextGray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR);
+                pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                System.arraycopy(nextPixels, 0, pixels, 0, pixels.length);
+                if (lbl != null)
+                    lbl.setIcon(new ImageIcon(image));
+                return;
+            }
+
+            int rowBytes = pixels.length / rows;
+            for (int r = 0; r < rows; r++) {
+                int offset = r * rowBytes;
+                if (!rowEquals(pixels, nextPixels, offset, rowBytes)) {
+                    System.arraycopy(nextPixels, offset, pixels, offset, rowBytes);
+                    if (first < 0)
+                        first = r;
+                    last = r;
+                }
+            }
         }
 
+        if (first < 0) {
+            counter.framePainted(); // the screen already shows this frame
+        } else if (lbl != null) {
+            // the label centers its icon
+            int top = (lbl.getHeight() - rows) / 2;
+            lbl.repaint(0, top + first - 1, lbl.getWidth(), last - first + 3);
+        }
+    }
+
+    /**
+     * Creates the label showing the window image, reading the Mat passed to
+     * the constructor or setMat() if updateImage() was not called yet.
+     *
+     * @throws IllegalStateException if no Mat was shown in this window
+     */
+    public JLabel createLabel() {
+        if (image == null)
+            updateImage();
+        if (image == null)
+            throw new IllegalStateException("No image shown in window " + name);
+        return new JLabel(new ImageIcon(image)) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                counter.framePainted();
+            }
+        };
     }
 
     public void setFrameLabelVisible(JFrame frame, JLabel lbl) {
@@ -96,11 +227,8 @@ public final class ImageWindow {
             this.width = width;
             this.height = height;
 
-            if (img != null) {
-                resizeImage();
-            } else {
-                imgToBeResized = true;
-            }
+            // rescaled on the next updateImage()
+            imgChanged = img != null;
 
             if (lbl != null) {
                 lbl.setPreferredSize(new Dimension(width, height));
@@ -123,10 +251,11 @@ public final class ImageWindow {
         }
     }
 
-    private void resizeImage() {
-        if (flag == WINDOW_NORMAL) {
-            Size tmpSize = keepAspectRatioSize(img.width(), img.height(), width, height);
-            Imgproc.resize(img, img, tmpSize, 0, 0, Imgproc.INTER_LINEAR_EXACT);
+    private static boolean rowEquals(byte[] a, byte[] b, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (a[i] != b[i])
+                return false;
         }
+        return true;
     }
 }
@@ -0,0 +1,177 @@
+package org.opencv.highgui;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatPool;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.imgproc.PackedContours;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layers drawn over an image by OverlayRenderer, in the order they were
+ * added: translucent masks, contour outlines and text labels.
+ * <p>
+ * An overlay only refers to the Mats and contours given to it, which must
+ * stay valid until every render using it has finished. Drawing only reads
+ * the overlay, so once built it can be rendered by several threads at once.
+ */
+public final class Overlay {
+
+    public static final int FONT_FACE = Imgproc.FONT_HERSHEY_SIMPLEX;
+
+    private final List<Layer> layers = new ArrayList<Layer>();
+
+    /**
+     * Blends color into the pixels where mask is non-zero.
+     *
+     * @param mask CV_8UC1 mask of the size of the rendered image
+     * @param alpha opacity of the color, from 0 to 1
+     */
+    public Overlay mask(Mat mask, Scalar color, double alpha) {
+        if (mask.type() != CvType.CV_8UC1)
+            throw new IllegalArgumentException("Expected a CV_8UC1 mask: " + mask);
+        if (alpha < 0 || alpha > 1)
+            throw new IllegalArgumentException("alpha must be within [0, 1]: " + alpha);
+        layers.add(new MaskLayer(mask, color, alpha));
+        return this;
+    }
+
+    /** Draws the outlines of contours, or fills them if thickness is negative. */
+    public Overlay contours(List<MatOfPoint> contours, Scalar color, int thickness) {
+        layers.add(new ContourLayer(Collections.unmodifiableList(new ArrayList<MatOfPoint>(contours)),
+                null, color, thickness));
+        return this;
+    }
+
+    /** Draws the outlines of packed contours, or fills them if thickness is negative. */
+    public Overlay contours(PackedContours contours, Scalar color, int thickness) {
+        layers.add(new ContourLayer(null, contours, color, thickness));
+        return this;
+    }
+
+    public Overlay label(String text, Point org, Scalar color) {
+        return label(text, org, color, 0.5, null);
+    }
+
+    /**
+     * Writes text with its bottom-left corner at org.
+     *
+     * @param background color of a box drawn behind the text, or null for none
+     */
+    public Overlay label(String text, Point org, Scalar color, double fontScale, Scalar background) {
+        layers.add(new LabelLayer(text, org, color, fontScale, background));
+        return this;
+    }
+
+    public int size() {
+        return layers.size();
+    }
+
+    // dst is CV_8UC3; temporaries come from pool
+    void draw(Mat dst, MatPool pool) {
+        for (Layer layer : layers)
+            layer.draw(dst, pool);
+    }
+
+    private static abstract class Layer {
+        abstract void draw(Mat dst, MatPool pool);
+    }
+
+    private static final class MaskLayer extends Layer {
+        final Mat mask;
+        final Scalar color;
+        final double alpha;
+
+        MaskLayer(Mat mask, Scalar color, double alpha) {
+            this.mask = mask;
+            this.color = color;
+            this.alpha = alpha;
+        }
+
+        @Override
+        void draw(Mat dst, MatPool pool) {
+            if (mask.rows() != dst.rows() || mask.cols() != dst.cols())
+                throw new IllegalArgumentException("Mask " + mask + " does not match image " + dst);
+            if (alpha == 1) {
+                dst.setTo(color, mask);
+                return;
+            }
+            // outside the mask both inputs are dst, so the blend leaves it unchanged
+            Mat colored = pool.acquire(dst.rows(), dst.cols(), dst.type());
+            try {
+                dst.copyTo(colored);
+                colored.setTo(color, mask);
+                Core.addWeighted(colored, alpha, dst, 1 - alpha, 0, dst);
+            } finally {
+                pool.release(colored);
+            }
+        }
+    }
+
+    private static final class ContourLayer extends Layer {
+        final List<MatOfPoint> contours;
+        final PackedContours packed;
+        final Scalar color;
+        final int thickness;
+
+        ContourLayer(List<MatOfPoint> contours, PackedContours packed, Scalar color, int thickness) {
+            this.contours = contours;
+            this.packed = packed;
+            this.color = color;
+            this.thickness = thickness;
+        }
+
+        @Override
+        void draw(Mat dst, MatPool pool) {
+            if (contours != null) {
+                Imgproc.drawContours(dst, contours, -1, color, thickness, Imgproc.LINE_AA);
+                return;
+            }
+            List<MatOfPoint> list = new ArrayList<MatOfPoint>(packed.size());
+            try {
+                for (int i = 0; i < packed.size(); i++)
+                    list.add(packed.toMatOfPoint(i));
+                Imgproc.drawContours(dst, list, -1, color, thickness, Imgproc.LINE_AA);
+            } finally {
+                for (MatOfPoint c : list)
+                    c.release();
+            }
+        }
+    }
+
+    private static final class LabelLayer extends Layer {
+        final String text;
+        final Point org;
+        final Scalar color;
+        final double fontScale;
+        final Scalar background;
+
+        LabelLayer(String text, Point org, Scalar color, double fontScale, Scalar background) {
+            this.text = text;
+            this.org = org;
+            this.color = color;
+            this.fontScale = fontScale;
+            this.background = background;
+        }
+
+        @Override
+        void draw(Mat dst, MatPool pool) {
+            int thickness = Math.max(1, (int) Math.round(fontScale * 2));
+            if (background != null) {
+                int[] baseLine = new int[1];
+                Size size = Imgproc.getTextSize(text, FONT_FACE, fontScale, thickness, baseLine);
+                Imgproc.rectangle(dst, new Point(org.x - 2, org.y - size.height - 2),
+                        new Point(org.x + size.width + 2, org.y + baseLine[0] + 2), background, Imgproc.FILLED);
+            }
+            Imgproc.putText(dst, text, org, FONT_FACE, fontScale, color, thickness, Imgproc.LINE_AA);
+        }
+    }
+}
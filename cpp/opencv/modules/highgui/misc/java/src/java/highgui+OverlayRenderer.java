@@ -0,0 +1,202 @@
+package org.opencv.highgui;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.MatPool;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders Overlays over images without any window, for server-side quality
+ * control pictures.
+ * <p>
+ * Unlike imshow() it keeps no global state and never exits the JVM: all
+ * methods may be called from any thread, and bad input throws an
+ * IllegalArgumentException. Nothing here touches AWT windows, so it works in
+ * a headless JVM; renderImage() goes through the same toBufferedImage()
+ * conversion as HighGui.
+ * <p>
+ * Rendered images come from a MatPool. submit() renders and encodes to PNG
+ * or JPEG on the renderer's own threads, each reusing its pooled buffers:
+ * <pre>
+ * try (OverlayRenderer renderer = new OverlayRenderer(4)) {
+ *     Overlay overlay = new Overlay().mask(tissue, new Scalar(0, 255, 0), 0.3)
+ *             .contours(nuclei, new Scalar(0, 0, 255), 1)
+ *             .label(name, new Point(5, 20), new Scalar(0, 0, 0));
+ *     Future&lt;byte[]&gt; png = renderer.submit(tile, overlay, OverlayRenderer.PNG);
+ *     ...
+ * }
+ * </pre>
+ * The base image, like the Mats of the overlay, must not be changed or
+ * released before its render has finished.
+ */
+public final class OverlayRenderer implements AutoCloseable {
+
+    public static final String PNG = ".png";
+    public static final String JPEG = ".jpg";
+
+    public static final int DEFAULT_JPEG_QUALITY = 90;
+    public static final int DEFAULT_PNG_COMPRESSION = 1;
+
+    private static final AtomicInteger rendererCount = new AtomicInteger();
+
+    private final MatPool pool;
+    private final ExecutorService executor;
+
+    private volatile int jpegQuality = DEFAULT_JPEG_QUALITY;
+    private volatile int pngCompression = DEFAULT_PNG_COMPRESSION;
+
+    /**
+     * @param threads number of threads used by submit()
+     */
+    public OverlayRenderer(int threads) {
+        this(new MatPool(), threads);
+    }
+
+    public OverlayRenderer(MatPool pool, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.pool = pool;
+        final String prefix = "overlay-renderer-" + rendererCount.incrementAndGet() + "-";
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public void setJpegQuality(int quality) {
+        jpegQuality = quality;
+    }
+
+    /** PNG compression level from 0 (fastest) to 9 (smallest). */
+    public void setPngCompression(int level) {
+        pngCompression = level;
+    }
+
+    public MatPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Draws overlay over a BGR copy of base, which may be CV_8UC1, CV_8UC3
+     * or CV_8UC4. The result comes from the pool: give it back with
+     * recycle() when done.
+     */
+    public Mat render(Mat base, Overlay overlay) {
+        if (base.empty())
+            throw new IllegalArgumentException("Empty image");
+        if (base.depth() != CvType.CV_8U)
+            throw new IllegalArgumentException("Expected an 8-bit image: " + base);
+        Mat dst = pool.acquire(base.rows(), base.cols(), CvType.CV_8UC3);
+        try {
+            switch (base.channels()) {
+            case 1:
+                Imgproc.cvtColor(base, dst, Imgproc.COLOR_GRAY2BGR);
+                break;
+            case 3:
+                base.copyTo(dst);
+                break;
+            case 4:
+                Imgproc.cvtColor(base, dst, Imgproc.COLOR_BGRA2BGR);
+                break;
+            default:
+                throw new IllegalArgumentException("Expected 1, 3 or 4 channels: " + base);
+            }
+            if (overlay != null)
+                overlay.draw(dst, pool);
+        } catch (RuntimeException e) {
+            pool.release(dst);
+            throw e;
+        }
+        return dst;
+    }
+
+    /** Gives a Mat returned by render() back to the pool. */
+    public void recycle(Mat rendered) {
+        pool.release(rendered);
+    }
+
+    /**
+     * Renders into a TYPE_3BYTE_BGR image, reusing reuse when it has the
+     * right size, as HighGui.toBufferedImage(Mat, BufferedImage) does.
+     */
+    public BufferedImage renderImage(Mat base, Overlay overlay, BufferedImage reuse) {
+        Mat dst = render(base, overlay);
+        try {
+            return HighGui.toBufferedImage(dst, reuse);
+        } finally {
+            pool.release(dst);
+        }
+    }
+
+    /**
+     * Renders and encodes on the calling thread.
+     *
+     * @param ext PNG or JPEG
+     */
+    public byte[] encode(Mat base, Overlay overlay, String ext) {
+        MatOfInt params = encodeParams(ext);
+        Mat dst = render(base, overlay);
+        MatOfByte buf = new MatOfByte();
+        try {
+            if (!Imgcodecs.imencode(ext, dst, buf, params))
+                throw new IllegalStateException("Cannot encode " + dst + " as " + ext);
+            return buf.toArray();
+        } finally {
+            pool.release(dst);
+            buf.release();
+            params.release();
+        }
+    }
+
+    /** Renders and encodes on one of the renderer's threads. */
+    public Future<byte[]> submit(final Mat base, final Overlay overlay, final String ext) {
+        encodeParams(ext).release(); // reject an unknown format now, not in the Future
+        return executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return encode(base, overlay, ext);
+            }
+        });
+    }
+
+    private MatOfInt encodeParams(String ext) {
+        if (JPEG.equalsIgnoreCase(ext) || ".jpeg".equalsIgnoreCase(ext))
+            return new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, jpegQuality);
+        if (PNG.equalsIgnoreCase(ext))
+            return new MatOfInt(Imgcodecs.IMWRITE_PNG_COMPRESSION, pngCompression);
+        throw new IllegalArgumentException("Expected " + PNG + " or " + JPEG + ": " + ext);
+    }
+
+    /**
+     * Finishes the submitted renders and stops the threads. If the calling
+     * thread is interrupted while waiting, returns with its interrupt status
+     * set; the renders already submitted still complete.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
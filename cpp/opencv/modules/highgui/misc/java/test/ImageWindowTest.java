@@ -0,0 +1,105 @@
+package org.opencv.test.highgui;
+
+import java.awt.image.BufferedImage;
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.highgui.FrameCounter;
+import org.opencv.highgui.HighGui;
+import org.opencv.highgui.ImageWindow;
+import org.opencv.test.OpenCVTestCase;
+
+/*
+*  Window image updates of HighGui, without a frame: run with
+*  -Djava.awt.headless=true
+*/
+
+public class ImageWindowTest extends OpenCVTestCase {
+
+    @Override
+    protected void tearDown() throws Exception {
+        HighGui.destroyAllWindows();
+        super.tearDown();
+    }
+
+    public void testImshow() {
+        HighGui.imshow("w", new Mat(4, 6, CvType.CV_8UC1, new Scalar(9)));
+
+        FrameCounter counter = HighGui.getFrameCounter("w");
+        assertEquals(1, counter.submitted());
+        assertEquals(0, counter.dropped());
+
+        HighGui.imshow("w", new Mat(4, 6, CvType.CV_8UC1, new Scalar(10)));
+        assertEquals(2, counter.submitted());
+        assertEquals(1, counter.dropped());
+    }
+
+    public void testCreateLabel() {
+        HighGui.imshow("w", new Mat(4, 6, CvType.CV_8UC3, new Scalar(1, 2, 3)));
+
+        // without a previous updateImage()
+        JLabel lbl = HighGui.windows.get("w").createLabel();
+
+        BufferedImage image = (BufferedImage) ((ImageIcon) lbl.getIcon()).getImage();
+        assertEquals(6, image.getWidth());
+        assertEquals(4, image.getHeight());
+        assertEquals(0x030201, image.getRGB(5, 3) & 0xffffff);
+    }
+
+    public void testCreateLabelWithoutImshow() {
+        HighGui.namedWindow("w");
+        try {
+            HighGui.windows.get("w").createLabel();
+            fail("Expected IllegalStateException (no imshow)");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testUpdateImage() throws Exception {
+        Mat frame = new Mat(4, 6, CvType.CV_8UC3, new Scalar(1, 2, 3));
+        HighGui.imshow("w", frame);
+        ImageWindow win = HighGui.windows.get("w");
+        win.lbl = win.createLabel();
+        BufferedImage image = (BufferedImage) ((ImageIcon) win.lbl.getIcon()).getImage();
+
+        Mat next = frame.clone();
+        next.row(2).setTo(new Scalar(7, 8, 9));
+        HighGui.imshow("w", next);
+        win.updateImage();
+        flushEventQueue();
+
+        // same image, only row 2 rewritten
+        assertSame(image, ((ImageIcon) win.lbl.getIcon()).getImage());
+        assertEquals(0x090807, image.getRGB(0, 2) & 0xffffff);
+        assertEquals(0x030201, image.getRGB(0, 1) & 0xffffff);
+
+        // an unchanged frame needs no paint to be shown
+        FrameCounter counter = win.getFrameCounter();
+        counter.reset();
+        HighGui.imshow("w", next);
+        win.updateImage();
+        flushEventQueue();
+        assertEquals(1, counter.painted());
+
+        // a new size replaces the image
+        HighGui.imshow("w", new Mat(3, 5, CvType.CV_8UC1, new Scalar(200)));
+        win.updateImage();
+        flushEventQueue();
+        image = (BufferedImage) ((ImageIcon) win.lbl.getIcon()).getImage();
+        assertEquals(5, image.getWidth());
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, image.getType());
+        assertEquals(200, image.getRaster().getSample(4, 2, 0));
+    }
+
+    private static void flushEventQueue() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package org.opencv.test.highgui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.highgui.Overlay;
+import org.opencv.highgui.OverlayRenderer;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.test.OpenCVTestCase;
+
+/*
+*  OverlayRenderer from several threads on one Overlay, without any window:
+*  run with -Djava.awt.headless=true
+*/
+
+public class OverlayRendererTest extends OpenCVTestCase {
+
+    private static final int SIZE = 64;
+    private static final int THREADS = 6;
+    private static final int RENDERS = 8;
+
+    OverlayRenderer renderer;
+    Overlay overlay;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        renderer = new OverlayRenderer(3);
+
+        // red, half transparent, over the left half
+        Mat mask = new Mat(SIZE, SIZE, CvType.CV_8UC1, new Scalar(0));
+        mask.submat(new Rect(0, 0, SIZE / 2, SIZE)).setTo(new Scalar(255));
+        List<MatOfPoint> square = new ArrayList<MatOfPoint>();
+        square.add(new MatOfPoint(new Point(40, 40), new Point(56, 40), new Point(56, 56), new Point(40, 56)));
+        overlay = new Overlay()
+                .mask(mask, new Scalar(0, 0, 255), 0.5)
+                .contours(square, new Scalar(0, 255, 0), -1)
+                .label("qc", new Point(2, 12), new Scalar(255, 255, 255));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        renderer.close();
+        super.tearDown();
+    }
+
+    public void testSubmitFromSeveralThreads() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                final int gray = 20 + 30 * t;
+                results.add(callers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Mat base = new Mat(SIZE, SIZE, CvType.CV_8UC1, new Scalar(gray));
+                        List<Future<byte[]>> png = new ArrayList<Future<byte[]>>();
+                        List<Future<byte[]>> jpeg = new ArrayList<Future<byte[]>>();
+                        for (int i = 0; i < RENDERS; i++) {
+                            png.add(renderer.submit(base, overlay, OverlayRenderer.PNG));
+                            jpeg.add(renderer.submit(base, overlay, OverlayRenderer.JPEG));
+                        }
+                        for (Future<byte[]> f : png)
+                            assertPixels(f.get(), gray, 0);
+                        for (Future<byte[]> f : jpeg)
+                            assertPixels(f.get(), gray, 16); // chroma subsampling at the square
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : results)
+                f.get();
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    public void testEmptyBase() throws Exception {
+        try {
+            renderer.encode(new Mat(), overlay, OverlayRenderer.PNG);
+            fail("Expected IllegalArgumentException (empty image)");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSubmitRejected(new Mat());
+    }
+
+    public void testNot8BitBase() throws Exception {
+        Mat base = new Mat(SIZE, SIZE, CvType.CV_16UC3, new Scalar(1000));
+        try {
+            renderer.encode(base, overlay, OverlayRenderer.JPEG);
+            fail("Expected IllegalArgumentException (16-bit image)");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSubmitRejected(base);
+
+        // the renderer still works afterwards
+        assertPixels(renderer.submit(new Mat(SIZE, SIZE, CvType.CV_8UC1, new Scalar(100)), overlay,
+                OverlayRenderer.PNG).get(), 100, 0);
+    }
+
+    private void assertSubmitRejected(Mat base) throws InterruptedException {
+        Future<byte[]> f = renderer.submit(base, overlay, OverlayRenderer.PNG);
+        try {
+            f.get();
+            fail("Expected IllegalArgumentException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private static void assertPixels(byte[] encoded, int gray, double eps) {
+        Mat img = Imgcodecs.imdecode(new MatOfByte(encoded), Imgcodecs.IMREAD_COLOR);
+        assertEquals(SIZE, img.rows());
+        assertEquals(SIZE, img.cols());
+
+        // base only, right half
+        assertPixel(img, 20, 60, gray, gray, gray, eps);
+        // half transparent red mask, left half
+        double red = 0.5 * 255 + 0.5 * gray;
+        assertPixel(img, 40, 10, gray / 2.0, gray / 2.0, red, eps + 1);
+        // inside the filled square
+        assertPixel(img, 48, 48, 0, 255, 0, eps);
+    }
+
+    private static void assertPixel(Mat img, int row, int col, double b, double g, double r, double eps) {
+        double[] px = img.get(row, col);
+        String where = "pixel (" + row + ", " + col + ")";
+        assertEquals(where, b, px[0], eps);
+        assertEquals(where, g, px[1], eps);
+        assertEquals(where, r, px[2], eps);
+    }
+}
@@ -0,0 +1,170 @@
+package org.opencv.imgproc;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * Moments of many shapes, one double[] column per Moments field.
+ * <p>
+ * Filled in a single native call by Imgproc.moments(PackedContours, MomentsTable)
+ * (one row per contour) or Imgproc.moments(Mat labels, int nLabels, MomentsTable)
+ * (one row per label). Row i of every column holds what Imgproc.moments would
+ * return for contour or label i, without creating a Moments object per shape:
+ * <pre>
+ * MomentsTable table = new MomentsTable();
+ * Imgproc.moments(contours, table);
+ * double[] ecc = table.eccentricity(null);
+ * for (int i = 0; i &lt; table.size(); i++)
+ *     if (table.m00[i] &gt; minArea &amp;&amp; ecc[i] &lt; 0.9) ...
+ * </pre>
+ * The columns are reused by the next call when they are large enough, so only
+ * the first size() values of each are valid.
+ */
+public class MomentsTable {
+
+    /** Number of columns, in the order of the Moments fields. */
+    static final int COLUMNS = 24;
+
+    public double[] m00, m10, m01, m20, m11, m02, m30, m21, m12, m03;
+    public double[] mu20, mu11, mu02, mu30, mu21, mu12, mu03;
+    public double[] nu20, nu11, nu02, nu30, nu21, nu12, nu03;
+
+    private int size = 0;
+
+    public MomentsTable() {
+        allocate(0);
+    }
+
+    /** Number of rows. */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns row i as a Moments object.
+     */
+    public Moments get(int i) {
+        checkIndex(i);
+        Moments m = new Moments();
+        m.m00 = m00[i]; m.m10 = m10[i]; m.m01 = m01[i];
+        m.m20 = m20[i]; m.m11 = m11[i]; m.m02 = m02[i];
+        m.m30 = m30[i]; m.m21 = m21[i]; m.m12 = m12[i]; m.m03 = m03[i];
+        m.mu20 = mu20[i]; m.mu11 = mu11[i]; m.mu02 = mu02[i];
+        m.mu30 = mu30[i]; m.mu21 = mu21[i]; m.mu12 = mu12[i]; m.mu03 = mu03[i];
+        m.nu20 = nu20[i]; m.nu11 = nu11[i]; m.nu02 = nu02[i];
+        m.nu30 = nu30[i]; m.nu21 = nu21[i]; m.nu12 = nu12[i]; m.nu03 = nu03[i];
+        return m;
+    }
+
+    /**
+     * Centroid x of every row, m10 / m00 (0 where m00 is 0).
+     *
+     * @param dst array to fill, or null; a new one is returned if it is too short
+     */
+    public double[] centroidX(double[] dst) {
+        dst = column(dst);
+        for (int i = 0; i < size; i++)
+            dst[i] = m00[i] != 0 ? m10[i] / m00[i] : 0;
+        return dst;
+    }
+
+    /**
+     * Centroid y of every row, m01 / m00 (0 where m00 is 0).
+     *
+     * @param dst array to fill, or null; a new one is returned if it is too short
+     */
+    public double[] centroidY(double[] dst) {
+        dst = column(dst);
+        for (int i = 0; i < size; i++)
+            dst[i] = m00[i] != 0 ? m01[i] / m00[i] : 0;
+        return dst;
+    }
+
+    /**
+     * Eccentricity of the ellipse with the same second central moments as each
+     * shape, sqrt(1 - l2 / l1) for the eigenvalues l1 &gt;= l2 of the covariance
+     * matrix: 0 for a circle, approaching 1 for a line. Rows with no spread
+     * (a single point or an empty label) give 0.
+     *
+     * @param dst array to fill, or null; a new one is returned if it is too short
+     */
+    public double[] eccentricity(double[] dst) {
+        dst = column(dst);
+        for (int i = 0; i < size; i++) {
+            double a = mu20[i];
+            double b = mu11[i];
+            double c = mu02[i];
+            double d = Math.sqrt(4 * b * b + (a - c) * (a - c));
+            double l1 = a + c + d;
+            double l2 = a + c - d;
+            dst[i] = l1 > 0 ? Math.sqrt(Math.max(0, 1 - l2 / l1)) : 0;
+        }
+        return dst;
+    }
+
+    /**
+     * Angle in radians, in (-pi/2, pi/2], between the x axis and the major axis
+     * of the ellipse with the same second central moments as each shape. The
+     * y axis points down, as in image coordinates.
+     *
+     * @param dst array to fill, or null; a new one is returned if it is too short
+     */
+    public double[] orientation(double[] dst) {
+        dst = column(dst);
+        for (int i = 0; i < size; i++)
+            dst[i] = 0.5 * Math.atan2(2 * mu11[i], mu20[i] - mu02[i]);
+        return dst;
+    }
+
+    @Override
+    public String toString() {
+        return "MomentsTable [ size=" + size + " ]";
+    }
+
+    // called by Imgproc.moments with a COLUMNS x n CV_64F Mat, one row per column
+    void load(Mat mat) {
+        int n = mat.empty() ? 0 : mat.cols();
+        if (m00.length < n)
+            allocate(n);
+        if (n > 0) {
+            double[][] columns = columns();
+            Rect row = new Rect(0, 0, n, 1);
+            for (int k = 0; k < COLUMNS; k++) {
+                row.y = k;
+                mat.get(row, columns[k], 0, n);
+            }
+        }
+        size = n;
+    }
+
+    private void allocate(int n) {
+        m00 = new double[n]; m10 = new double[n]; m01 = new double[n];
+        m20 = new double[n]; m11 = new double[n]; m02 = new double[n];
+        m30 = new double[n]; m21 = new double[n]; m12 = new double[n]; m03 = new double[n];
+        mu20 = new double[n]; mu11 = new double[n]; mu02 = new double[n];
+        mu30 = new double[n]; mu21 = new double[n]; mu12 = new double[n]; mu03 = new double[n];
+        nu20 = new double[n]; nu11 = new double[n]; nu02 = new double[n];
+        nu30 = new double[n]; nu21 = new double[n]; nu12 = new double[n]; nu03 = new double[n];
+    }
+
+    private double[][] columns() {
+        return new double[][] {
+            m00, m10, m01, m20, m11, m02, m30, m21, m12, m03,
+            mu20, mu11, mu02, mu30, mu21, mu12, mu03,
+            nu20, nu11, nu02, nu30, nu21, nu12, nu03
+        };
+    }
+
+    private double[] column(double[] dst) {
+        return (dst != null && dst.length >= size) ? dst : new double[size];
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Row " + i + " of " + size);
+    }
+}
@@ -0,0 +1,235 @@
+package org.opencv.imgproc;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+
+/**
+ * Contours stored as flat int arrays, as filled by
+ * Imgproc.findContours(Mat, PackedContours, int, int).
+ * <p>
+ * All points are kept in one array of interleaved x, y coordinates; contour i
+ * holds the points offsets()[i] to offsets()[i + 1] - 1. The arrays are reused
+ * by the next findContours call when they are large enough, so a loop over
+ * many tiles does not create a MatOfPoint (or any other object) per contour:
+ * <pre>
+ * PackedContours contours = new PackedContours();
+ * for (Mat mask : masks) {
+ *     Imgproc.findContours(mask, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+ *     for (int i = 0; i &lt; contours.size(); i++)
+ *         if (contours.area(i) &gt; minArea) ...
+ * }
+ * </pre>
+ * area(), perimeter() and boundingRect() compute what Imgproc.contourArea(),
+ * Imgproc.arcLength() and Imgproc.boundingRect() return for the corresponding
+ * MatOfPoint (perimeter() in double rather than float precision), without a
+ * JNI call.
+ */
+public class PackedContours {
+
+    private int[] points = new int[0];
+    private int[] offsets = new int[] { 0 };
+    private int[] hierarchy = new int[0];
+    private int count = 0;
+
+    public PackedContours() {
+    }
+
+    /** Number of contours. */
+    public int size() {
+        return count;
+    }
+
+    /** Number of points of all contours. */
+    public int totalPoints() {
+        return offsets[count];
+    }
+
+    /**
+     * Interleaved x, y coordinates of all contours. Only the first
+     * 2 * totalPoints() values are valid.
+     */
+    public int[] points() {
+        return points;
+    }
+
+    /**
+     * Index of the first point of each contour, followed by totalPoints().
+     * Only the first size() + 1 values are valid.
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Hierarchy as returned by findContours: next, previous, first child and
+     * parent index of each contour, -1 where there is none. Only the first
+     * 4 * size() values are valid.
+     */
+    public int[] hierarchy() {
+        return hierarchy;
+    }
+
+    /** Index of the first point of contour i. */
+    public int start(int i) {
+        checkIndex(i);
+        return offsets[i];
+    }
+
+    /** Number of points of contour i. */
+    public int length(int i) {
+        checkIndex(i);
+        return offsets[i + 1] - offsets[i];
+    }
+
+    public int x(int point) {
+        return points[2 * point];
+    }
+
+    public int y(int point) {
+        return points[2 * point + 1];
+    }
+
+    public void clear() {
+        count = 0;
+        offsets[0] = 0;
+    }
+
+    /**
+     * Area of contour i, as Imgproc.contourArea(contour, oriented).
+     *
+     * @param oriented when true the sign of the area follows the orientation
+     * of the contour, otherwise the absolute value is returned
+     */
+    public double area(int i, boolean oriented) {
+        int from = start(i);
+        int to = offsets[i + 1];
+        if (to - from < 3)
+            return 0;
+        double a = 0;
+        int px = points[2 * (to - 1)];
+        int py = points[2 * (to - 1) + 1];
+        for (int p = from; p < to; p++) {
+            int x = points[2 * p];
+            int y = points[2 * p + 1];
+            a += (double) px * y - (double) x * py;
+            px = x;
+            py = y;
+        }
+        a *= 0.5;
+        return oriented ? a : Math.abs(a);
+    }
+
+    public double area(int i) {
+        return area(i, false);
+    }
+
+    /**
+     * Length of contour i, as Imgproc.arcLength(contour, closed).
+     */
+    public double perimeter(int i, boolean closed) {
+        int from = start(i);
+        int to = offsets[i + 1];
+        if (to - from < 2)
+            return 0;
+        double len = 0;
+        int p = closed ? to - 1 : from;
+        int px = points[2 * p];
+        int py = points[2 * p + 1];
+        for (p = closed ? from : from + 1; p < to; p++) {
+            int x = points[2 * p];
+            int y = points[2 * p + 1];
+            double dx = x - px;
+            double dy = y - py;
+            len += Math.sqrt(dx * dx + dy * dy);
+            px = x;
+            py = y;
+        }
+        return len;
+    }
+
+    public double perimeter(int i) {
+        return perimeter(i, true);
+    }
+
+    /**
+     * Up-right bounding rectangle of contour i, as Imgproc.boundingRect().
+     *
+     * @param dst rectangle to fill, returned for chaining
+     */
+    public Rect boundingRect(int i, Rect dst) {
+        int from = start(i);
+        int to = offsets[i + 1];
+        if (to == from) {
+            dst.x = dst.y = dst.width = dst.height = 0;
+            return dst;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int p = from; p < to; p++) {
+            int x = points[2 * p];
+            int y = points[2 * p + 1];
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+        dst.x = minX;
+        dst.y = minY;
+        dst.width = maxX - minX + 1;
+        dst.height = maxY - minY + 1;
+        return dst;
+    }
+
+    public Rect boundingRect(int i) {
+        return boundingRect(i, new Rect());
+    }
+
+    /**
+     * Copies contour i into a new MatOfPoint, for the functions that take one.
+     */
+    public MatOfPoint toMatOfPoint(int i) {
+        int from = start(i);
+        int n = offsets[i + 1] - from;
+        MatOfPoint res = new MatOfPoint();
+        if (n > 0) {
+            res.alloc(n);
+            int[] buff = new int[2 * n];
+            System.arraycopy(points, 2 * from, buff, 0, 2 * n);
+            res.put(0, 0, buff);
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedContours [ size=" + count + ", totalPoints=" + totalPoints() + " ]";
+    }
+
+    // called by Imgproc.findContours with the Mats filled by the native code
+    void load(Mat pointsMat, Mat offsetsMat, Mat hierarchyMat) {
+        int n = offsetsMat.rows() - 1;
+        if (n < 0)
+            n = 0;
+        int total = pointsMat.rows();
+        if (offsets.length < n + 1)
+            offsets = new int[n + 1];
+        if (points.length < 2 * total)
+            points = new int[2 * total];
+        if (hierarchy.length < 4 * n)
+            hierarchy = new int[4 * n];
+        offsets[0] = 0;
+        if (n > 0) {
+            offsetsMat.get(0, 0, offsets);
+            hierarchyMat.get(0, 0, hierarchy);
+        }
+        if (total > 0)
+            pointsMat.get(0, 0, points);
+        count = n;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("Contour " + i + " of " + count);
+    }
+}
@@ -0,0 +1,133 @@
+package org.opencv.test.imgproc;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.imgproc.Moments;
+import org.opencv.imgproc.MomentsTable;
+import org.opencv.imgproc.PackedContours;
+import org.opencv.test.OpenCVTestCase;
+
+public class MomentsTableTest extends OpenCVTestCase {
+
+    Mat shapes;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        shapes = new Mat(60, 60, CvType.CV_8UC1, new Scalar(0));
+        Imgproc.rectangle(shapes, new Point(2, 3), new Point(21, 8), new Scalar(255), Imgproc.FILLED);
+        Imgproc.circle(shapes, new Point(40, 15), 8, new Scalar(255), Imgproc.FILLED);
+        Imgproc.ellipse(shapes, new Point(20, 40), new Size(15, 5), 30, 0, 360, new Scalar(255), Imgproc.FILLED);
+    }
+
+    private static void assertMomentsEquals(Moments expected, Moments actual, double eps) {
+        assertEquals(expected.m00, actual.m00, eps);
+        assertEquals(expected.m10, actual.m10, eps);
+        assertEquals(expected.m01, actual.m01, eps);
+        assertEquals(expected.m20, actual.m20, eps);
+        assertEquals(expected.m11, actual.m11, eps);
+        assertEquals(expected.m02, actual.m02, eps);
+        assertEquals(expected.m30, actual.m30, eps);
+        assertEquals(expected.m21, actual.m21, eps);
+        assertEquals(expected.m12, actual.m12, eps);
+        assertEquals(expected.m03, actual.m03, eps);
+        assertEquals(expected.mu20, actual.mu20, eps);
+        assertEquals(expected.mu11, actual.mu11, eps);
+        assertEquals(expected.mu02, actual.mu02, eps);
+        assertEquals(expected.mu30, actual.mu30, eps);
+        assertEquals(expected.nu20, actual.nu20, eps);
+        assertEquals(expected.nu03, actual.nu03, eps);
+    }
+
+    public void testMomentsPackedContours() {
+        PackedContours contours = new PackedContours();
+        Imgproc.findContours(shapes, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        MomentsTable table = new MomentsTable();
+
+        Imgproc.moments(contours, table);
+
+        assertEquals(contours.size(), table.size());
+        for (int i = 0; i < contours.size(); i++) {
+            Moments expected = Imgproc.moments(contours.toMatOfPoint(i));
+            assertMomentsEquals(expected, table.get(i), EPS);
+            assertEquals(contours.area(i), table.m00[i], EPS);
+        }
+    }
+
+    public void testMomentsLabels() {
+        Mat labels = new Mat();
+        int n = Imgproc.connectedComponents(shapes, labels);
+        MomentsTable table = new MomentsTable();
+
+        Imgproc.moments(labels, n, table);
+
+        assertEquals(n, table.size());
+        Mat mask = new Mat();
+        for (int i = 0; i < n; i++) {
+            Core.compare(labels, new Scalar(i), mask, Core.CMP_EQ);
+            Moments expected = Imgproc.moments(mask, true);
+            assertMomentsEquals(expected, table.get(i), EPS);
+        }
+    }
+
+    public void testMomentsLabelsIgnoresOutOfRange() {
+        Mat labels = new Mat(4, 4, CvType.CV_32SC1, new Scalar(1));
+        labels.put(0, 0, 7, -1);
+        MomentsTable table = new MomentsTable();
+
+        Imgproc.moments(labels, 2, table);
+
+        assertEquals(2, table.size());
+        assertEquals(0, table.m00[0], EPS);
+        assertEquals(14, table.m00[1], EPS);
+    }
+
+    public void testMomentsEmpty() {
+        MomentsTable table = new MomentsTable();
+        Imgproc.moments(new PackedContours(), table);
+
+        assertEquals(0, table.size());
+        assertEquals(0, table.eccentricity(null).length);
+    }
+
+    public void testEccentricityAndOrientation() {
+        // a horizontal 20x6 bar and a vertical 6x20 bar
+        Mat labels = new Mat(30, 30, CvType.CV_32SC1, new Scalar(0));
+        labels.submat(1, 7, 2, 22).setTo(new Scalar(1));
+        labels.submat(8, 28, 2, 8).setTo(new Scalar(2));
+        MomentsTable table = new MomentsTable();
+        Imgproc.moments(labels, 3, table);
+
+        double[] ecc = table.eccentricity(new double[3]);
+        double[] angle = table.orientation(null);
+
+        // covariance eigenvalues (w*w - 1) / 12 and (h*h - 1) / 12
+        double expected = Math.sqrt(1 - 35.0 / 399.0);
+        assertEquals(expected, ecc[1], EPS);
+        assertEquals(expected, ecc[2], EPS);
+        assertEquals(0, angle[1], EPS);
+        assertEquals(Math.PI / 2, Math.abs(angle[2]), EPS);
+        assertEquals(11.5, table.centroidX(null)[1], EPS);
+        assertEquals(17.5, table.centroidY(null)[2], EPS);
+    }
+
+    public void testEccentricityOfTiltedEllipse() {
+        PackedContours contours = new PackedContours();
+        Mat img = new Mat(100, 100, CvType.CV_8UC1, new Scalar(0));
+        Imgproc.ellipse(img, new Point(50, 50), new Size(40, 10), 30, 0, 360, new Scalar(255), Imgproc.FILLED);
+        Imgproc.findContours(img, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_NONE);
+        MomentsTable table = new MomentsTable();
+
+        Imgproc.moments(contours, table);
+
+        assertEquals(1, table.size());
+        assertEquals(Math.sqrt(1 - 1 / 16.0), table.eccentricity(null)[0], 0.02);
+        assertEquals(Math.toRadians(30), table.orientation(null)[0], 0.02);
+    }
+}
@@ -0,0 +1,129 @@
+package org.opencv.test.imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.imgproc.PackedContours;
+import org.opencv.test.OpenCVTestCase;
+
+public class PackedContoursTest extends OpenCVTestCase {
+
+    private Mat blobs() {
+        Mat img = new Mat(40, 40, CvType.CV_8UC1, new Scalar(0));
+        Imgproc.rectangle(img, new Point(1, 2), new Point(7, 8), new Scalar(255), Imgproc.FILLED);
+        Imgproc.rectangle(img, new Point(12, 3), new Point(15, 14), new Scalar(255), Imgproc.FILLED);
+        List<MatOfPoint> triangle = new ArrayList<MatOfPoint>();
+        triangle.add(new MatOfPoint(new Point(20, 20), new Point(35, 22), new Point(24, 33)));
+        Imgproc.fillPoly(img, triangle, new Scalar(255));
+        return img;
+    }
+
+    public void testFindContours() {
+        Mat img = blobs();
+        List<MatOfPoint> expected = new ArrayList<MatOfPoint>();
+        Imgproc.findContours(img, expected, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_NONE);
+        PackedContours contours = new PackedContours();
+
+        Imgproc.findContours(img, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_NONE);
+
+        assertEquals(expected.size(), contours.size());
+        int total = 0;
+        for (int i = 0; i < contours.size(); i++) {
+            Point[] pts = expected.get(i).toArray();
+            assertEquals(pts.length, contours.length(i));
+            for (int k = 0; k < pts.length; k++) {
+                int p = contours.start(i) + k;
+                assertEquals((int) pts[k].x, contours.x(p));
+                assertEquals((int) pts[k].y, contours.y(p));
+            }
+            total += pts.length;
+        }
+        assertEquals(total, contours.totalPoints());
+        assertEquals(-1, contours.hierarchy()[3]);
+    }
+
+    public void testFindContoursOffset() {
+        Mat img = blobs();
+        PackedContours contours = new PackedContours();
+        PackedContours shifted = new PackedContours();
+
+        Imgproc.findContours(img, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        Imgproc.findContours(img, shifted, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE, new Point(3, 5));
+
+        assertEquals(contours.totalPoints(), shifted.totalPoints());
+        for (int p = 0; p < contours.totalPoints(); p++) {
+            assertEquals(contours.x(p) + 3, shifted.x(p));
+            assertEquals(contours.y(p) + 5, shifted.y(p));
+        }
+    }
+
+    public void testFindContoursReusesArrays() {
+        PackedContours contours = new PackedContours();
+        Imgproc.findContours(blobs(), contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_NONE);
+        int[] points = contours.points();
+
+        Imgproc.rectangle(gray0, new Point(1, 1), new Point(4, 4), new Scalar(255), Imgproc.FILLED);
+        Imgproc.findContours(gray0, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        assertSame(points, contours.points());
+        assertEquals(1, contours.size());
+        assertEquals(4, contours.totalPoints());
+    }
+
+    public void testFindContoursEmpty() {
+        PackedContours contours = new PackedContours();
+
+        Imgproc.findContours(gray0, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        assertEquals(0, contours.size());
+        assertEquals(0, contours.totalPoints());
+    }
+
+    public void testGeometry() {
+        Mat img = blobs();
+        List<MatOfPoint> expected = new ArrayList<MatOfPoint>();
+        Imgproc.findContours(img, expected, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        PackedContours contours = new PackedContours();
+        Imgproc.findContours(img, contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        Rect r = new Rect();
+
+        for (int i = 0; i < contours.size(); i++) {
+            MatOfPoint c = expected.get(i);
+            assertEquals(Imgproc.contourArea(c), contours.area(i), EPS);
+            assertEquals(Imgproc.contourArea(c, true), contours.area(i, true), EPS);
+            assertEquals(Imgproc.arcLength(new MatOfPoint2f(c.toArray()), true), contours.perimeter(i), 1e-3);
+            assertRectEquals(Imgproc.boundingRect(c), contours.boundingRect(i, r));
+        }
+    }
+
+    public void testToMatOfPoint() {
+        PackedContours contours = new PackedContours();
+        Imgproc.findContours(blobs(), contours, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        MatOfPoint c = contours.toMatOfPoint(0);
+
+        assertEquals(contours.length(0), (int) c.total());
+        Point p = c.toArray()[0];
+        assertEquals(contours.x(contours.start(0)), (int) p.x);
+        assertEquals(contours.y(contours.start(0)), (int) p.y);
+    }
+
+    public void testIndexOutOfBounds() {
+        PackedContours contours = new PackedContours();
+
+        try {
+            contours.area(0);
+            fail("Expected IndexOutOfBoundsException was not thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
@@ -338,6 +338,8 @@ class ClassInfo(GeneralInfo):
                 self.j_code.write(T_JAVA_START_ORPHAN)
             else:
                 self.j_code.write(T_JAVA_START_MODULE)
+        if self.name != Module or self.base:
+            self.imports.add("org.opencv.core.NativeCleaner")
         # misc handling
         if self.name == Module:
           for i in module_imports or []:
@@ -760,6 +762,8 @@ class JavaWrapperGenerator(object):
                             else:
                                 j_prologue.append( "Mat %s_mat = %s;" % (a.name, a.name) )
                         if "O" in a.out:
+                            # the native side has refilled the Mat, drop its cached header
+                            j_epilogue.append("%s_mat.invalidateHeader();" % a.name)
                             if not type_dict[a.ctype]["j_type"].startswith("MatOf"):
                                 j_epilogue.append("Converters.Mat_to_%(t)s(%(n)s_mat, %(n)s);" % {"t" : a.ctype, "n" : a.name})
                                 j_epilogue.append( "%s_mat.release();" % a.name )
@@ -778,6 +782,8 @@ class JavaWrapperGenerator(object):
                         for f in fields:
                             jn_args.append ( ArgInfo([ f[0], a.name + f[1], "", [], "" ]) )
                             jni_args.append( ArgInfo([ f[0], a.name + normalize_field_name(f[1]), "", [], "" ]) )
+                    if a.out and type_dict[a.ctype]["j_type"] == "Mat": # output Mat may be reallocated
+                        j_epilogue.append("%s.invalidateHeader();" % a.name)
                     if "O" in a.out and not self.isWrapped(a.ctype): # out arg, pass as double[]
                         jn_args.append ( ArgInfo([ "double[]", "%s_out" % a.name, "", [], "" ]) )
                         jni_args.append ( ArgInfo([ "double[]", "%s_out" % a.name, "", [], "" ]) )
@@ -913,6 +919,7 @@ class JavaWrapperGenerator(object):
                     tail = ")"
                 else:
                     ret_val = "nativeObj = "
+                    j_epilogue.insert(0, "cleanable = NativeCleaner.register(this, nativeObj, nativeDeleter());")
                 ret = ""
             elif self.isWrapped(ret_type): # wrapped class
                 constructor = self.getClass(ret_type).jname + "("
@@ -1174,26 +1181,41 @@ JNIEXPORT $rtype JNICALL Java_org_opencv_${module}_${clazz}_$fname
                 ci.cpp_code.write("\n".join(fn["cpp_code"]))
 
         if ci.name != self.Module or ci.base:
-            # finalize()
+            # native object cleanup, see NativeCleaner: close() and the
+            # cleaner thread call the deleter of the most derived class
             ci.j_code.write(
 """
-    @Override
-    protected void finalize() throws Throwable {
-        delete(nativeObj);
+    private static final NativeCleaner.Deleter DELETER = new NativeCleaner.Deleter("%(name)s") {
+        @Override
+        public void delete(long nativeObj) {
+            %(jname)s.delete(nativeObj);
+        }
+    };
+%(override)s
+    protected NativeCleaner.Deleter nativeDeleter() {
+        return DELETER;
     }
-""" )
+
+    /**
+     * Number of %(jname)s objects, not counting subclasses, whose native object
+     * has not been freed yet.
+     */
+    public static long liveInstances() {
+        return DELETER.liveInstances();
+    }
+""" % {"name" : "org.opencv.%s.%s" % (self.module, ci.jname), "jname" : ci.jname, "override" : "\n    @Override" if ci.base else ""} )
 
             ci.jn_code.write(
 """
-    // native support for java finalize()
+    // native support for java close() and cleanup
     private static native void delete(long nativeObj);
 """ )
 
-            # native support for java finalize()
+            # native support for java close() and cleanup
             ci.cpp_code.write(
 """
 //
-//  native support for java finalize()
+//  native support for java close() and cleanup
 //  static void %(cls)s::delete( __int64 self )
 //
 JNIEXPORT void JNICALL Java_org_opencv_%(module)s_%(j_cls)s_delete(JNIEnv*, jclass, jlong);
@@ -1493,10 +1515,20 @@ if __name__ == "__main__":
         if os.path.exists(java_files_dir):
             copy_java_files(java_files_dir, java_base_path, 'org/opencv/' + module)
 
+        # sources for META-INF/versions/22 of a Multi-Release JAR
+        java22_files_dir = os.path.join(misc_location, 'src/java22')
+        if os.path.exists(java22_files_dir):
+            copy_java_files(java22_files_dir, os.path.join(dstdir, 'java22'), 'org/opencv/' + module)
+
         java_test_files_dir = os.path.join(misc_location, 'test')
         if os.path.exists(java_test_files_dir):
             copy_java_files(java_test_files_dir, java_test_base_path, 'org/opencv/test/' + module)
 
+        # tests of the META-INF/versions/22 classes
+        java22_test_files_dir = os.path.join(misc_location, 'test22')
+        if os.path.exists(java22_test_files_dir):
+            copy_java_files(java22_test_files_dir, os.path.join(dstdir, 'test22'), 'org/opencv/test/' + module)
+
         if len(srcfiles) > 0:
             generator.gen(srcfiles, module, dstdir, jni_path, java_path, common_headers)
         else:
@@ -1708,6 +1708,29 @@ JNIEXPORT jlong JNICALL Java_org_opencv_core_Mat_n_1setTo__JDDDD
 }
 
 
+//
+//  void Mat::operator =(Scalar s), without a new header for the result
+//
+
+JNIEXPORT void JNICALL Java_org_opencv_core_Mat_n_1fill
+  (JNIEnv* env, jclass, jlong self, jdouble s_val0, jdouble s_val1, jdouble s_val2, jdouble s_val3);
+
+JNIEXPORT void JNICALL Java_org_opencv_core_Mat_n_1fill
+  (JNIEnv* env, jclass, jlong self, jdouble s_val0, jdouble s_val1, jdouble s_val2, jdouble s_val3)
+{
+    static const char method_name[] = "Mat::n_1fill()";
+    try {
+        LOGD("%s", method_name);
+        Mat* me = (Mat*) self; //TODO: check for NULL
+        *me = Scalar(s_val0, s_val1, s_val2, s_val3);
+    } catch(const std::exception &e) {
+        throwJavaException(env, &e, method_name);
+    } catch (...) {
+        throwJavaException(env, 0, method_name);
+    }
+}
+
+
 
 //
 //  Mat Mat::setTo(Scalar value, Mat mask = Mat())
@@ -2130,6 +2153,78 @@ JNIEXPORT void JNICALL Java_org_opencv_core_Mat_n_1delete
     delete (Mat*) self;
 }
 
+
+
+//
+//  native support for the cached header of java Mat
+//  static void Mat::n_header( __int64 self, int[] header )
+//
+
+JNIEXPORT void JNICALL Java_org_opencv_core_Mat_n_1header
+  (JNIEnv* env, jclass, jlong self, jintArray header);
+
+JNIEXPORT void JNICALL Java_org_opencv_core_Mat_n_1header
+  (JNIEnv* env, jclass, jlong self, jintArray header)
+{
+    LOGD("Mat::n_1header()");
+    Mat* me = (Mat*) self; //TODO: check for NULL
+    // layout and flag bits must match Mat.Header and FLAG_* in Mat.java
+    jint h[5] = { me->dims, me->rows, me->cols, me->type(),
+                  (me->isContinuous() ? 1 : 0) | (me->isSubmatrix() ? 2 : 0) | (me->data ? 4 : 0) };
+    env->SetIntArrayRegion(header, 0, 5, h);
+}
+
+
+
+//
+//  native support for java asByteBuffer()
+//  static long Mat::n_shareData( __int64 self )
+//  static ByteBuffer Mat::n_asByteBuffer( __int64 self )
+//
+
+JNIEXPORT jlong JNICALL Java_org_opencv_core_Mat_n_1shareData
+  (JNIEnv* env, jclass, jlong self);
+
+JNIEXPORT jlong JNICALL Java_org_opencv_core_Mat_n_1shareData
+  (JNIEnv* env, jclass, jlong self)
+{
+    static const char method_name[] = "Mat::n_1shareData()";
+    try {
+        LOGD("%s", method_name);
+        Mat* me = (Mat*) self; //TODO: check for NULL
+        // the copy holds a reference to the data, keeping it alive while the
+        // buffer is in use even if the original Mat is reallocated
+        return (jlong) new Mat(*me);
+    } catch(const std::exception &e) {
+        throwJavaException(env, &e, method_name);
+    } catch (...) {
+        throwJavaException(env, 0, method_name);
+    }
+
+    return 0;
+}
+
+JNIEXPORT jobject JNICALL Java_org_opencv_core_Mat_n_1asByteBuffer
+  (JNIEnv* env, jclass, jlong self);
+
+JNIEXPORT jobject JNICALL Java_org_opencv_core_Mat_n_1asByteBuffer
+  (JNIEnv* env, jclass, jlong self)
+{
+    static const char method_name[] = "Mat::n_1asByteBuffer()";
+    try {
+        LOGD("%s", method_name);
+        Mat* me = (Mat*) self; //TODO: check for NULL
+        if(!me->isContinuous()) return 0;
+        return env->NewDirectByteBuffer(me->data, (jlong)(me->total() * me->elemSize()));
+    } catch(const std::exception &e) {
+        throwJavaException(env, &e, method_name);
+    } catch (...) {
+        throwJavaException(env, 0, method_name);
+    }
+
+    return 0;
+}
+
 } // extern "C"
 
 namespace {
@@ -2635,6 +2730,141 @@ JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetDIdx
     return java_mat_get_idx(env, self, idxArray, count, vals);
 }
 
+} // extern "C"
+
+// copies the rectangle (x, y, width, height) between a 2D Mat and a java array
+// whose rows start every 'stride' elements, one memcpy per row
+template<class ARRAY> static jint java_mat_region(JNIEnv* env, jlong self, jint x, jint y, jint width, jint height,
+                                                  jint offset, jint stride, ARRAY vals, bool isPut)
+{
+    typedef typename JavaOpenCVTrait<ARRAY>::value_type T;
+    const char *method_name = isPut ? JavaOpenCVTrait<ARRAY>::put : JavaOpenCVTrait<ARRAY>::get;
+    try {
+        LOGD("%s", method_name);
+        cv::Mat* me = (cv::Mat*) self;
+        if(! self) return 0; // no native object behind
+        if(me->depth() != JavaOpenCVTrait<ARRAY>::cvtype_1 && me->depth() != JavaOpenCVTrait<ARRAY>::cvtype_2) return 0; // incompatible type
+        if(me->dims != 2 || x < 0 || y < 0 || width < 0 || height < 0 ||
+           x + width > me->cols || y + height > me->rows) return 0; // region out of range
+        size_t rowBytes = (size_t)width * me->elemSize();
+        if(height == 0 || rowBytes == 0) return 0;
+        if(offset < 0 || stride < 0 || (size_t)stride * sizeof(T) < rowBytes ||
+           (size_t)offset + (size_t)(height - 1) * stride + rowBytes / sizeof(T) > (size_t)env->GetArrayLength(vals))
+            return 0; // array too short
+
+        char* values = (char*)env->GetPrimitiveArrayCritical(vals, 0);
+        T* buff = (T*)values + offset;
+        for(int r = 0; r < height; r++, buff += stride) {
+            uchar* data = me->ptr(y + r) + x * me->elemSize();
+            if(isPut) {
+                memcpy(data, buff, rowBytes);
+            } else {
+                memcpy(buff, data, rowBytes);
+            }
+        }
+        env->ReleasePrimitiveArrayCritical(vals, values, isPut ? JNI_ABORT : 0);
+        return (jint)(rowBytes * height);
+    } catch(const std::exception &e) {
+        throwJavaException(env, &e, method_name);
+    } catch (...) {
+        throwJavaException(env, 0, method_name);
+    }
+
+    return 0;
+}
+
+extern "C" {
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionB
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jbyteArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionB
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jbyteArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionB
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jbyteArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionB
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jbyteArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionS
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jshortArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionS
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jshortArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionS
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jshortArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionS
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jshortArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionI
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jintArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionI
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jintArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionI
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jintArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionI
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jintArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionF
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jfloatArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionF
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jfloatArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionF
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jfloatArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionF
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jfloatArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionD
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jdoubleArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nGetRegionD
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jdoubleArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionD
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jdoubleArray vals);
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_Mat_nPutRegionD
+    (JNIEnv* env, jclass, jlong self, jint x, jint y, jint width, jint height, jint offset, jint stride, jdoubleArray vals)
+{
+    return java_mat_region(env, self, x, y, width, height, offset, stride, vals, true);
+}
+
 JNIEXPORT jdoubleArray JNICALL Java_org_opencv_core_Mat_nGet
     (JNIEnv* env, jclass, jlong self, jint row, jint col);
 
@@ -30,6 +30,10 @@ JNI_OnLoad(JavaVM* vm, void* )
     /* get class with (*env)->FindClass */
     /* register methods with (*env)->RegisterNatives */
 
+    listconverters_init(env);
+    if (env->ExceptionCheck())
+        return -1;
+
     return JNI_VERSION_1_6;
 }
 
@@ -8,103 +8,181 @@
 #include "common.h"
 
 
-jobject vector_String_to_List(JNIEnv* env, std::vector<cv::String>& vs) {
+namespace {
 
-    static jclass juArrayList   = ARRAYLIST(env);
-    static jmethodID m_create   = CONSTRUCTOR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
+// java.util classes and methods used by the converters below. They are
+// looked up once, from JNI_OnLoad, instead of on every call.
+struct ListClasses
+{
+    jclass arrayList;
+    jclass arrays;
+    jclass string;
+    jmethodID arrayList_init;   // ArrayList(Collection)
+    jmethodID arrays_asList;    // static List Arrays.asList(Object[])
+    jmethodID list_toArray;     // Object[] List.toArray()
+    jmethodID list_clear;       // void List.clear()
+    jmethodID list_addAll;      // boolean List.addAll(Collection)
+
+    explicit ListClasses(JNIEnv* env)
+    {
+        arrayList = globalClass(env, "java/util/ArrayList");
+        arrays = globalClass(env, "java/util/Arrays");
+        string = globalClass(env, "java/lang/String");
+        jclass list = env->FindClass("java/util/List");
+        arrayList_init = env->GetMethodID(arrayList, "<init>", "(Ljava/util/Collection;)V");
+        arrays_asList = env->GetStaticMethodID(arrays, "asList", "([Ljava/lang/Object;)Ljava/util/List;");
+        list_toArray = env->GetMethodID(list, "toArray", "()[Ljava/lang/Object;");
+        list_clear = env->GetMethodID(list, "clear", "()V");
+        list_addAll = env->GetMethodID(list, "addAll", "(Ljava/util/Collection;)Z");
+        env->DeleteLocalRef(list);
+    }
+
+    static jclass globalClass(JNIEnv* env, const char* name)
+    {
+        jclass local = env->FindClass(name);
+        jclass global = static_cast<jclass>(env->NewGlobalRef(local));
+        env->DeleteLocalRef(local);
+        return global;
+    }
+};
+
+const ListClasses& listClasses(JNIEnv* env)
+{
+    static const ListClasses classes(env);
+    return classes;
+}
 
-    jobject result = env->NewObject(juArrayList, m_create, vs.size());
-    for (std::vector<cv::String>::iterator it = vs.begin(); it != vs.end(); ++it) {
-        jstring element = env->NewStringUTF((*it).c_str());
-        env->CallBooleanMethod(result, m_add, element);
+// String[] of the elements, or NULL with a pending OutOfMemoryError
+template <typename S>
+jobjectArray toStringArray(JNIEnv* env, const ListClasses& c, const std::vector<S>& vs)
+{
+    jobjectArray array = env->NewObjectArray((jsize)vs.size(), c.string, NULL);
+    if (!array)
+        return NULL;
+    for (size_t i = 0; i < vs.size(); i++)
+    {
+        jstring element = env->NewStringUTF(vs[i].c_str());
+        if (!element)
+        {
+            env->DeleteLocalRef(array);
+            return NULL;
+        }
+        env->SetObjectArrayElement(array, (jsize)i, element);
         env->DeleteLocalRef(element);
     }
+    return array;
+}
+
+template <typename S>
+jobject toList(JNIEnv* env, const std::vector<S>& vs)
+{
+    jobjectArray array = toStringArray(env, listClasses(env), vs);
+    if (!array)
+        return NULL;
+    jobject result = ObjectArray_to_List(env, array);
+    env->DeleteLocalRef(array);
     return result;
 }
 
-std::vector<cv::String> List_to_vector_String(JNIEnv* env, jobject list)
+template <typename S>
+void copyToList(JNIEnv* env, const std::vector<S>& vs, jobject list)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_size       = LIST_SIZE(env,juArrayList);
-    jmethodID m_get        = LIST_GET(env, juArrayList);
+    const ListClasses& c = listClasses(env);
+    env->CallVoidMethod(list, c.list_clear);
+    if (vs.empty() || env->ExceptionCheck())
+        return;
+    jobjectArray array = toStringArray(env, c, vs);
+    if (!array)
+        return;
+    jobject view = env->CallStaticObjectMethod(c.arrays, c.arrays_asList, array);
+    if (view)
+    {
+        env->CallBooleanMethod(list, c.list_addAll, view);
+        env->DeleteLocalRef(view);
+    }
+    env->DeleteLocalRef(array);
+}
 
-    jint len = env->CallIntMethod(list, m_size);
-    std::vector<cv::String> result;
+template <typename S>
+std::vector<S> fromList(JNIEnv* env, jobject list)
+{
+    std::vector<S> result;
+    jobjectArray array = List_to_ObjectArray(env, list);
+    if (!array)
+        return result;
+    jsize len = env->GetArrayLength(array);
     result.reserve(len);
-    for (jint i=0; i<len; i++)
+    for (jsize i = 0; i < len; i++)
     {
-        jstring element = static_cast<jstring>(env->CallObjectMethod(list, m_get, i));
+        jstring element = static_cast<jstring>(env->GetObjectArrayElement(array, i));
+        if (!element)
+        {
+            result.push_back(S());
+            continue;
+        }
         const char* pchars = env->GetStringUTFChars(element, NULL);
         result.push_back(pchars);
         env->ReleaseStringUTFChars(element, pchars);
         env->DeleteLocalRef(element);
     }
+    env->DeleteLocalRef(array);
     return result;
 }
 
-void Copy_vector_String_to_List(JNIEnv* env, std::vector<cv::String>& vs, jobject list)
+} // namespace
+
+void listconverters_init(JNIEnv* env)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_clear     = LIST_CLEAR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
+    listClasses(env);
+}
 
-    env->CallVoidMethod(list, m_clear);
-    for (std::vector<cv::String>::iterator it = vs.begin(); it != vs.end(); ++it)
+jobject ObjectArray_to_List(JNIEnv* env, jobjectArray array)
+{
+    // new ArrayList(Arrays.asList(array)): the list copies the array in one go
+    const ListClasses& c = listClasses(env);
+    jobject result = NULL;
+    jobject view = env->CallStaticObjectMethod(c.arrays, c.arrays_asList, array);
+    if (view)
     {
-        jstring element = env->NewStringUTF((*it).c_str());
-        env->CallBooleanMethod(list, m_add, element);
-        env->DeleteLocalRef(element);
+        result = env->NewObject(c.arrayList, c.arrayList_init, view);
+        env->DeleteLocalRef(view);
     }
+    return result;
+}
+
+jobjectArray List_to_ObjectArray(JNIEnv* env, jobject list)
+{
+    // one toArray() call rather than a get() per element
+    return static_cast<jobjectArray>(env->CallObjectMethod(list, listClasses(env).list_toArray));
+}
+
+jobject vector_String_to_List(JNIEnv* env, std::vector<cv::String>& vs)
+{
+    return toList(env, vs);
 }
 
+std::vector<cv::String> List_to_vector_String(JNIEnv* env, jobject list)
+{
+    return fromList<cv::String>(env, list);
+}
 
-jobject vector_string_to_List(JNIEnv* env, std::vector<std::string>& vs) {
+void Copy_vector_String_to_List(JNIEnv* env, std::vector<cv::String>& vs, jobject list)
+{
+    copyToList(env, vs, list);
+}
 
-    static jclass juArrayList   = ARRAYLIST(env);
-    static jmethodID m_create   = CONSTRUCTOR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
 
-    jobject result = env->NewObject(juArrayList, m_create, vs.size());
-    for (std::vector<std::string>::iterator it = vs.begin(); it != vs.end(); ++it) {
-        jstring element = env->NewStringUTF((*it).c_str());
-        env->CallBooleanMethod(result, m_add, element);
-        env->DeleteLocalRef(element);
-    }
-    return result;
+jobject vector_string_to_List(JNIEnv* env, std::vector<std::string>& vs)
+{
+    return toList(env, vs);
 }
 
 std::vector<std::string> List_to_vector_string(JNIEnv* env, jobject list)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_size       = LIST_SIZE(env,juArrayList);
-    jmethodID m_get        = LIST_GET(env, juArrayList);
-
-    jint len = env->CallIntMethod(list, m_size);
-    std::vector<std::string> result;
-    result.reserve(len);
-    for (jint i=0; i<len; i++)
-    {
-        jstring element = static_cast<jstring>(env->CallObjectMethod(list, m_get, i));
-        const char* pchars = env->GetStringUTFChars(element, NULL);
-        result.push_back(pchars);
-        env->ReleaseStringUTFChars(element, pchars);
-        env->DeleteLocalRef(element);
-    }
-    return result;
+    return fromList<std::string>(env, list);
 }
 
 void Copy_vector_string_to_List(JNIEnv* env, std::vector<std::string>& vs, jobject list)
 {
-    static jclass juArrayList       = ARRAYLIST(env);
-    jmethodID m_clear     = LIST_CLEAR(env, juArrayList);
-    jmethodID m_add       = LIST_ADD(env, juArrayList);
-
-    env->CallVoidMethod(list, m_clear);
-    for (std::vector<std::string>::iterator it = vs.begin(); it != vs.end(); ++it)
-    {
-        jstring element = env->NewStringUTF((*it).c_str());
-        env->CallBooleanMethod(list, m_add, element);
-        env->DeleteLocalRef(element);
-    }
+    copyToList(env, vs, list);
 }
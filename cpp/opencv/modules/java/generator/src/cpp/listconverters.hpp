@@ -10,6 +10,16 @@
 #include "opencv2/opencv_modules.hpp"
 #include "opencv2/core.hpp"
 
+// Looks up the java.util classes and methods used below; called from
+// JNI_OnLoad, and on first use otherwise.
+void listconverters_init(JNIEnv* env);
+
+// new ArrayList with the elements of array, or NULL with a pending exception
+jobject ObjectArray_to_List(JNIEnv* env, jobjectArray array);
+
+// list.toArray(), or NULL with a pending exception
+jobjectArray List_to_ObjectArray(JNIEnv* env, jobject list);
+
 jobject vector_String_to_List(JNIEnv* env, std::vector<cv::String>& vs);
 
 std::vector<cv::String> List_to_vector_String(JNIEnv* env, jobject list);
@@ -803,4 +803,190 @@ public class Converters {
             rs.add(new RotatedRect(new Point(buff[5 * i], buff[5 * i + 1]), new Size(buff[5 * i + 2], buff[5 * i + 3]), buff[5 * i + 4]));
         }
     }
+
+    /*
+     * Primitive array forms of the converters above. Points are stored as
+     * interleaved x, y values and rects as x, y, width, height, so no Point,
+     * Rect or boxed number is created per element.
+     *
+     * The *_to_Mat forms take the number of elements to convert, so a caller
+     * can keep one array larger than the data and refill it. The Mat_to_vector
+     * forms write into the array passed in when it has room for all elements
+     * and return it; otherwise (or when it is null) they return a new array.
+     * In both cases the element count is m.rows().
+     */
+
+    public static Mat vector_Point_to_Mat(int[] xy) {
+        return vector_Point_to_Mat(xy, (xy != null) ? xy.length / 2 : 0);
+    }
+
+    public static Mat vector_Point_to_Mat(int[] xy, int count) {
+        checkCount(xy != null ? xy.length : 0, count, 2);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_32SC2);
+            res.put(0, 0, xy);
+        }
+        return res;
+    }
+
+    public static Mat vector_Point2f_to_Mat(float[] xy) {
+        return vector_Point2f_to_Mat(xy, (xy != null) ? xy.length / 2 : 0);
+    }
+
+    public static Mat vector_Point2f_to_Mat(float[] xy, int count) {
+        checkCount(xy != null ? xy.length : 0, count, 2);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_32FC2);
+            res.put(0, 0, xy);
+        }
+        return res;
+    }
+
+    public static Mat vector_Point2d_to_Mat(double[] xy) {
+        return vector_Point2d_to_Mat(xy, (xy != null) ? xy.length / 2 : 0);
+    }
+
+    public static Mat vector_Point2d_to_Mat(double[] xy, int count) {
+        checkCount(xy != null ? xy.length : 0, count, 2);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_64FC2);
+            res.put(0, 0, xy);
+        }
+        return res;
+    }
+
+    public static Mat vector_Rect_to_Mat(int[] rs) {
+        return vector_Rect_to_Mat(rs, (rs != null) ? rs.length / 4 : 0);
+    }
+
+    public static Mat vector_Rect_to_Mat(int[] rs, int count) {
+        checkCount(rs != null ? rs.length : 0, count, 4);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_32SC4);
+            res.put(0, 0, rs);
+        }
+        return res;
+    }
+
+    public static Mat vector_float_to_Mat(float[] fs) {
+        return vector_float_to_Mat(fs, (fs != null) ? fs.length : 0);
+    }
+
+    public static Mat vector_float_to_Mat(float[] fs, int count) {
+        checkCount(fs != null ? fs.length : 0, count, 1);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_32FC1);
+            res.put(0, 0, fs);
+        }
+        return res;
+    }
+
+    public static Mat vector_int_to_Mat(int[] is) {
+        return vector_int_to_Mat(is, (is != null) ? is.length : 0);
+    }
+
+    public static Mat vector_int_to_Mat(int[] is, int count) {
+        checkCount(is != null ? is.length : 0, count, 1);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_32SC1);
+            res.put(0, 0, is);
+        }
+        return res;
+    }
+
+    public static Mat vector_double_to_Mat(double[] ds) {
+        return vector_double_to_Mat(ds, (ds != null) ? ds.length : 0);
+    }
+
+    public static Mat vector_double_to_Mat(double[] ds, int count) {
+        checkCount(ds != null ? ds.length : 0, count, 1);
+        Mat res = new Mat();
+        if (count > 0) {
+            res.create(count, 1, CvType.CV_64FC1);
+            res.put(0, 0, ds);
+        }
+        return res;
+    }
+
+    public static int[] Mat_to_vector_Point(Mat m, int[] xy) {
+        int count = checkColumn(m, CvType.CV_32SC2);
+        if (xy == null || xy.length < 2 * count)
+            xy = new int[2 * count];
+        if (count > 0)
+            m.get(0, 0, xy);
+        return xy;
+    }
+
+    public static float[] Mat_to_vector_Point2f(Mat m, float[] xy) {
+        int count = checkColumn(m, CvType.CV_32FC2);
+        if (xy == null || xy.length < 2 * count)
+            xy = new float[2 * count];
+        if (count > 0)
+            m.get(0, 0, xy);
+        return xy;
+    }
+
+    public static double[] Mat_to_vector_Point2d(Mat m, double[] xy) {
+        int count = checkColumn(m, CvType.CV_64FC2);
+        if (xy == null || xy.length < 2 * count)
+            xy = new double[2 * count];
+        if (count > 0)
+            m.get(0, 0, xy);
+        return xy;
+    }
+
+    public static int[] Mat_to_vector_Rect(Mat m, int[] rs) {
+        int count = checkColumn(m, CvType.CV_32SC4);
+        if (rs == null || rs.length < 4 * count)
+            rs = new int[4 * count];
+        if (count > 0)
+            m.get(0, 0, rs);
+        return rs;
+    }
+
+    public static float[] Mat_to_vector_float(Mat m, float[] fs) {
+        int count = checkColumn(m, CvType.CV_32FC1);
+        if (fs == null || fs.length < count)
+            fs = new float[count];
+        if (count > 0)
+            m.get(0, 0, fs);
+        return fs;
+    }
+
+    public static int[] Mat_to_vector_int(Mat m, int[] is) {
+        int count = checkColumn(m, CvType.CV_32SC1);
+        if (is == null || is.length < count)
+            is = new int[count];
+        if (count > 0)
+            m.get(0, 0, is);
+        return is;
+    }
+
+    public static double[] Mat_to_vector_double(Mat m, double[] ds) {
+        int count = checkColumn(m, CvType.CV_64FC1);
+        if (ds == null || ds.length < count)
+            ds = new double[count];
+        if (count > 0)
+            m.get(0, 0, ds);
+        return ds;
+    }
+
+    private static void checkCount(int length, int count, int channels) {
+        if (count < 0 || (long) count * channels > length)
+            throw new IllegalArgumentException(
+                    "Array of " + length + " values can't hold " + count + " elements of " + channels);
+    }
+
+    private static int checkColumn(Mat m, int type) {
+        if (type != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "Input Mat should be of " + CvType.typeToString(type) + " type with one column\n" + m);
+        return m.rows();
+    }
 }
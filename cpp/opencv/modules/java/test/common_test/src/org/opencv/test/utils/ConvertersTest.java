@@ -13,6 +13,7 @@ import org.opencv.test.OpenCVTestCase;
 import org.opencv.utils.Converters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ConvertersTest extends OpenCVTestCase {
@@ -65,6 +66,19 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListEquals(truth, fs, EPS);
     }
 
+    public void testMat_to_vector_floatArray() {
+        Mat src = new Mat(4, 1, CvType.CV_32FC1);
+        src.put(0, 0, 2, 4, 3, 9);
+        float[] fs = new float[6];
+
+        float[] res = Converters.Mat_to_vector_float(src, fs);
+
+        assertSame(fs, res);
+        assertTrue(Arrays.equals(new float[] { 2, 4, 3, 9, 0, 0 }, fs));
+        res = Converters.Mat_to_vector_float(src, new float[2]);
+        assertTrue(Arrays.equals(new float[] { 2, 4, 3, 9 }, res));
+    }
+
     public void testMat_to_vector_int() {
         Mat src = new Mat(4, 1, CvType.CV_32SC1);
         src.put(0, 0, 2, 4, 3, 9);
@@ -79,6 +93,15 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListEquals(truth, fs);
     }
 
+    public void testMat_to_vector_intArray() {
+        Mat src = new Mat(4, 1, CvType.CV_32SC1);
+        src.put(0, 0, 2, 4, 3, 9);
+
+        int[] is = Converters.Mat_to_vector_int(src, new int[0]);
+
+        assertTrue(Arrays.equals(new int[] { 2, 4, 3, 9 }, is));
+    }
+
     public void testMat_to_vector_KeyPoint() {
         Mat src = new Mat(1, 1, CvType.CV_64FC(7));
         src.put(0, 0, 2, 4, 3, 9, 10, 12, 7);
@@ -122,6 +145,28 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListPointEquals(truth, points, EPS);
     }
 
+    public void testMat_to_vector_PointArray() {
+        Mat src = new Mat(4, 1, CvType.CV_32SC2);
+        src.put(0, 0, 2, 4, 3, 9, 10, 4, 35, 54);
+        int[] xy = new int[8];
+
+        int[] res = Converters.Mat_to_vector_Point(src, xy);
+
+        assertSame(xy, res);
+        assertTrue(Arrays.equals(new int[] { 2, 4, 3, 9, 10, 4, 35, 54 }, xy));
+    }
+
+    public void testMat_to_vector_PointArrayWrongType() {
+        Mat src = new Mat(4, 1, CvType.CV_32FC2);
+
+        try {
+            Converters.Mat_to_vector_Point(src, new int[8]);
+            fail("Expected IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void testMat_to_vector_Point2d() {
         Mat src = new Mat(4, 1, CvType.CV_64FC2);
         src.put(0, 0, 12.0, 4.0, 3.0, 29.0, 10.0, 24.0, 35.0, 54.0);
@@ -137,6 +182,15 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListPointEquals(truth, points, EPS);
     }
 
+    public void testMat_to_vector_Point2dArray() {
+        Mat src = new Mat(2, 1, CvType.CV_64FC2);
+        src.put(0, 0, 12.0, 4.0, 3.0, 9.0);
+
+        double[] xy = Converters.Mat_to_vector_Point2d(src, new double[2]);
+
+        assertArrayEquals(new double[] { 12.0, 4.0, 3.0, 9.0 }, xy, EPS);
+    }
+
     public void testMat_to_vector_Point2f() {
         Mat src = new Mat(4, 1, CvType.CV_32FC2);
         src.put(0, 0, 2, 14, 31, 19, 10, 44, 5, 41);
@@ -152,6 +206,15 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListPointEquals(truth, points, EPS);
     }
 
+    public void testMat_to_vector_Point2fArray() {
+        Mat src = new Mat(2, 1, CvType.CV_32FC2);
+        src.put(0, 0, 2, 3, 1, 2);
+
+        float[] xy = Converters.Mat_to_vector_Point2f(src, new float[0]);
+
+        assertTrue(Arrays.equals(new float[] { 2, 3, 1, 2 }, xy));
+    }
+
     public void testMat_to_vector_Point3() {
         Mat src = new Mat(4, 1, CvType.CV_32SC3);
         src.put(0, 0, 2, 14, 12, 31, 19, 22, 10, 44, 45, 5, 41, 31);
@@ -224,6 +287,15 @@ public class ConvertersTest extends OpenCVTestCase {
         assertListRectEquals(truth, rectangles);
     }
 
+    public void testMat_to_vector_RectArray() {
+        Mat src = new Mat(2, 1, CvType.CV_32SC4);
+        src.put(0, 0, 2, 2, 5, 2, 0, 0, 6, 4);
+
+        int[] rs = Converters.Mat_to_vector_Rect(src, new int[0]);
+
+        assertTrue(Arrays.equals(new int[] { 2, 2, 5, 2, 0, 0, 6, 4 }, rs));
+    }
+
     public void testMat_to_vector_RotatedRect() {
         Mat src = new Mat(2, 1, CvType.CV_32FC(5));
         src.put(0, 0, 2, 2, 5, 2, 7,
@@ -315,6 +387,14 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst, EPS);
     }
 
+    public void testVector_double_to_MatArray() {
+        dst = Converters.vector_double_to_Mat(new double[] { 2, 4, 3, 9 });
+
+        truth = new Mat(4, 1, CvType.CV_64FC1);
+        truth.put(0, 0, 2, 4, 3, 9);
+        assertMatEqual(truth, dst, EPS);
+    }
+
     public void testVector_float_to_Mat() {
         List<Float> inputVector = new ArrayList<Float>();
         inputVector.add(2.0f);
@@ -328,6 +408,29 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst, EPS);
     }
 
+    public void testVector_float_to_MatArray() {
+        dst = Converters.vector_float_to_Mat(new float[] { 2, 4, 3, 9, 7 }, 4);
+
+        truth = new Mat(4, 1, CvType.CV_32FC1);
+        truth.put(0, 0, 2, 4, 3, 9);
+        assertMatEqual(truth, dst, EPS);
+    }
+
+    public void testVector_float_to_MatArrayEmpty() {
+        dst = Converters.vector_float_to_Mat(new float[4], 0);
+
+        assertTrue(dst.empty());
+    }
+
+    public void testVector_float_to_MatArrayTooShort() {
+        try {
+            Converters.vector_float_to_Mat(new float[3], 4);
+            fail("Expected IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void testVector_int_to_Mat() {
         List<Integer> inputVector = new ArrayList<Integer>();
         inputVector.add(2);
@@ -341,6 +444,14 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst);
     }
 
+    public void testVector_int_to_MatArray() {
+        dst = Converters.vector_int_to_Mat(new int[] { 2, 4, 3, 9 });
+
+        truth = new Mat(4, 1, CvType.CV_32SC1);
+        truth.put(0, 0, 2, 4, 3, 9);
+        assertMatEqual(truth, dst);
+    }
+
     public void testVector_KeyPoint_to_Mat() {
         List<KeyPoint> kps = new ArrayList<KeyPoint>();
         kps.add(new KeyPoint(2, 4, 3, 9, 10, 12, 7));
@@ -380,6 +491,16 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst);
     }
 
+    public void testVector_Point_to_MatArray() {
+        int[] xy = { 2, 4, 3, 9, 10, 4, 35, 54, 0, 0 };
+
+        dst = Converters.vector_Point_to_Mat(xy, 4);
+
+        truth = new Mat(4, 1, CvType.CV_32SC2);
+        truth.put(0, 0, 2, 4, 3, 9, 10, 4, 35, 54);
+        assertMatEqual(truth, dst);
+    }
+
     public void testVector_Point_to_MatListOfPoint() {
         fail("Not yet implemented");
     }
@@ -401,6 +522,14 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst, EPS);
     }
 
+    public void testVector_Point2d_to_MatArray() {
+        dst = Converters.vector_Point2d_to_Mat(new double[] { 12.0, 4.0, 3.0, 9.0, 1.0, 2.0 });
+
+        truth = new Mat(3, 1, CvType.CV_64FC2);
+        truth.put(0, 0, 12.0, 4.0, 3.0, 9.0, 1.0, 2.0);
+        assertMatEqual(truth, dst, EPS);
+    }
+
     public void testVector_Point2f_to_Mat() {
         List<Point> points = new ArrayList<Point>();
         points.add(new Point(2.0, 3.0));
@@ -414,6 +543,14 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst, EPS);
     }
 
+    public void testVector_Point2f_to_MatArray() {
+        dst = Converters.vector_Point2f_to_Mat(new float[] { 2.0f, 3.0f, 1.0f, 2.0f, 1.0f, 4.0f });
+
+        truth = new Mat(3, 1, CvType.CV_32FC2);
+        truth.put(0, 0, 2.0, 3.0, 1.0, 2.0, 1.0, 4.0);
+        assertMatEqual(truth, dst, EPS);
+    }
+
     public void testVector_Point3_to_Mat() {
         List<Point3> points = new ArrayList<Point3>();
         points.add(new Point3(2, 4, 3));
@@ -480,6 +617,14 @@ public class ConvertersTest extends OpenCVTestCase {
         assertMatEqual(truth, dst);
     }
 
+    public void testVector_Rect_to_MatArray() {
+        dst = Converters.vector_Rect_to_Mat(new int[] { 2, 2, 5, 2, 0, 0, 6, 4 });
+
+        truth = new Mat(2, 1, CvType.CV_32SC4);
+        truth.put(0, 0, 2, 2, 5, 2, 0, 0, 6, 4);
+        assertMatEqual(truth, dst);
+    }
+
     public void testVector_RotatedRect_to_Mat() {
         List<RotatedRect> rectangles = new ArrayList<RotatedRect>();
         rectangles.add(new RotatedRect(new Point(2, 2), new Size(5, 2), 7));
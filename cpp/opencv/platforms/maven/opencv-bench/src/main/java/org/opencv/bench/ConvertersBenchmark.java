@@ -0,0 +1,118 @@
+package org.opencv.bench;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.utils.Converters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converters round-trips (vector to Mat and back) through Lists of objects
+ * and through the primitive array overloads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertersBenchmark {
+
+    @Param({"100", "10000"})
+    public int count;
+
+    private List<Point> points;
+    private List<Rect> rects;
+    private List<Float> floats;
+    private int[] pointArray;
+    private int[] rectArray;
+    private float[] floatArray;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        points = new ArrayList<Point>(count);
+        rects = new ArrayList<Rect>(count);
+        floats = new ArrayList<Float>(count);
+        pointArray = new int[2 * count];
+        rectArray = new int[4 * count];
+        floatArray = new float[count];
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(i, count - i));
+            rects.add(new Rect(i, i, 16, 16));
+            floats.add((float) i);
+            pointArray[2 * i] = i;
+            pointArray[2 * i + 1] = count - i;
+            rectArray[4 * i] = i;
+            rectArray[4 * i + 1] = i;
+            rectArray[4 * i + 2] = 16;
+            rectArray[4 * i + 3] = 16;
+            floatArray[i] = i;
+        }
+    }
+
+    @Benchmark
+    public List<Point> pointList() {
+        Mat m = Converters.vector_Point_to_Mat(points);
+        List<Point> out = new ArrayList<Point>(count);
+        Converters.Mat_to_vector_Point(m, out);
+        m.release();
+        return out;
+    }
+
+    @Benchmark
+    public int[] pointArray() {
+        Mat m = Converters.vector_Point_to_Mat(pointArray);
+        int[] out = Converters.Mat_to_vector_Point(m, pointArray);
+        m.release();
+        return out;
+    }
+
+    @Benchmark
+    public List<Rect> rectList() {
+        Mat m = Converters.vector_Rect_to_Mat(rects);
+        List<Rect> out = new ArrayList<Rect>(count);
+        Converters.Mat_to_vector_Rect(m, out);
+        m.release();
+        return out;
+    }
+
+    @Benchmark
+    public int[] rectArray() {
+        Mat m = Converters.vector_Rect_to_Mat(rectArray);
+        int[] out = Converters.Mat_to_vector_Rect(m, rectArray);
+        m.release();
+        return out;
+    }
+
+    @Benchmark
+    public List<Float> floatList() {
+        Mat m = Converters.vector_float_to_Mat(floats);
+        List<Float> out = new ArrayList<Float>(count);
+        Converters.Mat_to_vector_float(m, out);
+        m.release();
+        return out;
+    }
+
+    @Benchmark
+    public float[] floatArray() {
+        Mat m = Converters.vector_float_to_Mat(floatArray);
+        float[] out = Converters.Mat_to_vector_float(m, floatArray);
+        m.release();
+        return out;
+    }
+}
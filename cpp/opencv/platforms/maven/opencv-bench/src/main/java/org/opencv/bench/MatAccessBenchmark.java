@@ -0,0 +1,163 @@
+package org.opencv.bench;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mat.get/put of a whole tile for each primitive type, compared with the
+ * per-pixel access patterns: get/put of one element and Mat.at().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatAccessBenchmark {
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private Mat m8u, m16s, m32s, m32f, m64f;
+    private byte[] bytes;
+    private short[] shorts;
+    private int[] ints;
+    private float[] floats;
+    private double[] doubles;
+    private final byte[] onePixel = new byte[1];
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        int n = size * size;
+        m8u = new Mat(size, size, CvType.CV_8UC1);
+        m16s = new Mat(size, size, CvType.CV_16SC1);
+        m32s = new Mat(size, size, CvType.CV_32SC1);
+        m32f = new Mat(size, size, CvType.CV_32FC1);
+        m64f = new Mat(size, size, CvType.CV_64FC1);
+        bytes = new byte[n];
+        shorts = new short[n];
+        ints = new int[n];
+        floats = new float[n];
+        doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            bytes[i] = (byte) i;
+            shorts[i] = (short) i;
+            ints[i] = i;
+            floats[i] = i;
+            doubles[i] = i;
+        }
+        m8u.put(0, 0, bytes);
+        m16s.put(0, 0, shorts);
+        m32s.put(0, 0, ints);
+        m32f.put(0, 0, floats);
+        m64f.put(0, 0, doubles);
+    }
+
+    @TearDown
+    public void tearDown() {
+        m8u.release();
+        m16s.release();
+        m32s.release();
+        m32f.release();
+        m64f.release();
+    }
+
+    @Benchmark
+    public int getBytes() {
+        return m8u.get(0, 0, bytes);
+    }
+
+    @Benchmark
+    public int putBytes() {
+        return m8u.put(0, 0, bytes);
+    }
+
+    @Benchmark
+    public int getShorts() {
+        return m16s.get(0, 0, shorts);
+    }
+
+    @Benchmark
+    public int putShorts() {
+        return m16s.put(0, 0, shorts);
+    }
+
+    @Benchmark
+    public int getInts() {
+        return m32s.get(0, 0, ints);
+    }
+
+    @Benchmark
+    public int putInts() {
+        return m32s.put(0, 0, ints);
+    }
+
+    @Benchmark
+    public int getFloats() {
+        return m32f.get(0, 0, floats);
+    }
+
+    @Benchmark
+    public int putFloats() {
+        return m32f.put(0, 0, floats);
+    }
+
+    @Benchmark
+    public int getDoubles() {
+        return m64f.get(0, 0, doubles);
+    }
+
+    @Benchmark
+    public int putDoubles() {
+        return m64f.put(0, 0, doubles);
+    }
+
+    /** One JNI call per pixel of the first row. */
+    @Benchmark
+    public int getBytesPerPixel() {
+        int sum = 0;
+        for (int x = 0; x < size; x++) {
+            m8u.get(0, x, onePixel);
+            sum += onePixel[0];
+        }
+        return sum;
+    }
+
+    /** The allocating double[] form, once per pixel of the first row. */
+    @Benchmark
+    public double getDoublesPerPixel() {
+        double sum = 0;
+        for (int x = 0; x < size; x++)
+            sum += m8u.get(0, x)[0];
+        return sum;
+    }
+
+    @Benchmark
+    public int atGetPerPixel() {
+        int sum = 0;
+        for (int x = 0; x < size; x++)
+            sum += m32s.at(Integer.class, 0, x).getV();
+        return sum;
+    }
+
+    @Benchmark
+    public void atSetPerPixel() {
+        for (int x = 0; x < size; x++)
+            m32f.at(Float.class, 0, x).setV((float) x);
+    }
+}
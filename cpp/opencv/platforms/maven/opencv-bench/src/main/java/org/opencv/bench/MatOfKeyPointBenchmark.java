@@ -0,0 +1,62 @@
+package org.opencv.bench;
+
+import org.opencv.core.KeyPoint;
+import org.opencv.core.MatOfKeyPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** MatOfKeyPoint.fromArray and toArray. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatOfKeyPointBenchmark {
+
+    @Param({"100", "10000"})
+    public int count;
+
+    private KeyPoint[] keyPoints;
+    private MatOfKeyPoint filled;
+    private MatOfKeyPoint target;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        keyPoints = new KeyPoint[count];
+        for (int i = 0; i < count; i++)
+            keyPoints[i] = new KeyPoint(i, count - i, 7, i % 360, 0.5f, i % 4, i);
+        filled = new MatOfKeyPoint(keyPoints);
+        target = new MatOfKeyPoint();
+    }
+
+    @TearDown
+    public void tearDown() {
+        filled.release();
+        target.release();
+    }
+
+    @Benchmark
+    public MatOfKeyPoint fromArray() {
+        target.fromArray(keyPoints);
+        return target;
+    }
+
+    @Benchmark
+    public KeyPoint[] toArray() {
+        return filled.toArray();
+    }
+}
@@ -0,0 +1,22 @@
+package org.opencv.bench;
+
+import org.opencv.core.Core;
+
+/**
+ * Loads the OpenCV native library once per benchmark JVM. The library is
+ * looked up on java.library.path, which the Maven build points at build/lib.
+ */
+public final class NativeLibrary {
+
+    private static boolean loaded = false;
+
+    private NativeLibrary() {
+    }
+
+    public static synchronized void load() {
+        if (!loaded) {
+            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+            loaded = true;
+        }
+    }
+}
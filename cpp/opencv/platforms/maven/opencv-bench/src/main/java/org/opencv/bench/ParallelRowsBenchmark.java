@@ -0,0 +1,102 @@
+package org.opencv.bench;
+
+import org.opencv.core.ByteCursor;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.RowKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per-pixel white mask (the white background test of the tilers, applied
+ * pixel by pixel) over a CV_8UC3 image: a single-threaded ByteCursor loop
+ * compared with Mat.parallelRows on the shared pool. The image is restored
+ * before each call, outside the measured time, since the mask changes it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelRowsBenchmark {
+
+    private static final int WHITE_THRESHOLD = 200;
+
+    private static final RowKernel<ByteCursor> MASK_WHITE = new RowKernel<ByteCursor>() {
+        @Override
+        public void apply(int row, ByteCursor cur) {
+            maskRow(cur);
+        }
+    };
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    private Mat source;
+    private Mat image;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        source = new Mat(size, size, CvType.CV_8UC3);
+        Core.randu(source, 150, 256);
+        image = new Mat();
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        source.copyTo(image);
+    }
+
+    @TearDown
+    public void tearDown() {
+        image.release();
+        source.release();
+    }
+
+    @Benchmark
+    public Mat serial() {
+        ByteCursor cur = new ByteCursor(image);
+        for (int r = 0; r < cur.rows(); r++) {
+            cur.row(r);
+            maskRow(cur);
+        }
+        cur.flush();
+        return image;
+    }
+
+    @Benchmark
+    public Mat parallelRows() {
+        image.parallelRows(MASK_WHITE);
+        return image;
+    }
+
+    /** Zeroes every pixel whose three channels are all above the threshold. */
+    private static void maskRow(ByteCursor cur) {
+        byte[] row = cur.array();
+        for (int i = 0; i < row.length; i += 3) {
+            if ((row[i] & 0xff) > WHITE_THRESHOLD && (row[i + 1] & 0xff) > WHITE_THRESHOLD
+                    && (row[i + 2] & 0xff) > WHITE_THRESHOLD) {
+                row[i] = 0;
+                row[i + 1] = 0;
+                row[i + 2] = 0;
+            }
+        }
+        cur.markModified();
+    }
+}
@@ -0,0 +1,77 @@
+package org.opencv.bench;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a crop-sized CV_8UC3 region of a submatrix, whose rows are not
+ * contiguous, into one Java array: one Mat.get per row, compared with a
+ * single Mat.get(Rect, byte[], offset, stride).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionCopyBenchmark {
+
+    @Param({"224", "448"})
+    public int size;
+
+    private Mat image;
+    private Mat view;
+    private Rect roi;
+    private int stride;
+    private byte[] row;
+    private byte[] region;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        image = new Mat(4 * size, 4 * size, CvType.CV_8UC3);
+        Core.randu(image, 0, 256);
+        view = image.submat(size, 3 * size, size, 3 * size);
+        roi = new Rect(size / 2, size / 2, size, size);
+        stride = size * 3;
+        row = new byte[stride];
+        region = new byte[stride * size];
+    }
+
+    @TearDown
+    public void tearDown() {
+        view.release();
+        image.release();
+    }
+
+    @Benchmark
+    public byte[] perRowGet() {
+        for (int r = 0; r < roi.height; r++) {
+            view.get(roi.y + r, roi.x, row);
+            System.arraycopy(row, 0, region, r * stride, stride);
+        }
+        return region;
+    }
+
+    @Benchmark
+    public byte[] regionGet() {
+        view.get(roi, region, 0, stride);
+        return region;
+    }
+}
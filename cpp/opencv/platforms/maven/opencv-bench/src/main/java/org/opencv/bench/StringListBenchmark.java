@@ -0,0 +1,85 @@
+package org.opencv.bench;
+
+import org.opencv.core.MatOfByte;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+import org.opencv.dnn.TextRecognitionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the APIs returning or taking a List of Strings, which go
+ * through the vector_String converters of the JNI layer. The net is a
+ * synthetic Caffe prototxt of ReLU layers all reading the input, so every
+ * layer is also an unconnected output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringListBenchmark {
+
+    @Param({"10", "1000"})
+    public int layers;
+
+    private Net net;
+    private TextRecognitionModel model;
+    private List<String> vocabulary;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        StringBuilder proto = new StringBuilder();
+        proto.append("input: \"data\"\n");
+        proto.append("input_shape { dim: 1 dim: 1 dim: 8 dim: 8 }\n");
+        for (int i = 0; i < layers; i++) {
+            proto.append("layer { name: \"relu").append(i).append("\" type: \"ReLU\"")
+                    .append(" bottom: \"data\" top: \"relu").append(i).append("\" }\n");
+        }
+        net = Dnn.readNetFromCaffe(new MatOfByte(proto.toString().getBytes(StandardCharsets.US_ASCII)));
+        model = new TextRecognitionModel(net);
+        vocabulary = new ArrayList<String>(layers);
+        for (int i = 0; i < layers; i++)
+            vocabulary.add("word" + i);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+        net.close();
+    }
+
+    @Benchmark
+    public List<String> layerNames() {
+        return net.getLayerNames();
+    }
+
+    @Benchmark
+    public List<String> unconnectedOutLayersNames() {
+        return net.getUnconnectedOutLayersNames();
+    }
+
+    /** List to vector and back. */
+    @Benchmark
+    public List<String> vocabularyRoundTrip() {
+        model.setVocabulary(vocabulary);
+        return model.getVocabulary();
+    }
+}
@@ -0,0 +1,102 @@
+package org.opencv.bench;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Range;
+import org.opencv.core.Rect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of cutting a region into tiles: one submat (plus release) per tile,
+ * as the tilers do, compared with reading each tile through Mat.get(Rect).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmatBenchmark {
+
+    private static final int REGION = 4096;
+
+    @Param({"256", "512"})
+    public int tileSize;
+
+    private Mat region;
+    private byte[] pixels;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        region = new Mat(REGION, REGION, CvType.CV_8UC3);
+        pixels = new byte[tileSize * tileSize * 3];
+    }
+
+    @TearDown
+    public void tearDown() {
+        region.release();
+    }
+
+    @Benchmark
+    public int submatRect() {
+        int n = 0;
+        for (int y = 0; y < REGION; y += tileSize) {
+            for (int x = 0; x < REGION; x += tileSize) {
+                Mat tile = region.submat(new Rect(x, y, tileSize, tileSize));
+                n += tile.rows();
+                tile.release();
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int submatRanges() {
+        int n = 0;
+        for (int y = 0; y < REGION; y += tileSize) {
+            for (int x = 0; x < REGION; x += tileSize) {
+                Mat tile = region.submat(new Range(y, y + tileSize), new Range(x, x + tileSize));
+                n += tile.rows();
+                tile.release();
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int submatCopy() {
+        int n = 0;
+        for (int y = 0; y < REGION; y += tileSize) {
+            for (int x = 0; x < REGION; x += tileSize) {
+                Mat tile = region.submat(new Rect(x, y, tileSize, tileSize));
+                n += tile.get(0, 0, pixels);
+                tile.release();
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int regionGet() {
+        int n = 0;
+        for (int y = 0; y < REGION; y += tileSize) {
+            for (int x = 0; x < REGION; x += tileSize)
+                n += region.get(new Rect(x, y, tileSize, tileSize), pixels, 0, tileSize * 3);
+        }
+        return n;
+    }
+}
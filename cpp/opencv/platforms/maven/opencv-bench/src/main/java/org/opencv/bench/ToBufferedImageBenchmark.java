@@ -0,0 +1,67 @@
+package org.opencv.bench;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.highgui.HighGui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HighGui.toBufferedImage of a tile, allocating a new image every call or
+ * reusing one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ToBufferedImageBenchmark {
+
+    @Param({"512", "2048"})
+    public int size;
+
+    @Param({"1", "3"})
+    public int channels;
+
+    private Mat tile;
+    private BufferedImage reuse;
+
+    @Setup
+    public void setup() {
+        NativeLibrary.load();
+        tile = new Mat(size, size, CvType.makeType(CvType.CV_8U, channels));
+        Core.randu(tile, 0, 256);
+        reuse = HighGui.toBufferedImage(tile, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tile.release();
+    }
+
+    @Benchmark
+    public Image allocating() {
+        return HighGui.toBufferedImage(tile);
+    }
+
+    @Benchmark
+    public BufferedImage reusing() {
+        return HighGui.toBufferedImage(tile, reuse);
+    }
+}
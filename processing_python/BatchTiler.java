@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiles a cohort of slides in one JVM with one pool of decode threads and
+ * one shared TileWriter, instead of one process, JVM and thread team per
+ * slide.
+ *
+ * At most maxOpenSlides slides are open at a time.  Decode threads take
+ * small chunks of crops from the open slides in round-robin order, so a
+ * large slide does not hold all cores while small ones wait, and a new
+ * slide is opened as soon as one has had all of its crops claimed.  A
+ * shared MemoryBudget bounds the pixel data waiting in the writer across
+ * all slides.  Finishing a slide (draining its tiles and writing its final
+ * checkpoint) happens off the decode threads.
+ */
+public class BatchTiler {
+
+  public static final int DEFAULT_CHUNK = 4;
+
+  private final TileWriter writer;
+  private final int decodeThreads;
+  private final int maxOpenSlides;
+  private final MemoryBudget budget;
+
+  private int chunk = DEFAULT_CHUNK;
+  private Path checkpointDir;
+  private long flushInterval = SlideTiler.DEFAULT_FLUSH_INTERVAL;
+
+  private final ArrayDeque<Job> queue = new ArrayDeque<Job>();
+  private final List<Active> active = new ArrayList<Active>();
+  private int opening = 0;
+  private int roundRobin = 0;
+  private ExecutorService finisher;
+
+  private final Map<String, SlideTiler.Result> results =
+    new LinkedHashMap<String, SlideTiler.Result>();
+  private final Map<String, Throwable> errors =
+    new LinkedHashMap<String, Throwable>();
+
+  /**
+   * @param writer shared writer for all slides; not closed by the batch
+   * @param decodeThreads number of threads reading and filtering crops
+   * @param maxOpenSlides maximum number of slides with open readers
+   * @param memoryBudget bytes of crop data allowed in flight, or 0 for no
+   *                     limit
+   */
+  public BatchTiler(TileWriter writer, int decodeThreads, int maxOpenSlides,
+    long memoryBudget)
+  {
+    if (decodeThreads < 1 || maxOpenSlides < 1) {
+      throw new IllegalArgumentException(
+        "Thread and open slide counts must be positive");
+    }
+    this.writer = writer;
+    this.decodeThreads = decodeThreads;
+    this.maxOpenSlides = maxOpenSlides;
+    this.budget = memoryBudget > 0 ? new MemoryBudget(memoryBudget) : null;
+  }
+
+  /** Number of crops a decode thread takes from a slide before moving on. */
+  public void setChunk(int chunk) {
+    this.chunk = chunk;
+  }
+
+  public void setCheckpoint(Path checkpointDir, long flushInterval) {
+    this.checkpointDir = checkpointDir;
+    this.flushInterval = flushInterval;
+  }
+
+  public MemoryBudget getMemoryBudget() {
+    return budget;
+  }
+
+  /**
+   * Queue a slide.
+   *
+   * @param outputDir directory for this slide's tile files, ignored if the
+   *                  writer appends to an archive
+   */
+  public synchronized void add(String slide, int series, Path outputDir) {
+    queue.add(new Job(slide, series, outputDir));
+  }
+
+  /**
+   * Tile every queued slide. Slides that fail are reported through
+   * getErrors() and do not stop the rest of the batch.
+   */
+  public Map<String, SlideTiler.Result> run() throws InterruptedException {
+    finisher = Executors.newSingleThreadExecutor();
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int i=0; i<decodeThreads; i++) {
+      Thread t = new Thread(this::work, "batch-tiler-" + i);
+      workers.add(t);
+      t.start();
+    }
+    for (Thread t : workers) {
+      t.join();
+    }
+    finisher.shutdown();
+    finisher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    synchronized (this) {
+      return new LinkedHashMap<String, SlideTiler.Result>(results);
+    }
+  }
+
+  public synchronized Map<String, Throwable> getErrors() {
+    return new LinkedHashMap<String, Throwable>(errors);
+  }
+
+  private void work() {
+    try {
+      while (true) {
+        Object next = nextWork();
+        if (next == null) {
+          return;
+        }
+        if (next instanceof Job) {
+          open((Job) next);
+          continue;
+        }
+
+        Active a = (Active) next;
+        int start = a.tiler.claim(chunk);
+        try {
+          if (start < a.tiler.getCropCount()) {
+            a.tiler.processCrops(start, start + chunk);
+          }
+        }
+        catch (Throwable e) {
+          fail(a, e);
+        }
+        finally {
+          release(a);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Return a Job to open, an Active slide to take a chunk from, or null
+   * once the batch is done.
+   */
+  private synchronized Object nextWork() throws InterruptedException {
+    while (true) {
+      if (!queue.isEmpty() && active.size() + opening < maxOpenSlides) {
+        opening++;
+        return queue.poll();
+      }
+
+      // a slide with no crops left to claim (e.g. fully checkpointed) may
+      // never have been handed to a thread
+      for (int i=active.size()-1; i>=0; i--) {
+        retireIfDone(active.get(i));
+      }
+
+      int n = active.size();
+      for (int i=0; i<n; i++) {
+        Active a = active.get((roundRobin + i) % n);
+        if (!a.failed && !a.tiler.isExhausted()) {
+          roundRobin = (roundRobin + i + 1) % n;
+          a.inFlight++;
+          return a;
+        }
+      }
+
+      if (queue.isEmpty() && active.isEmpty() && opening == 0) {
+        return null;
+      }
+      // every open slide is fully claimed; wait for one to retire or for a
+      // slide being opened by another thread
+      wait();
+    }
+  }
+
+  private void open(Job job) {
+    SlideTiler tiler = new SlideTiler(job.slide, job.series, writer,
+      job.outputDir);
+    if (checkpointDir != null) {
+      tiler.setCheckpoint(checkpointDir, flushInterval);
+    }
+    tiler.setMemoryBudget(budget);
+
+    Throwable error = null;
+    try {
+      if (job.outputDir != null && writer.getArchive() == null) {
+        Files.createDirectories(job.outputDir);
+      }
+      tiler.open();
+    }
+    catch (Throwable e) {
+      error = e;
+    }
+
+    synchronized (this) {
+      opening--;
+      if (error == null) {
+        active.add(new Active(tiler));
+      }
+      else {
+        errors.put(job.slide, error);
+      }
+      notifyAll();
+    }
+  }
+
+  private synchronized void fail(Active a, Throwable e) {
+    if (!a.failed) {
+      a.failed = true;
+      errors.put(a.tiler.getSlide(), e);
+    }
+  }
+
+  private synchronized void release(Active a) {
+    a.inFlight--;
+    retireIfDone(a);
+  }
+
+  private void retireIfDone(final Active a) {
+    if (a.inFlight == 0 && !a.retired &&
+      (a.failed || a.tiler.isExhausted()))
+    {
+      a.retired = true;
+      active.remove(a);
+      finisher.execute(() -> finish(a));
+      notifyAll();
+    }
+  }
+
+  private void finish(Active a) {
+    try {
+      SlideTiler.Result result = a.tiler.finish();
+      synchronized (this) {
+        // a failed slide is still finished, to release its readers and
+        // wait for its tiles, but is only reported as an error
+        if (!a.failed) {
+          results.put(a.tiler.getSlide(), result);
+        }
+      }
+    }
+    catch (IOException e) {
+      synchronized (this) {
+        if (!a.failed) {
+          a.failed = true;
+          errors.put(a.tiler.getSlide(), e);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Output directory for a slide: its absolute path without the extension,
+   * under the output directory, so that slides with the same file name in
+   * different directories do not share one.
+   */
+  static Path outputDirFor(Path output, String slide) {
+    Path path = Paths.get(slide).toAbsolutePath().normalize();
+    Path root = path.getRoot();
+    if (root != null) {
+      path = root.relativize(path);
+    }
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      path = path.resolveSibling(name.substring(0, dot));
+    }
+    return output.resolve(path.toString());
+  }
+
+  private static class Job {
+    final String slide;
+    final int series;
+    final Path outputDir;
+
+    Job(String slide, int series, Path outputDir) {
+      this.slide = slide;
+      this.series = series;
+      this.outputDir = outputDir;
+    }
+  }
+
+  private static class Active {
+    final SlideTiler tiler;
+    int inFlight = 0;
+    boolean failed = false;
+    boolean retired = false;
+
+    Active(SlideTiler tiler) {
+      this.tiler = tiler;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      System.err.println("Usage: BatchTiler <slide list> <series> " +
+        "<output dir> [checkpoint dir]");
+      System.exit(1);
+    }
+    List<String> slides = Files.readAllLines(Paths.get(args[0]));
+    int series = Integer.parseInt(args[1]);
+    Path output = Paths.get(args[2]);
+
+    int threads = Runtime.getRuntime().availableProcessors();
+    long start = System.nanoTime();
+    PipelineMetrics metrics = PipelineMetrics.get();
+    metrics.registerMBean();
+    metrics.startLogging(60000, System.out);
+    try (TileWriter writer = new TileWriter(".tif", threads, 2)) {
+      BatchTiler batch = new BatchTiler(writer, threads, 4,
+        Runtime.getRuntime().maxMemory() / 4);
+      if (args.length > 3) {
+        batch.setCheckpoint(Paths.get(args[3]),
+          SlideTiler.DEFAULT_FLUSH_INTERVAL);
+      }
+      for (String slide : slides) {
+        slide = slide.trim();
+        if (slide.isEmpty()) {
+          continue;
+        }
+        batch.add(slide, series, outputDirFor(output, slide));
+      }
+
+      Map<String, SlideTiler.Result> results = batch.run();
+      for (Map.Entry<String, SlideTiler.Result> e : results.entrySet()) {
+        System.out.println(e.getKey() + ": " + e.getValue());
+      }
+      for (Map.Entry<String, Throwable> e : batch.getErrors().entrySet()) {
+        System.err.println(e.getKey() + " failed: " + e.getValue());
+      }
+      System.out.println(writer.getStats());
+      System.out.println("memory " + batch.getMemoryBudget());
+    }
+    metrics.stopLogging();
+    System.out.println(metrics);
+    System.out.println("Elapsed time: " +
+      (System.nanoTime() - start) / 1e9 + "s");
+  }
+}
@@ -0,0 +1,132 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of
+ * HdrHistogram: each power of two of nanoseconds is split into SUB_BUCKETS
+ * equal buckets, so any recorded value is known to within 1/SUB_BUCKETS
+ * (about 3%) from 1 ns up to 2^(MAX_EXPONENT + 5) ns (over two hours).
+ *
+ * record() is a few array and atomic operations, cheap enough to call for
+ * every tile from every thread.  Percentiles are read from a snapshot, which
+ * is consistent enough for monitoring while threads keep recording.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 38;
+  private static final int BUCKETS = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts.incrementAndGet(bucket(nanos));
+    count.incrementAndGet();
+    sum.addAndGet(nanos);
+    long m;
+    while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+      // retry
+    }
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public Snapshot snapshot() {
+    long[] c = new long[BUCKETS];
+    long n = 0;
+    for (int i=0; i<BUCKETS; i++) {
+      c[i] = counts.get(i);
+      n += c[i];
+    }
+    return new Snapshot(c, n, sum.get(), max.get());
+  }
+
+  public void reset() {
+    for (int i=0; i<BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  // values below SUB_BUCKETS get one bucket each, then SUB_BUCKETS buckets
+  // per power of two
+  static int bucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int sub = (int) (nanos >>> exponent) - SUB_BUCKETS;
+    return (exponent + 1) * SUB_BUCKETS + sub;
+  }
+
+  /** Highest value that falls in a bucket. */
+  static long bucketLimit(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << exponent) - 1;
+  }
+
+  /** Copy of a histogram at one point in time. */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long sumNanos() {
+      return sum;
+    }
+
+    public double meanNanos() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long maxNanos() {
+      return max;
+    }
+
+    /** Value below which a fraction p (0 to 1) of the recorded values fall. */
+    public long percentileNanos(double p) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(p * count);
+      long seen = 0;
+      for (int i=0; i<counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank && counts[i] > 0) {
+          return Math.min(bucketLimit(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
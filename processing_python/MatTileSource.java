@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * TileSource over an image held in memory, with levels made by halving the
+ * image until it fits in one tile.  Used to run the viewer and its renderer
+ * without a slide file, e.g. headless.
+ */
+public class MatTileSource implements TileSource {
+
+  private final String name;
+  private final int tileSize;
+  private final List<Mat> levels = new ArrayList<Mat>();
+
+  /** @param image CV_8UC3 BGR image, kept as level 0 */
+  public MatTileSource(String name, Mat image, int tileSize) {
+    if (image.type() != CvType.CV_8UC3) {
+      throw new IllegalArgumentException("Expected a CV_8UC3 image: " + image);
+    }
+    this.name = name;
+    this.tileSize = tileSize;
+    Mat level = image;
+    levels.add(level);
+    while (level.cols() > tileSize || level.rows() > tileSize) {
+      Mat next = new Mat();
+      Imgproc.resize(level, next, new Size((level.cols() + 1) / 2,
+        (level.rows() + 1) / 2), 0, 0, Imgproc.INTER_AREA);
+      levels.add(next);
+      level = next;
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int getLevelCount() {
+    return levels.size();
+  }
+
+  @Override
+  public int getWidth(int level) {
+    return levels.get(level).cols();
+  }
+
+  @Override
+  public int getHeight(int level) {
+    return levels.get(level).rows();
+  }
+
+  @Override
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  @Override
+  public Mat readTile(int level, int tx, int ty) {
+    Mat image = levels.get(level);
+    int x = tx * tileSize;
+    int y = ty * tileSize;
+    Rect r = new Rect(x, y, Math.min(tileSize, image.cols() - x),
+      Math.min(tileSize, image.rows() - y));
+    return image.submat(r).clone();
+  }
+
+  @Override
+  public void close() {
+    // level 0 belongs to the caller
+    for (int i=1; i<levels.size(); i++) {
+      levels.get(i).release();
+    }
+    levels.clear();
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Byte-counting semaphore shared by the tiling stages: a crop acquires its
+ * size before it is read and releases it once its tile leaves the writer,
+ * which bounds the pixel data held in queues across all open slides.
+ *
+ * A request larger than the whole budget is granted when nothing else is
+ * outstanding, so an oversized crop cannot deadlock the pipeline.
+ */
+public class MemoryBudget {
+
+  private final long capacity;
+  private long used = 0;
+  private long peak = 0;
+  private long waits = 0;
+
+  public MemoryBudget(long capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Budget must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public synchronized void acquire(long bytes) throws InterruptedException {
+    if (used + bytes > capacity && used > 0) {
+      waits++;
+      while (used + bytes > capacity && used > 0) {
+        wait();
+      }
+    }
+    used += bytes;
+    peak = Math.max(peak, used);
+  }
+
+  public synchronized void release(long bytes) {
+    used -= bytes;
+    notifyAll();
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public synchronized long getUsed() {
+    return used;
+  }
+
+  public synchronized long getPeak() {
+    return peak;
+  }
+
+  /** Number of acquire calls that had to wait for memory. */
+  public synchronized long getWaits() {
+    return waits;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "used=" + used + "/" + capacity + " peak=" + peak +
+      " waits=" + waits;
+  }
+}
@@ -0,0 +1,19 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of PipelineMetrics, registered as
+ * heart.histology:type=PipelineMetrics.
+ */
+public interface PipelineMetricsMXBean {
+
+  boolean isEnabled();
+
+  /** Event and byte counts by PipelineMetrics.Counter name. */
+  Map<String, Long> getCounters();
+
+  /** Latency summary of every stage since the start or the last reset. */
+  List<PipelineMetrics.StageStats> getStages();
+
+  void reset();
+}
@@ -0,0 +1,499 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import loci.formats.FormatException;
+import loci.formats.IFormatReader;
+import loci.formats.ImageReader;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Java port of tile_image in parallel_vsi_crop_image.cpp: cuts the central
+ * region of one series of a slide into fixed-size crops, resizes them,
+ * drops background crops and hands the rest to a TileWriter.
+ *
+ * Every worker thread uses its own reader, as the C++ version does, and
+ * crops are handed out dynamically.  When a checkpoint directory is set,
+ * finished crops are recorded in a TilingCheckpoint and skipped when the
+ * same job is run again.
+ *
+ * run() tiles the slide with its own threads.  BatchTiler instead drives
+ * many tilers from one shared thread pool through open(), claim(),
+ * processCrops() and finish().
+ */
+public class SlideTiler {
+
+  public static final int DEFAULT_CROP_SIZE = 448;
+  public static final int DEFAULT_OUTPUT_SIZE = 224;
+  public static final long DEFAULT_FLUSH_INTERVAL = 30000;
+
+  private final String slide;
+  private final int series;
+  private final TileWriter writer;
+  private final Path outputDir;
+
+  private int cropWidth = DEFAULT_CROP_SIZE;
+  private int cropHeight = DEFAULT_CROP_SIZE;
+  private int outputSize = DEFAULT_OUTPUT_SIZE;
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  private Path checkpointDir;
+  private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private MemoryBudget budget;
+
+  private Grid grid;
+  private TilingCheckpoint checkpoint;
+  private Result result;
+  private final AtomicInteger next = new AtomicInteger();
+  private final Pending pending = new Pending();
+  private final ConcurrentLinkedQueue<IFormatReader> readers =
+    new ConcurrentLinkedQueue<IFormatReader>();
+
+  /** openBytes target, reused by each thread across crops and slides. */
+  private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>();
+
+  /** Full-size crop buffers; the resized tiles leave for the writer. */
+  private static final MatPool CROPS = new MatPool();
+
+  /**
+   * Crop buffers submitted without resizing, given back by the encoder
+   * threads. The pool keeps its free Mats per thread, so they are moved
+   * into it on a tiler thread, see reclaimCrops().
+   */
+  private static final ConcurrentLinkedQueue<Mat> RETURNED_CROPS =
+    new ConcurrentLinkedQueue<Mat>();
+  private static final TileWriter.ImageRelease RETURN_CROP =
+    RETURNED_CROPS::add;
+
+  private static final PipelineMetrics METRICS = PipelineMetrics.get();
+
+  /**
+   * @param slide path to the .vsi file
+   * @param series series to tile
+   * @param writer writer to submit tiles to; not closed by the tiler
+   * @param outputDir directory for tile files, ignored if the writer
+   *                  appends to an archive
+   */
+  public SlideTiler(String slide, int series, TileWriter writer,
+    Path outputDir)
+  {
+    this.slide = slide;
+    this.series = series;
+    this.writer = writer;
+    this.outputDir = outputDir;
+  }
+
+  public void setCropSize(int width, int height) {
+    cropWidth = width;
+    cropHeight = height;
+  }
+
+  public void setOutputSize(int outputSize) {
+    this.outputSize = outputSize;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Enable resumable tiling: progress is kept in a checkpoint file in the
+   * given directory and flushed at most every flushInterval milliseconds.
+   */
+  public void setCheckpoint(Path checkpointDir, long flushInterval) {
+    this.checkpointDir = checkpointDir;
+    this.flushInterval = flushInterval;
+  }
+
+  /**
+   * Limit the memory held by crops that have been read but not yet written.
+   * The budget may be shared between tilers.
+   */
+  public void setMemoryBudget(MemoryBudget budget) {
+    this.budget = budget;
+  }
+
+  public String getSlide() {
+    return slide;
+  }
+
+  public Result run()
+    throws FormatException, IOException, InterruptedException
+  {
+    open();
+
+    final List<Throwable> errors = new ArrayList<Throwable>();
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int i=0; i<threads; i++) {
+      Thread t = new Thread(() -> {
+        try {
+          int crop;
+          while ((crop = claim(1)) < grid.count()) {
+            processCrops(crop, crop + 1);
+          }
+        }
+        catch (Throwable e) {
+          synchronized (errors) {
+            errors.add(e);
+          }
+        }
+      }, "slide-tiler-" + i);
+      workers.add(t);
+      t.start();
+    }
+    for (Thread t : workers) {
+      t.join();
+    }
+
+    finish();
+
+    if (!errors.isEmpty()) {
+      Throwable e = errors.get(0);
+      if (e instanceof FormatException) {
+        throw (FormatException) e;
+      }
+      if (e instanceof IOException) {
+        throw (IOException) e;
+      }
+      throw new IOException("Tiling failed for " + slide, e);
+    }
+    return result;
+  }
+
+  /** Read the slide dimensions and load the checkpoint, if any. */
+  public void open() throws FormatException, IOException {
+    IFormatReader reader = openReader();
+    grid = new Grid(reader.getSizeX(), reader.getSizeY(),
+      reader.getRGBChannelCount());
+    readers.add(reader);
+
+    checkpoint = openCheckpoint(grid);
+    result = new Result(grid.count());
+  }
+
+  public int getCropCount() {
+    return grid.count();
+  }
+
+  /**
+   * Claim the next n crops; returns the first claimed index, which is at
+   * least getCropCount() once every crop has been claimed.
+   */
+  public int claim(int n) {
+    return next.getAndAdd(n);
+  }
+
+  public boolean isExhausted() {
+    return next.get() >= grid.count();
+  }
+
+  /**
+   * Process crops [start, end) with a reader borrowed from this tiler's
+   * reader pool; safe to call from several threads at once.
+   */
+  public void processCrops(int start, int end)
+    throws FormatException, IOException, InterruptedException
+  {
+    end = Math.min(end, grid.count());
+    IFormatReader reader = readers.poll();
+    if (reader == null) {
+      reader = openReader();
+    }
+    try {
+      byte[] buf = scratch(cropWidth * cropHeight * grid.channels);
+      for (int crop=start; crop<end; crop++) {
+        if (checkpoint != null && checkpoint.isDone(crop)) {
+          result.skipped.incrementAndGet();
+          continue;
+        }
+        processCrop(reader, crop, buf);
+        if (checkpoint != null) {
+          checkpoint.maybeFlush();
+        }
+      }
+    }
+    finally {
+      readers.add(reader);
+    }
+  }
+
+  /**
+   * Wait for the writer to finish this slide's tiles, write the final
+   * checkpoint and close all readers.
+   */
+  public Result finish() throws IOException, InterruptedException {
+    // tiles still in the writer complete asynchronously; wait for them so
+    // the final checkpoint covers every crop of this run
+    pending.await();
+    if (checkpoint != null) {
+      checkpoint.flush();
+    }
+    IFormatReader reader;
+    while ((reader = readers.poll()) != null) {
+      reader.close();
+    }
+    return result;
+  }
+
+  private void processCrop(IFormatReader reader, int crop, byte[] buf)
+    throws FormatException, IOException, InterruptedException
+  {
+    int x = grid.xStart + (crop % grid.cols) * cropWidth;
+    int y = grid.yStart + (crop / grid.cols) * cropHeight;
+    int width = Math.min(cropWidth, grid.xEnd - x);
+    int height = Math.min(cropHeight, grid.yEnd - y);
+    final int length = width * height * grid.channels;
+
+    if (budget != null) {
+      budget.acquire(length);
+    }
+    Mat full = null;
+    Mat image = null;
+    boolean submitted = false;
+    try {
+      long t = METRICS.start();
+      byte[] pixels = reader.openBytes(0, buf, x, y, width, height);
+      METRICS.stop(PipelineMetrics.Stage.READ, t);
+      METRICS.increment(PipelineMetrics.Counter.CROPS_READ);
+      METRICS.add(PipelineMetrics.Counter.BYTES_READ, length);
+
+      reclaimCrops();
+      full = CROPS.acquire(height, width, CvType.CV_8UC(grid.channels));
+      full.put(0, 0, pixels, 0, length);
+
+      image = full;
+      if (width != outputSize || height != outputSize) {
+        image = new Mat();
+        t = METRICS.start();
+        Imgproc.resize(full, image, new Size(outputSize, outputSize), 0, 0,
+          Imgproc.INTER_LANCZOS4);
+        METRICS.stop(PipelineMetrics.Stage.RESIZE, t);
+      }
+
+      if (isRejected(image)) {
+        result.rejected.incrementAndGet();
+        if (checkpoint != null) {
+          checkpoint.markDone(crop);
+        }
+        return;
+      }
+
+      // openBytes returns RGB, imencode expects BGR
+      t = METRICS.start();
+      Imgproc.cvtColor(image, image, Imgproc.COLOR_RGB2BGR);
+      METRICS.stop(PipelineMetrics.Stage.CONVERT, t);
+
+      final int index = crop;
+      TileWriter.Completion done = written -> {
+        if (written) {
+          result.written.incrementAndGet();
+          if (checkpoint != null) {
+            checkpoint.markDone(index);
+          }
+        }
+        else {
+          result.failed.incrementAndGet();
+        }
+        if (budget != null) {
+          budget.release(length);
+        }
+        pending.decrement();
+      };
+
+      // counted before submitting, as the completion may run before
+      // submit returns; a tile the writer refused never completes
+      pending.increment();
+      TileWriter.ImageRelease release = image == full ? RETURN_CROP : null;
+      try {
+        if (writer.getArchive() != null) {
+          writer.submit(image, new TileKey(slide, x, y, series), done,
+            release);
+        }
+        else {
+          writer.submit(image,
+            outputDir.resolve("tile_" + x + "_" + y + ".tif"), done,
+            release);
+        }
+      }
+      catch (InterruptedException | RuntimeException e) {
+        pending.decrement();
+        throw e;
+      }
+      submitted = true;
+    }
+    finally {
+      // once submitted, the image and its share of the budget belong to
+      // the writer
+      if (!submitted && image != null && image != full) {
+        image.release();
+      }
+      if (full != null && (!submitted || image != full)) {
+        CROPS.release(full);
+      }
+      if (!submitted && budget != null) {
+        budget.release(length);
+      }
+    }
+  }
+
+  /** Background and off-stain filters, timed and counted separately. */
+  private static boolean isRejected(Mat image) {
+    long t = METRICS.start();
+    boolean white = TileFilters.isMostlyWhite(image);
+    METRICS.stop(PipelineMetrics.Stage.FILTER_WHITE, t);
+    if (white) {
+      METRICS.increment(PipelineMetrics.Counter.REJECTED_WHITE);
+      return true;
+    }
+    t = METRICS.start();
+    boolean color = TileFilters.isMostlyGreenOrBlue(image);
+    METRICS.stop(PipelineMetrics.Stage.FILTER_COLOR, t);
+    if (color) {
+      METRICS.increment(PipelineMetrics.Counter.REJECTED_GREEN_OR_BLUE);
+    }
+    return color;
+  }
+
+  private static void reclaimCrops() {
+    Mat m;
+    while ((m = RETURNED_CROPS.poll()) != null) {
+      CROPS.release(m);
+    }
+  }
+
+  private static byte[] scratch(int size) {
+    byte[] buf = SCRATCH.get();
+    if (buf == null || buf.length < size) {
+      buf = new byte[size];
+      SCRATCH.set(buf);
+    }
+    return buf;
+  }
+
+  private IFormatReader openReader() throws FormatException, IOException {
+    IFormatReader reader = new ImageReader();
+    reader.setId(slide);
+    reader.setSeries(series);
+    return reader;
+  }
+
+  private TilingCheckpoint openCheckpoint(Grid grid) throws IOException {
+    if (checkpointDir == null) {
+      return null;
+    }
+    long geometry = TilingCheckpoint.geometryHash(grid.sizeX, grid.sizeY,
+      grid.xStart, grid.yStart, grid.xEnd, grid.yEnd,
+      cropWidth, cropHeight, outputSize);
+    TilingCheckpoint checkpoint = new TilingCheckpoint(
+      TilingCheckpoint.pathFor(checkpointDir, slide, series), geometry,
+      grid.count(), flushInterval);
+
+    if (writer.getArchive() != null) {
+      checkpoint.setBarrier(writer.getArchive());
+    }
+    else {
+      writer.setSyncFiles(true);
+    }
+    return checkpoint;
+  }
+
+  /** Crop grid over the central region, discarding 1/4 of each edge. */
+  private class Grid {
+    final int sizeX, sizeY, channels;
+    final int xStart, yStart, xEnd, yEnd;
+    final int cols, rows;
+
+    Grid(int sizeX, int sizeY, int channels) {
+      this.sizeX = sizeX;
+      this.sizeY = sizeY;
+      this.channels = channels;
+      xStart = sizeX / 4;
+      yStart = sizeY / 4;
+      xEnd = sizeX - sizeX / 4;
+      yEnd = sizeY - sizeY / 4;
+      cols = (xEnd - xStart + cropWidth - 1) / cropWidth;
+      rows = (yEnd - yStart + cropHeight - 1) / cropHeight;
+    }
+
+    int count() {
+      return cols * rows;
+    }
+  }
+
+  /** Tiles submitted to the writer whose completion has not been seen. */
+  private static class Pending {
+    private int count = 0;
+
+    synchronized void increment() {
+      count++;
+    }
+
+    synchronized void decrement() {
+      if (--count == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void await() throws InterruptedException {
+      while (count > 0) {
+        wait();
+      }
+    }
+  }
+
+  public static class Result {
+    public final int crops;
+    public final AtomicLong written = new AtomicLong();
+    public final AtomicLong rejected = new AtomicLong();
+    public final AtomicLong skipped = new AtomicLong();
+    public final AtomicLong failed = new AtomicLong();
+
+    Result(int crops) {
+      this.crops = crops;
+    }
+
+    @Override
+    public String toString() {
+      return "crops=" + crops + " written=" + written.get() +
+        " rejected=" + rejected.get() + " skipped=" + skipped.get() +
+        " failed=" + failed.get();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      System.err.println(
+        "Usage: SlideTiler <slide.vsi> <series> <output dir> [checkpoint dir]");
+      System.exit(1);
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    long start = System.nanoTime();
+    METRICS.registerMBean();
+    METRICS.startLogging(60000, System.out);
+    try (TileWriter writer = new TileWriter(".tif", threads, 2)) {
+      SlideTiler tiler = new SlideTiler(args[0], Integer.parseInt(args[1]),
+        writer, Paths.get(args[2]));
+      if (args.length > 3) {
+        tiler.setCheckpoint(Paths.get(args[3]), DEFAULT_FLUSH_INTERVAL);
+      }
+      System.out.println(tiler.run());
+      System.out.println(writer.getStats());
+      System.out.println("crop pool " + CROPS);
+      System.out.println("filter pool " + TileFilters.getPool());
+    }
+    METRICS.stopLogging();
+    System.out.println(METRICS);
+    System.out.println("Elapsed time: " +
+      (System.nanoTime() - start) / 1e9 + "s");
+  }
+}
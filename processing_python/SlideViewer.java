@@ -0,0 +1,195 @@
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.highgui.HighGui;
+import org.opencv.highgui.ImageWindow;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Pan/zoom viewer for whole slides in a HighGui window, so a slide can be
+ * checked without dumping its tiles to disk first.
+ *
+ * Only the visible part of the pyramid level matching the zoom is drawn
+ * (see ViewportRenderer); tiles load in the background into a bounded
+ * TileCache.  Keys: arrows or WASD pan, + and - zoom, 0 fits the slide,
+ * Q or Escape quits.
+ *
+ * With --render the viewer runs headless: it renders one viewport, waits
+ * for its tiles and writes it to an image file.  Files other than .vsi are
+ * read whole with imread and shown through a MatTileSource.
+ *
+ * Usage: SlideViewer <slide.vsi> [series]
+ *        SlideViewer <slide.vsi> <series> --render <out.png> <width>
+ *          <height> <center x> <center y> <scale>
+ */
+public class SlideViewer {
+
+  public static final int DEFAULT_CACHE_TILES = 256;
+  public static final int DEFAULT_LOADERS = 4;
+  public static final int WINDOW_WIDTH = 1280;
+  public static final int WINDOW_HEIGHT = 800;
+
+  private static final String WINDOW = "SlideViewer";
+  private static final int FRAME_MILLIS = 15;
+
+  private final TileCache cache;
+  private final ViewportRenderer renderer;
+  private final Viewport view;
+  private final int slideWidth;
+  private final int slideHeight;
+
+  public SlideViewer(TileCache cache, int width, int height) {
+    this.cache = cache;
+    this.renderer = new ViewportRenderer(cache);
+    TileSource source = cache.getSource();
+    slideWidth = source.getWidth(0);
+    slideHeight = source.getHeight(0);
+    view = Viewport.fit(width, height, slideWidth, slideHeight);
+  }
+
+  public Viewport getViewport() {
+    return view;
+  }
+
+  /**
+   * Renders the viewport, waiting up to timeoutMillis for its tiles.
+   *
+   * @return true if every tile arrived in time
+   */
+  public boolean renderComplete(Mat dst, long timeoutMillis)
+    throws InterruptedException
+  {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (!renderer.render(view, dst)) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+
+  /** Shows the slide until the window is closed or Q is pressed. */
+  public void show() {
+    Mat frame = new Mat();
+    boolean dirty = true;
+    boolean complete = false;
+    while (true) {
+      // redraw when the view moved or tiles arrived for an incomplete view
+      if (dirty || (!complete && !cache.isIdle())) {
+        complete = renderer.render(view, frame);
+        dirty = false;
+      }
+      // imshow every frame: waitKey closes windows that were not shown
+      HighGui.imshow(WINDOW, frame);
+      int key = HighGui.waitKey(FRAME_MILLIS);
+      ImageWindow win = HighGui.windows.get(WINDOW);
+      if (win != null && win.frame != null && !win.frame.isShowing()) {
+        break;
+      }
+      if (key == KeyEvent.VK_Q || key == KeyEvent.VK_ESCAPE) {
+        break;
+      }
+      dirty = handleKey(key);
+    }
+    HighGui.destroyAllWindows();
+    frame.release();
+  }
+
+  /** @return true if the key changed the view */
+  private boolean handleKey(int key) {
+    double step = Math.min(view.width, view.height) / 4.0;
+    switch (key) {
+    case KeyEvent.VK_LEFT:
+    case KeyEvent.VK_A:
+      view.pan(-step, 0);
+      break;
+    case KeyEvent.VK_RIGHT:
+    case KeyEvent.VK_D:
+      view.pan(step, 0);
+      break;
+    case KeyEvent.VK_UP:
+    case KeyEvent.VK_W:
+      view.pan(0, -step);
+      break;
+    case KeyEvent.VK_DOWN:
+    case KeyEvent.VK_S:
+      view.pan(0, step);
+      break;
+    case KeyEvent.VK_PLUS:
+    case KeyEvent.VK_EQUALS:
+    case KeyEvent.VK_ADD:
+      view.zoom(2);
+      break;
+    case KeyEvent.VK_MINUS:
+    case KeyEvent.VK_SUBTRACT:
+      view.zoom(0.5);
+      break;
+    case KeyEvent.VK_0:
+      Viewport fit = Viewport.fit(view.width, view.height, slideWidth,
+        slideHeight);
+      view.centerX = fit.centerX;
+      view.centerY = fit.centerY;
+      view.scale = fit.scale;
+      break;
+    default:
+      return false;
+    }
+    double fitScale = Math.min((double) view.width / slideWidth,
+      (double) view.height / slideHeight);
+    view.clamp(slideWidth, slideHeight, Math.min(fitScale, 1) / 2, 8);
+    return true;
+  }
+
+  /**
+   * Opens a slide with Bio-Formats, or any other image with imread, e.g.
+   * to render a viewport of a tile or mask.
+   */
+  private static TileSource open(String path, int series) throws Exception {
+    if (path.toLowerCase().endsWith(".vsi")) {
+      return new VsiTileSource(path, series);
+    }
+    Mat image = Imgcodecs.imread(path, Imgcodecs.IMREAD_COLOR);
+    if (image.empty()) {
+      throw new IOException("Cannot read " + path);
+    }
+    return new MatTileSource(path, image, VsiTileSource.DEFAULT_TILE_SIZE);
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1 || (args.length > 2 && args.length != 9)) {
+      System.err.println("Usage: SlideViewer <slide.vsi> [series]");
+      System.err.println("       SlideViewer <slide.vsi> <series> --render " +
+        "<out.png> <width> <height> <center x> <center y> <scale>");
+      System.exit(1);
+    }
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    int series = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+    try (TileSource source = open(args[0], series);
+      TileCache cache = new TileCache(source, DEFAULT_CACHE_TILES,
+        DEFAULT_LOADERS))
+    {
+      if (args.length == 9 && args[2].equals("--render")) {
+        SlideViewer viewer = new SlideViewer(cache, Integer.parseInt(args[4]),
+          Integer.parseInt(args[5]));
+        Viewport view = viewer.getViewport();
+        view.centerX = Double.parseDouble(args[6]);
+        view.centerY = Double.parseDouble(args[7]);
+        view.scale = Double.parseDouble(args[8]);
+        Mat out = new Mat();
+        if (!viewer.renderComplete(out, 60000)) {
+          System.err.println("Timed out waiting for tiles, writing partial view");
+        }
+        Imgcodecs.imwrite(args[3], out);
+        System.out.println(view + " -> " + args[3] + " (" + cache + ")");
+      }
+      else {
+        new SlideViewer(cache, WINDOW_WIDTH, WINDOW_HEIGHT).show();
+        System.out.println(cache);
+      }
+    }
+  }
+}
@@ -0,0 +1,361 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import loci.common.services.DependencyException;
+import loci.common.services.ServiceException;
+import loci.common.services.ServiceFactory;
+import loci.formats.FormatException;
+import loci.formats.FormatTools;
+import loci.formats.MetadataTools;
+import loci.formats.meta.IMetadata;
+import loci.formats.meta.IPyramidStore;
+import loci.formats.out.OMETiffWriter;
+import loci.formats.out.TiffWriter;
+import loci.formats.services.OMEXMLService;
+
+import ome.xml.model.primitives.PositiveInteger;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Generates a synthetic H&E whole slide that Bio-Formats opens like a
+ * scanned one, for load tests and tests of the tilers without patient data.
+ *
+ * Bio-Formats has no cellSens writer, so the slide is a tiled pyramidal
+ * OME-TIFF written with OMETiffWriter: one RGB series whose levels an
+ * ImageReader with unflattened resolutions exposes through setResolution(),
+ * the way SlideTiler and VsiTileSource read .vsi pyramids.
+ *
+ * Tissue is a few smooth sections drawn on a coarse map of the slide, one
+ * of them over the centre that the tilers cut, so every level shows the
+ * same shapes: eosin pink with purple nuclei that shrink with the level, on
+ * a light background.  Tiles are drawn and written one at a time, so slides
+ * of 100k x 100k pixels need no more memory than small ones.
+ *
+ * Usage: SyntheticSlide <out.ome.tif> [width] [height] [options]
+ *
+ *   --tile n           tile size, 512 by default
+ *   --levels n         pyramid levels, by default until a level fits in a tile
+ *   --compression c    raw, jpeg or lzw, jpeg by default
+ *   --seed s           random seed
+ */
+public class SyntheticSlide {
+
+  public static final int MAP_SIZE = 1024;
+
+  // RGB, as Bio-Formats stores and returns the pixels
+  private static final Scalar BACKGROUND = new Scalar(242, 242, 242);
+  private static final Scalar EOSIN = new Scalar(235, 150, 200);
+  private static final Scalar HAEMATOXYLIN = new Scalar(110, 60, 150);
+  private static final int NOISE = 16;
+  // nuclei per million level 0 pixels of tissue
+  private static final double NUCLEI_DENSITY = 1500;
+
+  private final int width;
+  private final int height;
+  private int tileSize = 512;
+  private int levels = 0;
+  private String compression = TiffWriter.COMPRESSION_JPEG;
+  private long seed = 1;
+
+  private Mat map;
+  private double mapScale;
+  private Random random;
+  private Mat noise;
+  private final Mat tileMask = new Mat();
+
+  public SyntheticSlide(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Bad size: " + width + "x" + height);
+    }
+    this.width = width;
+    this.height = height;
+  }
+
+  public void setTileSize(int tileSize) {
+    // TIFF tiles are multiples of 16
+    if (tileSize < 16 || tileSize % 16 != 0) {
+      throw new IllegalArgumentException("Bad tile size: " + tileSize);
+    }
+    this.tileSize = tileSize;
+  }
+
+  /** Number of resolution levels, or 0 to stop at the first one in a tile. */
+  public void setLevels(int levels) {
+    this.levels = levels;
+  }
+
+  /** One of the TiffWriter.COMPRESSION_* names, e.g. "JPEG". */
+  public void setCompression(String compression) {
+    this.compression = compression;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public int getLevels() {
+    if (levels > 0) {
+      return levels;
+    }
+    int n = 1;
+    while (Math.max(width, height) >> (n - 1) > tileSize) {
+      n++;
+    }
+    return n;
+  }
+
+  public int getWidth(int level) {
+    return (width + (1 << level) - 1) >> level;
+  }
+
+  public int getHeight(int level) {
+    return (height + (1 << level) - 1) >> level;
+  }
+
+  /**
+   * Writes the slide, replacing any existing file.
+   *
+   * @return the number of tiles written, over all levels
+   */
+  public int write(String path) throws FormatException, IOException {
+    File file = new File(path);
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Cannot replace " + path);
+    }
+
+    int levelCount = getLevels();
+    IMetadata meta = createMetadata();
+    MetadataTools.populateMetadata(meta, 0, file.getName(), false, "XYCZT",
+      FormatTools.getPixelTypeString(FormatTools.UINT8), width, height, 1, 3,
+      1, 3);
+    for (int level=1; level<levelCount; level++) {
+      ((IPyramidStore) meta).setResolutionSizeX(
+        new PositiveInteger(getWidth(level)), 0, level);
+      ((IPyramidStore) meta).setResolutionSizeY(
+        new PositiveInteger(getHeight(level)), 0, level);
+    }
+
+    random = new Random(seed);
+    map = tissueMap(random);
+    Mat tile = new Mat(tileSize, tileSize, CvType.CV_8UC3);
+    noise = new Mat(tileSize, tileSize, CvType.CV_8UC3);
+    byte[] pixels = new byte[tileSize * tileSize * 3];
+    int tiles = 0;
+    OMETiffWriter writer = new OMETiffWriter();
+    try {
+      writer.setMetadataRetrieve(meta);
+      writer.setBigTiff(true);
+      writer.setInterleaved(true);
+      writer.setWriteSequentially(true);
+      writer.setCompression(compression);
+      writer.setTileSizeX(tileSize);
+      writer.setTileSizeY(tileSize);
+      writer.setId(path);
+
+      for (int level=0; level<levelCount; level++) {
+        writer.setResolution(level);
+        int w = getWidth(level);
+        int h = getHeight(level);
+        for (int y=0; y<h; y+=tileSize) {
+          for (int x=0; x<w; x+=tileSize) {
+            int tw = Math.min(tileSize, w - x);
+            int th = Math.min(tileSize, h - y);
+            renderTile(level, x, y, tile);
+            byte[] buf = pixels;
+            if (tw == tileSize && th == tileSize) {
+              tile.get(0, 0, buf);
+            }
+            else {
+              buf = new byte[tw * th * 3];
+              Mat part = tile.submat(0, th, 0, tw);
+              part.get(0, 0, buf);
+              part.release();
+            }
+            writer.saveBytes(0, buf, x, y, tw, th);
+            tiles++;
+          }
+        }
+      }
+    }
+    finally {
+      writer.close();
+      tile.release();
+      noise.release();
+      map.release();
+      map = null;
+    }
+    return tiles;
+  }
+
+  /**
+   * Draws the tileSize x tileSize RGB tile at (x, y) of a level.  Parts of
+   * the tile past the level edge are drawn too, and cut by the caller.
+   */
+  void renderTile(int level, int x, int y, Mat tile) {
+    tile.setTo(BACKGROUND);
+    // map pixels per tile pixel
+    double scale = (1 << level) * mapScale;
+    int mx0 = (int) Math.floor(x * scale);
+    int my0 = (int) Math.floor(y * scale);
+    int mx1 = Math.min(map.cols(), (int) Math.ceil((x + tileSize) * scale) + 1);
+    int my1 = Math.min(map.rows(), (int) Math.ceil((y + tileSize) * scale) + 1);
+    if (mx0 < mx1 && my0 < my1) {
+      Mat part = map.submat(my0, my1, mx0, mx1);
+      boolean tissue = Core.countNonZero(part) > 0;
+      if (tissue) {
+        // the map area of the tile, scaled to tile pixels
+        Size full = new Size((mx1 - mx0) / scale, (my1 - my0) / scale);
+        Imgproc.resize(part, tileMask, full, 0, 0, Imgproc.INTER_LINEAR);
+      }
+      part.release();
+      if (tissue) {
+        drawTissue(level, (int) Math.round((x * scale - mx0) / scale),
+          (int) Math.round((y * scale - my0) / scale), tile);
+      }
+    }
+    Core.randu(noise, 0, NOISE);
+    Core.subtract(tile, noise, tile);
+  }
+
+  private void drawTissue(int level, int ox, int oy, Mat tile) {
+    int w = Math.min(tileSize, tileMask.cols() - ox);
+    int h = Math.min(tileSize, tileMask.rows() - oy);
+    if (w <= 0 || h <= 0) {
+      return;
+    }
+    Mat mask = tileMask.submat(new Rect(ox, oy, w, h));
+    Mat target = tile.submat(new Rect(0, 0, w, h));
+    Imgproc.threshold(mask, mask, 127, 255, Imgproc.THRESH_BINARY);
+    target.setTo(EOSIN, mask);
+
+    // as many nuclei as a level 0 area, each smaller by the level
+    double tissue = Core.countNonZero(mask) * (double) (1L << (2 * level));
+    int nuclei = (int) Math.min(20000, tissue * NUCLEI_DENSITY / 1e6);
+    double radius = 6.0 / (1 << level);
+    byte[] inside = new byte[1];
+    for (int i=0; i<nuclei; i++) {
+      int px = random.nextInt(w);
+      int py = random.nextInt(h);
+      mask.get(py, px, inside);
+      if (inside[0] == 0) {
+        continue;
+      }
+      int r = Math.max(1,
+        (int) Math.round(radius * (0.6 + 0.8 * random.nextDouble())));
+      Imgproc.circle(target, new Point(px, py), r, HAEMATOXYLIN,
+        Imgproc.FILLED);
+    }
+    mask.release();
+    target.release();
+  }
+
+  /** Tissue sections as smooth blobs on a map of at most MAP_SIZE pixels. */
+  Mat tissueMap(Random random) {
+    mapScale = (double) MAP_SIZE / Math.max(width, height);
+    int mw = Math.max(1, (int) Math.ceil(width * mapScale));
+    int mh = Math.max(1, (int) Math.ceil(height * mapScale));
+    Mat m = new Mat(mh, mw, CvType.CV_8UC1, new Scalar(0));
+    int sections = 2 + random.nextInt(3);
+    for (int i=0; i<sections; i++) {
+      // the first section covers the centre, which the tilers cut
+      double cx = i == 0 ? 0.5 : 0.2 + 0.6 * random.nextDouble();
+      double cy = i == 0 ? 0.5 : 0.2 + 0.6 * random.nextDouble();
+      double ax = i == 0 ? 0.2 : 0.08 + 0.15 * random.nextDouble();
+      double ay = i == 0 ? 0.2 : 0.08 + 0.15 * random.nextDouble();
+      Point center = new Point(mw * cx, mh * cy);
+      Size axes = new Size(mw * ax, mh * ay);
+      Imgproc.ellipse(m, center, axes, random.nextInt(180), 0, 360,
+        new Scalar(255), Imgproc.FILLED);
+      // a vessel or tear through the section
+      Point hole = new Point(
+        center.x + (random.nextDouble() - 0.5) * axes.width,
+        center.y + (random.nextDouble() - 0.5) * axes.height);
+      Imgproc.circle(m, hole,
+        (int) Math.max(1, Math.min(axes.width, axes.height) / 5),
+        new Scalar(0), Imgproc.FILLED);
+    }
+    // ragged edges
+    Mat edges = new Mat(mh, mw, CvType.CV_8UC1);
+    Core.randu(edges, 0, 256);
+    Imgproc.GaussianBlur(edges, edges, new Size(0, 0), 3);
+    Imgproc.GaussianBlur(m, m, new Size(0, 0), 4);
+    Core.addWeighted(m, 1, edges, 0.6, -70, m);
+    Imgproc.threshold(m, m, 127, 255, Imgproc.THRESH_BINARY);
+    edges.release();
+    return m;
+  }
+
+  private static IMetadata createMetadata() throws FormatException {
+    try {
+      ServiceFactory factory = new ServiceFactory();
+      OMEXMLService service = factory.getInstance(OMEXMLService.class);
+      return service.createOMEXMLMetadata();
+    }
+    catch (DependencyException | ServiceException e) {
+      throw new FormatException("Cannot create OME-XML metadata", e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: SyntheticSlide <out.ome.tif> [width] [height]" +
+        " [--tile n] [--levels n] [--compression raw|jpeg|lzw] [--seed s]");
+      System.exit(1);
+    }
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+
+    int width = 20000;
+    int height = 15000;
+    int tileSize = 512;
+    int levels = 0;
+    String compression = TiffWriter.COMPRESSION_JPEG;
+    long seed = 1;
+    int positional = 0;
+    for (int i=1; i<args.length; i++) {
+      String a = args[i];
+      if (a.equals("--tile")) {
+        tileSize = Integer.parseInt(args[++i]);
+      }
+      else if (a.equals("--levels")) {
+        levels = Integer.parseInt(args[++i]);
+      }
+      else if (a.equals("--compression")) {
+        String c = args[++i].toLowerCase();
+        compression = c.equals("raw") ? TiffWriter.COMPRESSION_UNCOMPRESSED :
+          c.equals("lzw") ? TiffWriter.COMPRESSION_LZW :
+          TiffWriter.COMPRESSION_JPEG;
+      }
+      else if (a.equals("--seed")) {
+        seed = Long.parseLong(args[++i]);
+      }
+      else if (positional == 0) {
+        width = Integer.parseInt(a);
+        height = width;
+        positional++;
+      }
+      else {
+        height = Integer.parseInt(a);
+      }
+    }
+
+    SyntheticSlide slide = new SyntheticSlide(width, height);
+    slide.setTileSize(tileSize);
+    slide.setLevels(levels);
+    slide.setCompression(compression);
+    slide.setSeed(seed);
+    long start = System.nanoTime();
+    int tiles = slide.write(args[0]);
+    System.out.printf("%s: %dx%d, %d levels, %d tiles in %.1f s%n", args[0],
+      width, height, slide.getLevels(), tiles,
+      (System.nanoTime() - start) / 1e9);
+  }
+}
@@ -0,0 +1,127 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Random access to the tiles of an archive written by TileArchiveWriter.
+ *
+ * Index layout (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int magic ("TARC"), int version, int segmentCount, int tileCount
+ *   tileCount x { UTF slide, int x, int y, int level,
+ *                 int segment, long offset, int length }
+ * </pre>
+ * Every segment is memory-mapped read-only when the archive is opened, so
+ * looking up a tile is a hash lookup plus a buffer slice.  The reader is
+ * safe for concurrent use: each call returns an independent view.
+ */
+public class TileArchiveReader implements AutoCloseable {
+
+  private final MappedByteBuffer[] segments;
+  private final Map<TileKey, long[]> index;
+
+  public TileArchiveReader(Path directory, String name) throws IOException {
+    Path indexFile = TileArchiveWriter.indexPath(directory, name);
+    try (DataInputStream in = new DataInputStream(
+      new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16)))
+    {
+      int magic = in.readInt();
+      if (magic != TileArchiveWriter.INDEX_MAGIC) {
+        throw new IOException("Not a tile archive index: " + indexFile);
+      }
+      int version = in.readInt();
+      if (version != TileArchiveWriter.INDEX_VERSION) {
+        throw new IOException("Unsupported tile archive version: " + version);
+      }
+      int segmentCount = in.readInt();
+      int tileCount = in.readInt();
+
+      segments = new MappedByteBuffer[segmentCount];
+      for (int i=0; i<segmentCount; i++) {
+        Path file = TileArchiveWriter.segmentPath(directory, name, i);
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+          segments[i] = c.map(FileChannel.MapMode.READ_ONLY, 0, c.size());
+        }
+      }
+
+      index = new HashMap<TileKey, long[]>(tileCount * 4 / 3 + 1);
+      for (int i=0; i<tileCount; i++) {
+        TileKey key = new TileKey(in.readUTF(), in.readInt(), in.readInt(),
+          in.readInt());
+        int segment = in.readInt();
+        long offset = in.readLong();
+        int length = in.readInt();
+        if (segment < 0 || segment >= segmentCount ||
+          offset + length > segments[segment].capacity())
+        {
+          throw new IOException("Corrupt index entry for " + key);
+        }
+        index.put(key, new long[] {segment, offset, length});
+      }
+    }
+  }
+
+  public int getTileCount() {
+    return index.size();
+  }
+
+  public Set<TileKey> keys() {
+    return Collections.unmodifiableSet(index.keySet());
+  }
+
+  public boolean contains(TileKey key) {
+    return index.containsKey(key);
+  }
+
+  /**
+   * Return a read-only view of the encoded bytes of the given tile, or null
+   * if the archive does not contain it.  No data is copied.
+   */
+  public ByteBuffer getTile(TileKey key) {
+    long[] entry = index.get(key);
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer view = segments[(int) entry[0]].asReadOnlyBuffer();
+    view.position((int) entry[1]);
+    view.limit((int) (entry[1] + entry[2]));
+    return view.slice();
+  }
+
+  public ByteBuffer getTile(String slide, int x, int y, int level) {
+    return getTile(new TileKey(slide, x, y, level));
+  }
+
+  /** Copy the encoded bytes of the given tile into a new array. */
+  public byte[] readTile(TileKey key) {
+    ByteBuffer view = getTile(key);
+    if (view == null) {
+      return null;
+    }
+    byte[] data = new byte[view.remaining()];
+    view.get(data);
+    return data;
+  }
+
+  /**
+   * Mapped segments are unmapped by the garbage collector; close only drops
+   * the references held by this reader.
+   */
+  @Override
+  public void close() {
+    index.clear();
+    for (int i=0; i<segments.length; i++) {
+      segments[i] = null;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends encoded tiles to a small number of large segment files instead of
+ * writing one tile_X_Y.tif file per crop.
+ *
+ * An archive named "cohort" in directory D consists of
+ * <pre>
+ *   D/cohort.00000.seg, D/cohort.00001.seg, ...   concatenated tile bytes
+ *   D/cohort.idx                                   (slide, x, y, level) index
+ * </pre>
+ * The index is written by flush() and when the archive is closed; see
+ * TileArchiveReader for the layout.  A new segment is started whenever the
+ * current one would grow past the segment size limit, which is capped so
+ * that every segment can be memory-mapped as a single buffer.
+ *
+ * Appends are synchronized, so one writer can be shared by several threads.
+ *
+ * A writer opened with resume=true keeps the tiles listed in an existing
+ * index and continues in a fresh segment; segment files written after the
+ * last flush are not in the index and get overwritten.
+ */
+public class TileArchiveWriter implements AutoCloseable, Flushable {
+
+  static final int INDEX_MAGIC = 0x54415243; // "TARC"
+  static final int INDEX_VERSION = 1;
+
+  static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+  static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+  private final Path directory;
+  private final String name;
+  private final long segmentSize;
+
+  private final List<Entry> entries = new ArrayList<Entry>();
+
+  private FileChannel segment;
+  private int segmentIndex = -1;
+  private long segmentOffset = 0;
+  private boolean closed = false;
+
+  public TileArchiveWriter(Path directory, String name, long segmentSize,
+    boolean resume) throws IOException
+  {
+    if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+      throw new IllegalArgumentException(
+        "Segment size must be in (0, " + MAX_SEGMENT_SIZE + "]: " + segmentSize);
+    }
+    this.directory = directory;
+    this.name = name;
+    this.segmentSize = segmentSize;
+    Files.createDirectories(directory);
+    if (resume && Files.exists(indexPath(directory, name))) {
+      readIndex();
+    }
+  }
+
+  public TileArchiveWriter(Path directory, String name, long segmentSize)
+    throws IOException
+  {
+    this(directory, name, segmentSize, false);
+  }
+
+  public TileArchiveWriter(Path directory, String name) throws IOException {
+    this(directory, name, DEFAULT_SEGMENT_SIZE, false);
+  }
+
+  /** Append one encoded tile. */
+  public void append(TileKey key, byte[] data, int offset, int length)
+    throws IOException
+  {
+    append(key, ByteBuffer.wrap(data, offset, length));
+  }
+
+  /** Append the remaining bytes of the given buffer as one tile. */
+  public synchronized void append(TileKey key, ByteBuffer data)
+    throws IOException
+  {
+    if (closed) {
+      throw new IllegalStateException("Tile archive is closed");
+    }
+    int length = data.remaining();
+    if (length > segmentSize) {
+      throw new IllegalArgumentException(
+        "Tile " + key + " (" + length + " bytes) exceeds the segment size");
+    }
+    if (segment == null || segmentOffset + length > segmentSize) {
+      nextSegment();
+    }
+
+    long offset = segmentOffset;
+    while (data.hasRemaining()) {
+      segment.write(data);
+    }
+    segmentOffset += length;
+    entries.add(new Entry(key, segmentIndex, offset, length));
+  }
+
+  public synchronized int getTileCount() {
+    return entries.size();
+  }
+
+  /**
+   * Force the current segment to disk and rewrite the index to cover every
+   * tile appended so far. Segments are forced before the index is renamed
+   * into place, so a readable index never refers to bytes that did not
+   * reach the disk.
+   */
+  @Override
+  public synchronized void flush() throws IOException {
+    if (closed) {
+      return;
+    }
+    if (segment != null) {
+      segment.force(false);
+    }
+    writeIndex();
+  }
+
+  /** Flush all segments to disk and write the index. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (segment != null) {
+      segment.force(true);
+      segment.close();
+      segment = null;
+    }
+    writeIndex();
+  }
+
+  private void writeIndex() throws IOException {
+    Path index = indexPath(directory, name);
+    Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)))
+    {
+      out.writeInt(INDEX_MAGIC);
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(segmentIndex + 1);
+      out.writeInt(entries.size());
+      for (Entry e : entries) {
+        out.writeUTF(e.key.slide);
+        out.writeInt(e.key.x);
+        out.writeInt(e.key.y);
+        out.writeInt(e.key.level);
+        out.writeInt(e.segment);
+        out.writeLong(e.offset);
+        out.writeInt(e.length);
+      }
+    }
+    try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+      c.force(true);
+    }
+    Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void readIndex() throws IOException {
+    Path index = indexPath(directory, name);
+    try (DataInputStream in = new DataInputStream(
+      new BufferedInputStream(Files.newInputStream(index), 1 << 16)))
+    {
+      if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+        throw new IOException("Not a tile archive index: " + index);
+      }
+      int segmentCount = in.readInt();
+      int tileCount = in.readInt();
+      for (int i=0; i<tileCount; i++) {
+        TileKey key = new TileKey(in.readUTF(), in.readInt(), in.readInt(),
+          in.readInt());
+        entries.add(new Entry(key, in.readInt(), in.readLong(), in.readInt()));
+      }
+      // the next append opens segment number segmentCount
+      segmentIndex = segmentCount - 1;
+    }
+  }
+
+  private void nextSegment() throws IOException {
+    if (segment != null) {
+      segment.force(false);
+      segment.close();
+    }
+    segmentIndex++;
+    segmentOffset = 0;
+    segment = FileChannel.open(segmentPath(directory, name, segmentIndex),
+      StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  static Path segmentPath(Path directory, String name, int segment) {
+    return directory.resolve(String.format("%s.%05d.seg", name, segment));
+  }
+
+  static Path indexPath(Path directory, String name) {
+    return directory.resolve(name + ".idx");
+  }
+
+  private static class Entry {
+    final TileKey key;
+    final int segment;
+    final long offset;
+    final int length;
+
+    Entry(TileKey key, int segment, long offset, int length) {
+      this.key = key;
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
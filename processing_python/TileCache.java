@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+
+/**
+ * Bounded LRU cache of decoded tiles, filled asynchronously by loader
+ * threads.
+ *
+ * get() never blocks: a missing tile is queued for loading and null is
+ * returned, so the caller can draw something else meanwhile.  The newest
+ * requests are loaded first and the oldest are dropped once more than
+ * maxQueued are waiting, which keeps loading focused on what is visible
+ * while the user pans.
+ *
+ * Loaded tiles reach the cache in drain(), so all cache access (and the
+ * release of evicted tiles) happens on the one thread that calls get() and
+ * drain(), normally the render thread.  Only request queueing is shared with
+ * the loaders.
+ */
+public class TileCache implements AutoCloseable {
+
+  public static final int DEFAULT_MAX_QUEUED = 64;
+
+  private static final PipelineMetrics METRICS = PipelineMetrics.get();
+
+  private final TileSource source;
+  private final int capacity;
+  private final int maxQueued;
+
+  private final LinkedHashMap<TileKey, Mat> tiles;
+  private final LinkedBlockingDeque<TileKey> queue =
+    new LinkedBlockingDeque<TileKey>();
+  private final Set<TileKey> requested = new HashSet<TileKey>();
+  private final Set<TileKey> failed = new HashSet<TileKey>();
+  private final ConcurrentLinkedQueue<Loaded> arrivals =
+    new ConcurrentLinkedQueue<Loaded>();
+  private final List<Thread> loaders = new ArrayList<Thread>();
+  private volatile boolean closed = false;
+
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * @param capacity number of tiles kept in memory
+   * @param threads number of loader threads
+   */
+  public TileCache(TileSource source, int capacity, int threads) {
+    this(source, capacity, threads, DEFAULT_MAX_QUEUED);
+  }
+
+  public TileCache(TileSource source, int capacity, int threads,
+    int maxQueued)
+  {
+    this.source = source;
+    this.capacity = capacity;
+    this.maxQueued = maxQueued;
+    this.tiles = new LinkedHashMap<TileKey, Mat>(16, 0.75f, true);
+    for (int i=0; i<threads; i++) {
+      Thread t = new Thread(this::load, "tile-loader-" + i);
+      t.setDaemon(true);
+      loaders.add(t);
+      t.start();
+    }
+  }
+
+  public TileSource getSource() {
+    return source;
+  }
+
+  /** Key of tile (tx, ty) of a level; x and y are its level pixel origin. */
+  public TileKey key(int level, int tx, int ty) {
+    int size = source.getTileSize();
+    return new TileKey(source.getName(), tx * size, ty * size, level);
+  }
+
+  /** Returns the tile if cached, otherwise queues it and returns null. */
+  public Mat get(TileKey key) {
+    Mat tile = tiles.get(key);
+    if (tile != null) {
+      hits++;
+      METRICS.increment(PipelineMetrics.Counter.CACHE_HITS);
+      return tile;
+    }
+    misses++;
+    METRICS.increment(PipelineMetrics.Counter.CACHE_MISSES);
+    request(key);
+    return null;
+  }
+
+  /** Returns the tile if cached, without queueing it otherwise. */
+  public Mat peek(TileKey key) {
+    return tiles.get(key);
+  }
+
+  /**
+   * Queues a tile ahead of earlier requests, unless it is cached, loading
+   * or failed to load before.
+   */
+  public void request(TileKey key) {
+    if (tiles.containsKey(key) || failed.contains(key)) {
+      return;
+    }
+    synchronized (requested) {
+      if (!requested.add(key)) {
+        // already waiting: move it to the front
+        if (queue.remove(key)) {
+          queue.offerFirst(key);
+        }
+        return;
+      }
+      queue.offerFirst(key);
+      while (queue.size() > maxQueued) {
+        TileKey stale = queue.pollLast();
+        if (stale == null) {
+          break;
+        }
+        requested.remove(stale);
+      }
+    }
+  }
+
+  /**
+   * Moves the tiles loaded since the last call into the cache, evicting
+   * the least recently used ones beyond the capacity.
+   *
+   * @return the number of tiles added
+   */
+  public int drain() {
+    int added = 0;
+    Loaded loaded;
+    while ((loaded = arrivals.poll()) != null) {
+      synchronized (requested) {
+        requested.remove(loaded.key);
+      }
+      if (loaded.tile == null) {
+        failed.add(loaded.key);
+        continue;
+      }
+      Mat old = tiles.put(loaded.key, loaded.tile);
+      if (old != null) {
+        old.release();
+      }
+      added++;
+    }
+    Iterator<Mat> it = tiles.values().iterator();
+    while (tiles.size() > capacity && it.hasNext()) {
+      it.next().release();
+      it.remove();
+    }
+    return added;
+  }
+
+  /** True when no tile is waiting or loading. */
+  public boolean isIdle() {
+    synchronized (requested) {
+      return requested.isEmpty() && arrivals.isEmpty();
+    }
+  }
+
+  public int size() {
+    return tiles.size();
+  }
+
+  /**
+   * Stop the loader threads and release every cached tile. The loaders
+   * are always waited for, since they may still hand over a tile; if the
+   * calling thread is interrupted meanwhile, its interrupt status is set
+   * again on return.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (Thread t : loaders) {
+      t.interrupt();
+    }
+    boolean interrupted = false;
+    for (Thread t : loaders) {
+      while (true) {
+        try {
+          t.join();
+          break;
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    Loaded loaded;
+    while ((loaded = arrivals.poll()) != null) {
+      if (loaded.tile != null) {
+        loaded.tile.release();
+      }
+    }
+    for (Mat tile : tiles.values()) {
+      tile.release();
+    }
+    tiles.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "tiles=" + tiles.size() + "/" + capacity + " hits=" + hits +
+      " misses=" + misses + " failures=" + failed.size();
+  }
+
+  private void load() {
+    while (!closed) {
+      TileKey key;
+      try {
+        key = queue.pollFirst(100, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        return;
+      }
+      if (key == null) {
+        continue;
+      }
+      int size = source.getTileSize();
+      Mat tile = null;
+      try {
+        tile = source.readTile(key.level, key.x / size, key.y / size);
+      }
+      catch (IOException | RuntimeException e) {
+        System.err.println("Cannot load " + key + ": " + e);
+      }
+      arrivals.add(new Loaded(key, tile));
+    }
+  }
+
+  private static class Loaded {
+    final TileKey key;
+    final Mat tile;
+
+    Loaded(TileKey key, Mat tile) {
+      this.key = key;
+      this.tile = tile;
+    }
+  }
+}
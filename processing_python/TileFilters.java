@@ -0,0 +1,107 @@
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Background rejection filters for RGB tiles, ported from
+ * is_mostly_white and is_mostly_green_or_blue in parallel_vsi_crop_image.cpp.
+ *
+ * The single-channel temporaries come from a MatPool, so filtering a stream
+ * of same-sized tiles does not allocate native memory once warmed up.
+ */
+public final class TileFilters {
+
+  public static final int WHITE_THRESHOLD = 230;
+  public static final double WHITE_RATIO = 0.5;
+
+  public static final int COLOR_THRESHOLD = 100;
+  public static final double COLOR_RATIO = 0.5;
+  public static final int COLOR_MARGIN = 10;
+
+  private static final MatPool POOL = new MatPool();
+
+  private TileFilters() { }
+
+  /** Pool of the filter temporaries, e.g. to report its hit rate. */
+  public static MatPool getPool() {
+    return POOL;
+  }
+
+  public static boolean isMostlyWhite(Mat rgb) {
+    return isMostlyWhite(rgb, WHITE_THRESHOLD, WHITE_RATIO);
+  }
+
+  public static boolean isMostlyWhite(Mat rgb, int threshold, double whiteRatio)
+  {
+    Mat gray = POOL.acquire(rgb.rows(), rgb.cols(), CvType.CV_8UC1);
+    Mat mask = POOL.acquire(rgb.rows(), rgb.cols(), CvType.CV_8UC1);
+    try {
+      Imgproc.cvtColor(rgb, gray, Imgproc.COLOR_RGB2GRAY);
+      Core.compare(gray, new Scalar(threshold), mask, Core.CMP_GT);
+      int white = Core.countNonZero(mask);
+      return white > whiteRatio * rgb.total();
+    }
+    finally {
+      POOL.release(gray);
+      POOL.release(mask);
+    }
+  }
+
+  public static boolean isMostlyGreenOrBlue(Mat rgb) {
+    return isMostlyGreenOrBlue(rgb, COLOR_THRESHOLD, COLOR_RATIO, COLOR_MARGIN);
+  }
+
+  public static boolean isMostlyGreenOrBlue(Mat rgb, int threshold,
+    double colorRatio, int margin)
+  {
+    int rows = rgb.rows();
+    int cols = rgb.cols();
+    Mat r = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat g = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat b = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat green = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat blue = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat tmp = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    Mat cmp = POOL.acquire(rows, cols, CvType.CV_8UC1);
+    try {
+      Core.extractChannel(rgb, r, 0);
+      Core.extractChannel(rgb, g, 1);
+      Core.extractChannel(rgb, b, 2);
+
+      dominant(g, r, b, threshold, margin, green, tmp, cmp);
+      dominant(b, r, g, threshold, margin, blue, tmp, cmp);
+      Core.bitwise_or(green, blue, green);
+
+      int colorPixels = Core.countNonZero(green);
+      return colorPixels > colorRatio * rgb.total();
+    }
+    finally {
+      POOL.release(r);
+      POOL.release(g);
+      POOL.release(b);
+      POOL.release(green);
+      POOL.release(blue);
+      POOL.release(tmp);
+      POOL.release(cmp);
+    }
+  }
+
+  /**
+   * mask = (c > threshold) & (c > o1 + margin) & (c > o2 + margin),
+   * with saturating addition as in the C++ expression.
+   */
+  private static void dominant(Mat c, Mat o1, Mat o2, int threshold,
+    int margin, Mat mask, Mat tmp, Mat cmp)
+  {
+    Core.compare(c, new Scalar(threshold), mask, Core.CMP_GT);
+    Core.add(o1, new Scalar(margin), tmp);
+    Core.compare(c, tmp, cmp, Core.CMP_GT);
+    Core.bitwise_and(mask, cmp, mask);
+    Core.add(o2, new Scalar(margin), tmp);
+    Core.compare(c, tmp, cmp, Core.CMP_GT);
+    Core.bitwise_and(mask, cmp, mask);
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Identifies one tile in a tile archive: the slide it came from, the pixel
+ * position of its top-left corner and the pyramid level it was read at.
+ */
+public final class TileKey {
+
+  public final String slide;
+  public final int x;
+  public final int y;
+  public final int level;
+
+  public TileKey(String slide, int x, int y, int level) {
+    if (slide == null) {
+      throw new NullPointerException("slide");
+    }
+    this.slide = slide;
+    this.x = x;
+    this.y = y;
+    this.level = level;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TileKey)) {
+      return false;
+    }
+    TileKey k = (TileKey) o;
+    return x == k.x && y == k.y && level == k.level && slide.equals(k.slide);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = slide.hashCode();
+    h = 31 * h + x;
+    h = 31 * h + y;
+    h = 31 * h + level;
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return slide + "[" + level + "]/tile_" + x + "_" + y;
+  }
+}
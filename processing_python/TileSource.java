@@ -0,0 +1,30 @@
+import java.io.IOException;
+
+import org.opencv.core.Mat;
+
+/**
+ * A tiled image pyramid, such as the resolution levels of a slide.
+ *
+ * Level 0 is the full resolution; every level is cut into square tiles of
+ * getTileSize() pixels, the tiles of the last row and column being smaller.
+ * readTile may be called from several threads at once.
+ */
+public interface TileSource extends AutoCloseable {
+
+  /** Name used in tile keys, e.g. the slide path. */
+  String getName();
+
+  int getLevelCount();
+
+  int getWidth(int level);
+
+  int getHeight(int level);
+
+  int getTileSize();
+
+  /** Reads tile (tx, ty) of a level as a new CV_8UC3 BGR Mat. */
+  Mat readTile(int level, int tx, int ty) throws IOException;
+
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,484 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Two-stage tile writer: N encoder threads compress tiles with
+ * Imgcodecs.imencode into pooled MatOfByte buffers, M writer threads copy
+ * the encoded bytes out and write them with FileChannel.
+ *
+ * This replaces the single I/O thread calling cv::imwrite in
+ * parallel_vsi_crop_image.cpp, where encoding and writing share one core.
+ * Tiles either go to one file each or, when the writer is constructed with
+ * a TileArchiveWriter, are appended to that archive.
+ */
+public class TileWriter implements AutoCloseable {
+
+  /** Initial size of each writer's staging buffer; grows on demand. */
+  private static final int INITIAL_WRITE_BUFFER = 1 << 20;
+
+  private static final PipelineMetrics METRICS = PipelineMetrics.get();
+
+  private static final EncodeTask POISON_ENCODE =
+    new EncodeTask(null, null, null, null, null);
+  private static final WriteTask POISON_WRITE =
+    new WriteTask(null, null, null, null);
+
+  private final String extension;
+  private final MatOfInt params;
+  private final TileArchiveWriter archive;
+
+  private final BlockingQueue<EncodeTask> encodeQueue;
+  private final BlockingQueue<WriteTask> writeQueue;
+  private final BlockingQueue<MatOfByte> bufferPool;
+
+  private final List<Thread> encoders = new ArrayList<Thread>();
+  private final List<Thread> writers = new ArrayList<Thread>();
+
+  private final Stats stats = new Stats();
+  /**
+   * Held for reading by submitters from the closed check until their task is
+   * queued, and for writing by close() to set closed, so no task can be
+   * queued behind the stop markers.
+   */
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed = false;
+  private volatile boolean syncFiles = false;
+
+  /**
+   * @param extension file extension passed to imencode, e.g. ".tif"
+   * @param params imencode parameters, or null for codec defaults
+   * @param encoderCount number of encoder threads
+   * @param writerCount number of writer threads
+   * @param queueCapacity maximum number of tiles waiting in each stage
+   * @param archive archive to append tiles to, or null to write one file
+   *                per tile
+   */
+  public TileWriter(String extension, MatOfInt params, int encoderCount,
+    int writerCount, int queueCapacity, TileArchiveWriter archive)
+  {
+    if (encoderCount < 1 || writerCount < 1) {
+      throw new IllegalArgumentException(
+        "Encoder and writer counts must be positive");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be positive");
+    }
+    this.extension = extension;
+    this.params = params == null ? new MatOfInt() : params;
+    this.archive = archive;
+
+    encodeQueue = new ArrayBlockingQueue<EncodeTask>(queueCapacity);
+    writeQueue = new ArrayBlockingQueue<WriteTask>(queueCapacity);
+
+    // every encoded tile in flight holds one buffer, so the pool is sized to
+    // cover the write queue plus one tile per encoder and writer thread
+    int poolSize = queueCapacity + encoderCount + writerCount;
+    bufferPool = new ArrayBlockingQueue<MatOfByte>(poolSize);
+    for (int i=0; i<poolSize; i++) {
+      bufferPool.add(new MatOfByte());
+    }
+
+    for (int i=0; i<encoderCount; i++) {
+      Thread t = new Thread(this::encodeLoop, "tile-encoder-" + i);
+      t.setDaemon(true);
+      encoders.add(t);
+      t.start();
+    }
+    for (int i=0; i<writerCount; i++) {
+      Thread t = new Thread(this::writeLoop, "tile-writer-" + i);
+      t.setDaemon(true);
+      writers.add(t);
+      t.start();
+    }
+  }
+
+  public TileWriter(String extension, MatOfInt params, int encoderCount,
+    int writerCount, int queueCapacity)
+  {
+    this(extension, params, encoderCount, writerCount, queueCapacity, null);
+  }
+
+  public TileWriter(String extension, int encoderCount, int writerCount) {
+    this(extension, null, encoderCount, writerCount, 256);
+  }
+
+  /**
+   * Queue a tile for encoding. The writer takes ownership of the image and
+   * releases it once it has been encoded; blocks while the encode queue is
+   * full.
+   */
+  public void submit(Mat image, Path file) throws InterruptedException {
+    submit(image, file, null);
+  }
+
+  /**
+   * As submit(Mat, Path), notifying the given completion once the tile has
+   * been written or has failed.
+   */
+  public void submit(Mat image, Path file, Completion done)
+    throws InterruptedException
+  {
+    submit(image, file, done, null);
+  }
+
+  /**
+   * As submit(Mat, Path, Completion), handing the image to the given
+   * release callback instead of releasing it once it has been encoded,
+   * e.g. to give a pooled Mat back to its pool.
+   */
+  public void submit(Mat image, Path file, Completion done,
+    ImageRelease release) throws InterruptedException
+  {
+    if (archive != null) {
+      throw new IllegalStateException("TileWriter appends to an archive");
+    }
+    enqueue(new EncodeTask(image, file, null, done, release));
+  }
+
+  /**
+   * Queue a tile to be encoded and appended to the archive under the given
+   * key. Ownership of the image passes to the writer as for submit(Mat, Path).
+   */
+  public void submit(Mat image, TileKey key) throws InterruptedException {
+    submit(image, key, null);
+  }
+
+  public void submit(Mat image, TileKey key, Completion done)
+    throws InterruptedException
+  {
+    submit(image, key, done, null);
+  }
+
+  public void submit(Mat image, TileKey key, Completion done,
+    ImageRelease release) throws InterruptedException
+  {
+    if (archive == null) {
+      throw new IllegalStateException("TileWriter has no archive");
+    }
+    enqueue(new EncodeTask(image, null, key, done, release));
+  }
+
+  private void enqueue(EncodeTask task) throws InterruptedException {
+    closeLock.readLock().lockInterruptibly();
+    try {
+      if (closed) {
+        throw new IllegalStateException("TileWriter is closed");
+      }
+      encodeQueue.put(task);
+      stats.submitted.incrementAndGet();
+    }
+    finally {
+      closeLock.readLock().unlock();
+    }
+  }
+
+  public Stats getStats() {
+    return stats;
+  }
+
+  /** The archive tiles are appended to, or null if writing one file each. */
+  public TileArchiveWriter getArchive() {
+    return archive;
+  }
+
+  /**
+   * Force every tile file to disk before its completion is notified. Only
+   * needed when a completion records progress, as TilingCheckpoint does;
+   * archive output is made durable by flushing the archive instead.
+   */
+  public void setSyncFiles(boolean syncFiles) {
+    this.syncFiles = syncFiles;
+  }
+
+  /**
+   * Wait for every submitted tile to be written, then stop all threads.
+   * An archive passed to the constructor is left open for the caller.
+   * An interrupt does not cut this short, since the threads still hold
+   * pooled buffers and unwritten tiles; the interrupt status is restored
+   * once they have stopped. Tiles still being submitted when close() is
+   * called are either queued before the stop markers or rejected.
+   */
+  @Override
+  public void close() {
+    // waits for submitters blocked on a full queue, which the encoders drain
+    closeLock.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    finally {
+      closeLock.writeLock().unlock();
+    }
+
+    boolean interrupted = false;
+    for (int i=0; i<encoders.size(); i++) {
+      interrupted |= putUninterruptibly(encodeQueue, POISON_ENCODE);
+    }
+    for (Thread t : encoders) {
+      interrupted |= joinUninterruptibly(t);
+    }
+    for (int i=0; i<writers.size(); i++) {
+      interrupted |= putUninterruptibly(writeQueue, POISON_WRITE);
+    }
+    for (Thread t : writers) {
+      interrupted |= joinUninterruptibly(t);
+    }
+
+    MatOfByte buf;
+    while ((buf = bufferPool.poll()) != null) {
+      buf.release();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Returns whether the calling thread was interrupted while waiting. */
+  private static <T> boolean putUninterruptibly(BlockingQueue<T> queue,
+    T item)
+  {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(item);
+        return interrupted;
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+  }
+
+  private static boolean joinUninterruptibly(Thread t) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        t.join();
+        return interrupted;
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+  }
+
+  private void encodeLoop() {
+    try {
+      while (true) {
+        EncodeTask task = encodeQueue.take();
+        if (task == POISON_ENCODE) {
+          break;
+        }
+
+        MatOfByte encoded = bufferPool.poll();
+        if (encoded == null) {
+          stats.poolWaits.incrementAndGet();
+          encoded = bufferPool.take();
+        }
+
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+          ok = Imgcodecs.imencode(extension, task.image, encoded, params);
+        }
+        catch (RuntimeException e) {
+          ok = false;
+        }
+        finally {
+          if (task.release != null) {
+            task.release.release(task.image);
+          }
+          else {
+            task.image.release();
+          }
+        }
+        stats.encodeNanos.addAndGet(System.nanoTime() - start);
+        METRICS.stop(PipelineMetrics.Stage.ENCODE, start);
+
+        if (!ok) {
+          System.err.println("Error encoding tile: " + task.target());
+          stats.failures.incrementAndGet();
+          METRICS.increment(PipelineMetrics.Counter.FAILURES);
+          bufferPool.put(encoded);
+          notify(task.done, false);
+          continue;
+        }
+        stats.encoded.incrementAndGet();
+        stats.encodedBytes.addAndGet(encoded.total());
+        METRICS.increment(PipelineMetrics.Counter.TILES_ENCODED);
+        METRICS.add(PipelineMetrics.Counter.BYTES_ENCODED, encoded.total());
+        writeQueue.put(
+          new WriteTask(encoded, task.file, task.key, task.done));
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void writeLoop() {
+    byte[] staging = new byte[INITIAL_WRITE_BUFFER];
+    try {
+      while (true) {
+        WriteTask task = writeQueue.take();
+        if (task == POISON_WRITE) {
+          break;
+        }
+
+        // copy out of the pooled native buffer first so it can go back to
+        // the encoders before we block on the filesystem
+        int length = (int) task.encoded.total();
+        if (length > staging.length) {
+          staging = new byte[Math.max(length, staging.length * 2)];
+        }
+        if (length > 0) {
+          task.encoded.get(0, 0, staging);
+        }
+        bufferPool.put(task.encoded);
+
+        long start = System.nanoTime();
+        try {
+          if (task.key != null) {
+            archive.append(task.key, staging, 0, length);
+          }
+          else {
+            writeFile(task.file, staging, length, syncFiles);
+          }
+          stats.written.incrementAndGet();
+          stats.writtenBytes.addAndGet(length);
+          stats.writeNanos.addAndGet(System.nanoTime() - start);
+          METRICS.stop(PipelineMetrics.Stage.WRITE, start);
+          METRICS.increment(PipelineMetrics.Counter.TILES_WRITTEN);
+          METRICS.add(PipelineMetrics.Counter.BYTES_WRITTEN, length);
+          notify(task.done, true);
+        }
+        catch (IOException e) {
+          System.err.println("Error writing tile: " + task.target());
+          stats.failures.incrementAndGet();
+          stats.writeNanos.addAndGet(System.nanoTime() - start);
+          METRICS.stop(PipelineMetrics.Stage.WRITE, start);
+          METRICS.increment(PipelineMetrics.Counter.FAILURES);
+          notify(task.done, false);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void notify(Completion done, boolean written) {
+    if (done != null) {
+      done.completed(written);
+    }
+  }
+
+  private static void writeFile(Path file, byte[] data, int length,
+    boolean sync) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file,
+      StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING))
+    {
+      ByteBuffer bytes = ByteBuffer.wrap(data, 0, length);
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      if (sync) {
+        channel.force(false);
+      }
+    }
+  }
+
+  /** Notified on a TileWriter thread when a submitted tile leaves the writer. */
+  public interface Completion {
+    void completed(boolean written);
+  }
+
+  /** Takes back a submitted image on an encoder thread once it is encoded. */
+  public interface ImageRelease {
+    void release(Mat image);
+  }
+
+  private static class EncodeTask {
+    final Mat image;
+    final Path file;
+    final TileKey key;
+    final Completion done;
+    final ImageRelease release;
+
+    EncodeTask(Mat image, Path file, TileKey key, Completion done,
+      ImageRelease release)
+    {
+      this.image = image;
+      this.file = file;
+      this.key = key;
+      this.done = done;
+      this.release = release;
+    }
+
+    Object target() {
+      return key != null ? key : file;
+    }
+  }
+
+  private static class WriteTask {
+    final MatOfByte encoded;
+    final Path file;
+    final TileKey key;
+    final Completion done;
+
+    WriteTask(MatOfByte encoded, Path file, TileKey key, Completion done) {
+      this.encoded = encoded;
+      this.file = file;
+      this.key = key;
+      this.done = done;
+    }
+
+    Object target() {
+      return key != null ? key : file;
+    }
+  }
+
+  /** Per-stage counters; all times are cumulative across threads. */
+  public static class Stats {
+    public final AtomicLong submitted = new AtomicLong();
+    public final AtomicLong encoded = new AtomicLong();
+    public final AtomicLong encodedBytes = new AtomicLong();
+    public final AtomicLong encodeNanos = new AtomicLong();
+    public final AtomicLong written = new AtomicLong();
+    public final AtomicLong writtenBytes = new AtomicLong();
+    public final AtomicLong writeNanos = new AtomicLong();
+    public final AtomicLong poolWaits = new AtomicLong();
+    public final AtomicLong failures = new AtomicLong();
+
+    @Override
+    public String toString() {
+      long enc = encoded.get();
+      long wr = written.get();
+      return "submitted=" + submitted.get() +
+        " encoded=" + enc + " (" + encodedBytes.get() + " B, " +
+        (enc == 0 ? 0 : encodeNanos.get() / enc / 1000) + " us/tile)" +
+        " written=" + wr + " (" + writtenBytes.get() + " B, " +
+        (wr == 0 ? 0 : writeNanos.get() / wr / 1000) + " us/tile)" +
+        " poolWaits=" + poolWaits.get() + " failures=" + failures.get();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bitmap of completed crops for one (slide, series), persisted so that a
+ * restarted tiling job only redoes the crops finished since the last flush.
+ *
+ * Bit i covers the i-th crop of the tiling grid in row-major order.  A bit
+ * may be set as soon as the crop is rejected by the filters, or once its
+ * tile has been handed to the output; flush() takes a snapshot of the
+ * bitmap, then flushes the output barrier (e.g. a TileArchiveWriter), and
+ * only then writes the snapshot.  A crop recorded as done on disk therefore
+ * always has its tile on disk too.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   int magic ("TCKP"), int version, long geometry hash,
+ *   int cropCount, int completedCount, long[] words
+ * </pre>
+ * The file is replaced atomically through a forced temporary file, and a
+ * checkpoint whose geometry does not match the current job is ignored.
+ */
+public class TilingCheckpoint {
+
+  private static final int MAGIC = 0x54434b50; // "TCKP"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+  private final Path file;
+  private final long geometry;
+  private final int cropCount;
+  private final AtomicLongArray words;
+  private final AtomicInteger completed = new AtomicInteger();
+
+  private final long flushIntervalNanos;
+  private volatile long lastFlush = System.nanoTime();
+  private Flushable barrier;
+
+  private final Object flushLock = new Object();
+
+  /**
+   * Open the checkpoint for the given job, loading previous progress if a
+   * checkpoint with the same geometry exists.
+   *
+   * @param geometry hash of everything that defines the crop grid; see
+   *                 {@link #geometryHash(int...)}
+   * @param flushIntervalMillis minimum time between flushes triggered by
+   *                            {@link #maybeFlush()}
+   */
+  public TilingCheckpoint(Path file, long geometry, int cropCount,
+    long flushIntervalMillis) throws IOException
+  {
+    this.file = file;
+    this.geometry = geometry;
+    this.cropCount = cropCount;
+    this.words = new AtomicLongArray((cropCount + 63) >>> 6);
+    this.flushIntervalNanos = flushIntervalMillis * 1000000L;
+    load();
+  }
+
+  /**
+   * Path of the checkpoint for the given slide and series; the slide name
+   * is reduced to its file name so checkpoints of one cohort share a
+   * directory, followed by a hash of the absolute path so slides with the
+   * same file name in different directories do not share a checkpoint.
+   */
+  public static Path pathFor(Path directory, String slide, int series) {
+    Path path = Paths.get(slide).toAbsolutePath().normalize();
+    return directory.resolve(path.getFileName() + "." +
+      String.format("%08x", path.toString().hashCode()) +
+      ".s" + series + ".ckpt");
+  }
+
+  public static long geometryHash(int... values) {
+    long h = 1125899906842597L;
+    for (int v : values) {
+      h = 31 * h + v;
+    }
+    return h;
+  }
+
+  /**
+   * Set the output to flush before a snapshot is written; without one the
+   * caller must only mark crops whose tiles are already durable.
+   */
+  public void setBarrier(Flushable barrier) {
+    this.barrier = barrier;
+  }
+
+  public int getCropCount() {
+    return cropCount;
+  }
+
+  public int getCompletedCount() {
+    return completed.get();
+  }
+
+  public boolean isComplete() {
+    return completed.get() == cropCount;
+  }
+
+  public boolean isDone(int crop) {
+    return (words.get(crop >>> 6) & (1L << crop)) != 0;
+  }
+
+  public void markDone(int crop) {
+    if (crop < 0 || crop >= cropCount) {
+      throw new IndexOutOfBoundsException("Crop " + crop + " of " + cropCount);
+    }
+    int w = crop >>> 6;
+    long bit = 1L << crop;
+    while (true) {
+      long old = words.get(w);
+      if ((old & bit) != 0) {
+        return;
+      }
+      if (words.compareAndSet(w, old, old | bit)) {
+        completed.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Flush if the flush interval has passed since the last flush. Cheap
+   * enough to call after every crop; only one caller does the flush.
+   */
+  public void maybeFlush() throws IOException {
+    if (System.nanoTime() - lastFlush < flushIntervalNanos) {
+      return;
+    }
+    flush();
+  }
+
+  public void flush() throws IOException {
+    synchronized (flushLock) {
+      lastFlush = System.nanoTime();
+
+      // snapshot before flushing the barrier: every bit in the snapshot
+      // belongs to a tile handed to the output before the barrier flush
+      long[] snapshot = new long[words.length()];
+      int count = 0;
+      for (int i=0; i<snapshot.length; i++) {
+        snapshot[i] = words.get(i);
+        count += Long.bitCount(snapshot[i]);
+      }
+      if (barrier != null) {
+        barrier.flush();
+      }
+
+      ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + snapshot.length * 8);
+      buf.putInt(MAGIC);
+      buf.putInt(VERSION);
+      buf.putLong(geometry);
+      buf.putInt(cropCount);
+      buf.putInt(count);
+      buf.asLongBuffer().put(snapshot);
+      buf.rewind();
+
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+      {
+        while (buf.hasRemaining()) {
+          c.write(buf);
+        }
+        c.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  /** Remove the checkpoint file, e.g. after the output has been collected. */
+  public void delete() throws IOException {
+    synchronized (flushLock) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private void load() throws IOException {
+    if (!Files.exists(file)) {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      return;
+    }
+    ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC ||
+      buf.getInt() != VERSION)
+    {
+      System.err.println("Ignoring unreadable checkpoint " + file);
+      return;
+    }
+    if (buf.getLong() != geometry || buf.getInt() != cropCount) {
+      System.err.println("Ignoring checkpoint for a different crop grid " + file);
+      return;
+    }
+    buf.getInt(); // completed count, recomputed below
+    if (buf.remaining() != words.length() * 8) {
+      System.err.println("Ignoring truncated checkpoint " + file);
+      return;
+    }
+    int count = 0;
+    for (int i=0; i<words.length(); i++) {
+      long w = buf.getLong();
+      words.set(i, w);
+      count += Long.bitCount(w);
+    }
+    completed.set(count);
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * The part of a slide shown in a window: the slide point at the window
+ * centre, in full-resolution pixels, and the zoom as window pixels per
+ * full-resolution pixel.
+ */
+public class Viewport {
+
+  public final int width;
+  public final int height;
+  public double centerX;
+  public double centerY;
+  public double scale;
+
+  public Viewport(int width, int height, double centerX, double centerY,
+    double scale)
+  {
+    this.width = width;
+    this.height = height;
+    this.centerX = centerX;
+    this.centerY = centerY;
+    this.scale = scale;
+  }
+
+  /** A viewport showing the whole of a slideWidth x slideHeight image. */
+  public static Viewport fit(int width, int height, int slideWidth,
+    int slideHeight)
+  {
+    double scale = Math.min((double) width / slideWidth,
+      (double) height / slideHeight);
+    return new Viewport(width, height, slideWidth / 2.0, slideHeight / 2.0,
+      scale);
+  }
+
+  /** Slide x of the left window edge. */
+  public double left() {
+    return centerX - width / (2 * scale);
+  }
+
+  /** Slide y of the top window edge. */
+  public double top() {
+    return centerY - height / (2 * scale);
+  }
+
+  /** Moves the view by dx, dy window pixels. */
+  public void pan(double dx, double dy) {
+    centerX += dx / scale;
+    centerY += dy / scale;
+  }
+
+  /** Multiplies the zoom by factor, keeping the centre in place. */
+  public void zoom(double factor) {
+    scale *= factor;
+  }
+
+  /** Keeps the centre inside the slide and the zoom within limits. */
+  public void clamp(int slideWidth, int slideHeight, double minScale,
+    double maxScale)
+  {
+    scale = Math.max(minScale, Math.min(maxScale, scale));
+    centerX = Math.max(0, Math.min(slideWidth, centerX));
+    centerY = Math.max(0, Math.min(slideHeight, centerY));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%dx%d at (%.0f, %.0f) x%.4f", width, height,
+      centerX, centerY, scale);
+  }
+}
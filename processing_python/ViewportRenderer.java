@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Offscreen renderer of a Viewport over a TileSource: draws the visible
+ * tiles of the pyramid level closest to the zoom into a BGR Mat, without
+ * any window, so it runs the same headless as under SlideViewer.
+ *
+ * Tiles come from a TileCache and are never waited for.  While tiles of
+ * the chosen level are still loading, the coarsest level is drawn under
+ * them, so panning stays smooth and the view sharpens as tiles arrive.
+ * Missing tiles are requested centre first.
+ *
+ * Not thread-safe: use one renderer per render thread.
+ */
+public class ViewportRenderer {
+
+  public static final Scalar DEFAULT_BACKGROUND = new Scalar(255, 255, 255);
+
+  private final TileCache cache;
+  private final TileSource source;
+  private Scalar background = DEFAULT_BACKGROUND;
+
+  private final Mat scaled = new Mat();
+  private final List<Missing> missing = new ArrayList<Missing>();
+  private int lastLevel = -1;
+
+  private static final Comparator<Missing> FARTHEST_FIRST =
+    (a, b) -> Double.compare(b.distance, a.distance);
+
+  public ViewportRenderer(TileCache cache) {
+    this.cache = cache;
+    this.source = cache.getSource();
+  }
+
+  public void setBackground(Scalar background) {
+    this.background = background;
+  }
+
+  /** Level drawn by the last render(). */
+  public int getLastLevel() {
+    return lastLevel;
+  }
+
+  /**
+   * Pyramid level to draw at a zoom: the coarsest level that still has at
+   * least one pixel per window pixel.
+   */
+  public int levelFor(double scale) {
+    int level = 0;
+    double fullWidth = source.getWidth(0);
+    for (int l=1; l<source.getLevelCount(); l++) {
+      double downsample = fullWidth / source.getWidth(l);
+      if (downsample * scale > 1.0001) {
+        break;
+      }
+      level = l;
+    }
+    return level;
+  }
+
+  /**
+   * Draws the viewport into dst, which is (re)allocated to the viewport
+   * size as CV_8UC3.
+   *
+   * @return true if every visible tile was drawn at the chosen level,
+   *         false if some are still loading
+   */
+  public boolean render(Viewport view, Mat dst) {
+    cache.drain();
+    dst.create(view.height, view.width, CvType.CV_8UC3);
+    dst.setTo(background);
+
+    int level = levelFor(view.scale);
+    int coarsest = source.getLevelCount() - 1;
+    lastLevel = level;
+
+    missing.clear();
+    boolean complete = drawLevel(view, level, dst, false);
+    if (!complete && level != coarsest) {
+      // draw the overview under the tiles that are there
+      missing.clear();
+      dst.setTo(background);
+      drawLevel(view, coarsest, dst, true);
+      drawLevel(view, level, dst, false);
+    }
+
+    // the cache loads the newest request first
+    Collections.sort(missing, FARTHEST_FIRST);
+    for (Missing m : missing) {
+      cache.request(m.key);
+    }
+    return complete;
+  }
+
+  /**
+   * Draws the cached tiles of a level that intersect the view and records
+   * the missing ones.
+   *
+   * @return true if no visible tile was missing
+   */
+  private boolean drawLevel(Viewport view, int level, Mat dst,
+    boolean overview)
+  {
+    int tileSize = source.getTileSize();
+    int levelWidth = source.getWidth(level);
+    int levelHeight = source.getHeight(level);
+    // full-resolution pixels per level pixel
+    double dx = (double) source.getWidth(0) / levelWidth;
+    double dy = (double) source.getHeight(0) / levelHeight;
+    double left = view.left();
+    double top = view.top();
+    double s = view.scale;
+
+    int tx0 = Math.max(0, (int) Math.floor(left / dx / tileSize));
+    int ty0 = Math.max(0, (int) Math.floor(top / dy / tileSize));
+    int tx1 = Math.min((levelWidth - 1) / tileSize,
+      (int) Math.floor((left + view.width / s) / dx / tileSize));
+    int ty1 = Math.min((levelHeight - 1) / tileSize,
+      (int) Math.floor((top + view.height / s) / dy / tileSize));
+
+    boolean complete = true;
+    for (int ty=ty0; ty<=ty1; ty++) {
+      int y0 = ty * tileSize;
+      int y1 = Math.min(levelHeight, y0 + tileSize);
+      int sy0 = (int) Math.round((y0 * dy - top) * s);
+      int sy1 = (int) Math.round((y1 * dy - top) * s);
+      for (int tx=tx0; tx<=tx1; tx++) {
+        int x0 = tx * tileSize;
+        int x1 = Math.min(levelWidth, x0 + tileSize);
+        int sx0 = (int) Math.round((x0 * dx - left) * s);
+        int sx1 = (int) Math.round((x1 * dx - left) * s);
+
+        TileKey key = cache.key(level, tx, ty);
+        Mat tile = cache.peek(key);
+        if (tile == null) {
+          complete = false;
+          // a missing overview tile is requested before the detail
+          double cx = (sx0 + sx1) / 2.0 - view.width / 2.0;
+          double cy = (sy0 + sy1) / 2.0 - view.height / 2.0;
+          missing.add(new Missing(key,
+            overview ? -1 : Math.sqrt(cx * cx + cy * cy)));
+          continue;
+        }
+        drawTile(tile, sx0, sy0, sx1, sy1, dst);
+      }
+    }
+    return complete;
+  }
+
+  /**
+   * Scales the part of a tile that falls inside dst to the window rect
+   * [sx0, sx1) x [sy0, sy1) and copies it in.
+   */
+  private void drawTile(Mat tile, int sx0, int sy0, int sx1, int sy1,
+    Mat dst)
+  {
+    int vx0 = Math.max(sx0, 0);
+    int vy0 = Math.max(sy0, 0);
+    int vx1 = Math.min(sx1, dst.cols());
+    int vy1 = Math.min(sy1, dst.rows());
+    if (vx0 >= vx1 || vy0 >= vy1) {
+      return;
+    }
+
+    // tile pixels covering the visible part, and where they land
+    double fx = (double) (sx1 - sx0) / tile.cols();
+    double fy = (double) (sy1 - sy0) / tile.rows();
+    int u0 = (int) Math.floor((vx0 - sx0) / fx);
+    int v0 = (int) Math.floor((vy0 - sy0) / fy);
+    int u1 = Math.min(tile.cols(), (int) Math.ceil((vx1 - sx0) / fx));
+    int v1 = Math.min(tile.rows(), (int) Math.ceil((vy1 - sy0) / fy));
+    int ux0 = sx0 + (int) Math.floor(u0 * fx);
+    int uy0 = sy0 + (int) Math.floor(v0 * fy);
+    int ux1 = sx0 + (int) Math.ceil(u1 * fx);
+    int uy1 = sy0 + (int) Math.ceil(v1 * fy);
+
+    Mat part = tile.submat(v0, v1, u0, u1);
+    Imgproc.resize(part, scaled, new Size(ux1 - ux0, uy1 - uy0), 0, 0,
+      fx < 1 ? Imgproc.INTER_AREA : Imgproc.INTER_LINEAR);
+    Mat visible = scaled.submat(vy0 - uy0, vy1 - uy0, vx0 - ux0, vx1 - ux0);
+    Mat target = dst.submat(vy0, vy1, vx0, vx1);
+    visible.copyTo(target);
+    part.release();
+    visible.release();
+    target.release();
+  }
+
+  private static class Missing {
+    final TileKey key;
+    final double distance;
+
+    Missing(TileKey key, double distance) {
+      this.key = key;
+      this.distance = distance;
+    }
+  }
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import loci.formats.FormatException;
+import loci.formats.IFormatReader;
+import loci.formats.ImageReader;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * TileSource over the resolution levels of one series of a slide, read with
+ * Bio-Formats openBytes.  Readers are not thread-safe, so each concurrent
+ * readTile call borrows its own reader from a pool, as SlideTiler does.
+ */
+public class VsiTileSource implements TileSource {
+
+  public static final int DEFAULT_TILE_SIZE = 512;
+
+  private final String slide;
+  private final int series;
+  private final int tileSize;
+  private final int[] widths;
+  private final int[] heights;
+  private final int channels;
+  private final ConcurrentLinkedQueue<IFormatReader> readers =
+    new ConcurrentLinkedQueue<IFormatReader>();
+
+  /** openBytes target, reused by each thread across tiles. */
+  private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>();
+
+  private static final PipelineMetrics METRICS = PipelineMetrics.get();
+
+  public VsiTileSource(String slide, int series)
+    throws FormatException, IOException
+  {
+    this(slide, series, DEFAULT_TILE_SIZE);
+  }
+
+  public VsiTileSource(String slide, int series, int tileSize)
+    throws FormatException, IOException
+  {
+    this.slide = slide;
+    this.series = series;
+    this.tileSize = tileSize;
+
+    IFormatReader reader = openReader();
+    int levels = reader.getResolutionCount();
+    widths = new int[levels];
+    heights = new int[levels];
+    for (int level=0; level<levels; level++) {
+      reader.setResolution(level);
+      widths[level] = reader.getSizeX();
+      heights[level] = reader.getSizeY();
+    }
+    channels = reader.getRGBChannelCount();
+    if (channels != 1 && channels != 3) {
+      reader.close();
+      throw new FormatException(slide + ": unsupported channel count " +
+        channels);
+    }
+    readers.add(reader);
+  }
+
+  @Override
+  public String getName() {
+    return slide;
+  }
+
+  @Override
+  public int getLevelCount() {
+    return widths.length;
+  }
+
+  @Override
+  public int getWidth(int level) {
+    return widths[level];
+  }
+
+  @Override
+  public int getHeight(int level) {
+    return heights[level];
+  }
+
+  @Override
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  @Override
+  public Mat readTile(int level, int tx, int ty) throws IOException {
+    int x = tx * tileSize;
+    int y = ty * tileSize;
+    int width = Math.min(tileSize, widths[level] - x);
+    int height = Math.min(tileSize, heights[level] - y);
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Tile " + tx + "," + ty +
+        " is outside level " + level);
+    }
+    int length = width * height * channels;
+
+    IFormatReader reader = readers.poll();
+    try {
+      if (reader == null) {
+        reader = openReader();
+      }
+      reader.setResolution(level);
+      long t = METRICS.start();
+      byte[] pixels = reader.openBytes(0, scratch(length), x, y, width,
+        height);
+      METRICS.stop(PipelineMetrics.Stage.DECODE, t);
+      METRICS.increment(PipelineMetrics.Counter.TILES_DECODED);
+      METRICS.add(PipelineMetrics.Counter.BYTES_DECODED, length);
+
+      Mat tile = new Mat(height, width, CvType.CV_8UC(channels));
+      tile.put(0, 0, pixels, 0, length);
+      // openBytes returns RGB, the viewer works in BGR like imshow
+      Imgproc.cvtColor(tile, tile, channels == 1 ?
+        Imgproc.COLOR_GRAY2BGR : Imgproc.COLOR_RGB2BGR);
+      return tile;
+    }
+    catch (FormatException e) {
+      throw new IOException(slide + ": cannot read tile " + tx + "," + ty +
+        " of level " + level, e);
+    }
+    finally {
+      if (reader != null) {
+        readers.add(reader);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IFormatReader reader;
+    while ((reader = readers.poll()) != null) {
+      reader.close();
+    }
+  }
+
+  private static byte[] scratch(int size) {
+    byte[] buf = SCRATCH.get();
+    if (buf == null || buf.length < size) {
+      buf = new byte[size];
+      SCRATCH.set(buf);
+    }
+    return buf;
+  }
+
+  private IFormatReader openReader() throws FormatException, IOException {
+    IFormatReader reader = new ImageReader();
+    reader.setFlattenedResolutions(false);
+    reader.setId(slide);
+    reader.setSeries(series);
+    return reader;
+  }
+}
@@ -0,0 +1,233 @@
+package tiler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of PipelineMetrics, with metrics on and off
+ * (-Dpipeline.metrics=false, set per fork through the metrics parameter).
+ *
+ * metricsPerTile makes only the metrics calls that SlideTiler and TileWriter
+ * make for one written tile: seven timed stages and six counter updates.
+ * tile runs the CPU work of that tile around the same calls: the put of the
+ * crop pixels standing in for the read, the 448 to 224 Lanczos resize, both
+ * TileFilters, the RGB to BGR conversion, the encoding and the copy out of
+ * the encoded bytes standing in for the write.
+ *
+ * JMH does not accept benchmarks in the default package, where
+ * PipelineMetrics and TileFilters are, so they are called through method
+ * handles held in static final fields, which the JIT inlines like direct
+ * calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineMetricsBenchmark {
+
+  // SlideTiler.DEFAULT_CROP_SIZE and DEFAULT_OUTPUT_SIZE
+  private static final int CROP = 448;
+  private static final int OUTPUT = 224;
+
+  @Param({"true", "false"})
+  public String metrics;
+
+  /** Tile format, as passed to imencode; the tiler writes TIFF. */
+  @Param({".tif"})
+  public String extension;
+
+  private byte[] pixels;
+  private Mat full;
+  private Mat tile;
+  private MatOfByte encoded;
+  private byte[] staging;
+
+  @Setup
+  public void setup() throws Throwable {
+    // read once, when PipelineMetrics is initialized below
+    System.setProperty("pipeline.metrics", metrics);
+    if ((boolean) Pipeline.IS_ENABLED.invokeExact() != Boolean.parseBoolean(metrics)) {
+      throw new IllegalStateException(
+        "PipelineMetrics was initialized before the setup, run with forks");
+    }
+
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    // pink, H&E-like noise that passes both filters, as a tissue crop does
+    full = new Mat(CROP, CROP, CvType.CV_8UC3);
+    Core.randu(full, 0, 40);
+    Core.add(full, new Scalar(170, 100, 150), full);
+    pixels = new byte[CROP * CROP * 3];
+    full.get(0, 0, pixels);
+    tile = new Mat();
+    encoded = new MatOfByte();
+    staging = new byte[OUTPUT * OUTPUT * 3 * 2];
+  }
+
+  @TearDown
+  public void tearDown() {
+    encoded.release();
+    tile.release();
+    full.release();
+  }
+
+  @Benchmark
+  public void metricsPerTile() throws Throwable {
+    long t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_READ.invokeExact(t);
+    Pipeline.INCREMENT_CROPS_READ.invokeExact();
+    Pipeline.ADD_BYTES_READ.invokeExact((long) pixels.length);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_RESIZE.invokeExact(t);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_FILTER_WHITE.invokeExact(t);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_FILTER_COLOR.invokeExact(t);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_CONVERT.invokeExact(t);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_ENCODE.invokeExact(t);
+    Pipeline.INCREMENT_TILES_ENCODED.invokeExact();
+    Pipeline.ADD_BYTES_ENCODED.invokeExact(1000L);
+    t = (long) Pipeline.START.invokeExact();
+    Pipeline.STOP_WRITE.invokeExact(t);
+    Pipeline.INCREMENT_TILES_WRITTEN.invokeExact();
+    Pipeline.ADD_BYTES_WRITTEN.invokeExact(1000L);
+  }
+
+  @Benchmark
+  public int tile() throws Throwable {
+    long t = (long) Pipeline.START.invokeExact();
+    full.put(0, 0, pixels);
+    Pipeline.STOP_READ.invokeExact(t);
+    Pipeline.INCREMENT_CROPS_READ.invokeExact();
+    Pipeline.ADD_BYTES_READ.invokeExact((long) pixels.length);
+
+    t = (long) Pipeline.START.invokeExact();
+    Imgproc.resize(full, tile, new Size(OUTPUT, OUTPUT), 0, 0,
+      Imgproc.INTER_LANCZOS4);
+    Pipeline.STOP_RESIZE.invokeExact(t);
+
+    t = (long) Pipeline.START.invokeExact();
+    boolean white = (boolean) Pipeline.IS_MOSTLY_WHITE.invokeExact(tile);
+    Pipeline.STOP_FILTER_WHITE.invokeExact(t);
+    t = (long) Pipeline.START.invokeExact();
+    boolean color = (boolean) Pipeline.IS_MOSTLY_GREEN_OR_BLUE.invokeExact(tile);
+    Pipeline.STOP_FILTER_COLOR.invokeExact(t);
+    if (white || color) {
+      throw new IllegalStateException("Random crop rejected by the filters");
+    }
+
+    t = (long) Pipeline.START.invokeExact();
+    Imgproc.cvtColor(tile, tile, Imgproc.COLOR_RGB2BGR);
+    Pipeline.STOP_CONVERT.invokeExact(t);
+
+    t = (long) Pipeline.START.invokeExact();
+    Imgcodecs.imencode(extension, tile, encoded);
+    Pipeline.STOP_ENCODE.invokeExact(t);
+    int length = (int) encoded.total();
+    Pipeline.INCREMENT_TILES_ENCODED.invokeExact();
+    Pipeline.ADD_BYTES_ENCODED.invokeExact((long) length);
+
+    t = (long) Pipeline.START.invokeExact();
+    if (length > staging.length) {
+      staging = new byte[length];
+    }
+    encoded.get(0, 0, staging);
+    Pipeline.STOP_WRITE.invokeExact(t);
+    Pipeline.INCREMENT_TILES_WRITTEN.invokeExact();
+    Pipeline.ADD_BYTES_WRITTEN.invokeExact((long) length);
+    return length;
+  }
+
+  /** Handles to the default package classes, initialized on first use. */
+  static final class Pipeline {
+    static final MethodHandle IS_ENABLED, START;
+    static final MethodHandle STOP_READ, STOP_RESIZE, STOP_FILTER_WHITE,
+      STOP_FILTER_COLOR, STOP_CONVERT, STOP_ENCODE, STOP_WRITE;
+    static final MethodHandle INCREMENT_CROPS_READ, ADD_BYTES_READ,
+      INCREMENT_TILES_ENCODED, ADD_BYTES_ENCODED, INCREMENT_TILES_WRITTEN,
+      ADD_BYTES_WRITTEN;
+    static final MethodHandle IS_MOSTLY_WHITE, IS_MOSTLY_GREEN_OR_BLUE;
+
+    static {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> metricsClass = Class.forName("PipelineMetrics");
+        Class<?> stageClass = Class.forName("PipelineMetrics$Stage");
+        Class<?> counterClass = Class.forName("PipelineMetrics$Counter");
+        Object metrics = lookup.findStatic(metricsClass, "get",
+          MethodType.methodType(metricsClass)).invoke();
+
+        IS_ENABLED = lookup.findVirtual(metricsClass, "isEnabled",
+          MethodType.methodType(boolean.class)).bindTo(metrics);
+        START = lookup.findVirtual(metricsClass, "start",
+          MethodType.methodType(long.class)).bindTo(metrics);
+
+        MethodHandle stop = lookup.findVirtual(metricsClass, "stop",
+          MethodType.methodType(void.class, stageClass, long.class))
+          .bindTo(metrics);
+        STOP_READ = bind(stop, stageClass, "READ");
+        STOP_RESIZE = bind(stop, stageClass, "RESIZE");
+        STOP_FILTER_WHITE = bind(stop, stageClass, "FILTER_WHITE");
+        STOP_FILTER_COLOR = bind(stop, stageClass, "FILTER_COLOR");
+        STOP_CONVERT = bind(stop, stageClass, "CONVERT");
+        STOP_ENCODE = bind(stop, stageClass, "ENCODE");
+        STOP_WRITE = bind(stop, stageClass, "WRITE");
+
+        MethodHandle increment = lookup.findVirtual(metricsClass, "increment",
+          MethodType.methodType(void.class, counterClass)).bindTo(metrics);
+        MethodHandle add = lookup.findVirtual(metricsClass, "add",
+          MethodType.methodType(void.class, counterClass, long.class))
+          .bindTo(metrics);
+        INCREMENT_CROPS_READ = bind(increment, counterClass, "CROPS_READ");
+        ADD_BYTES_READ = bind(add, counterClass, "BYTES_READ");
+        INCREMENT_TILES_ENCODED = bind(increment, counterClass, "TILES_ENCODED");
+        ADD_BYTES_ENCODED = bind(add, counterClass, "BYTES_ENCODED");
+        INCREMENT_TILES_WRITTEN = bind(increment, counterClass, "TILES_WRITTEN");
+        ADD_BYTES_WRITTEN = bind(add, counterClass, "BYTES_WRITTEN");
+
+        Class<?> filters = Class.forName("TileFilters");
+        MethodType filter = MethodType.methodType(boolean.class, Mat.class);
+        IS_MOSTLY_WHITE = lookup.findStatic(filters, "isMostlyWhite", filter);
+        IS_MOSTLY_GREEN_OR_BLUE =
+          lookup.findStatic(filters, "isMostlyGreenOrBlue", filter);
+      }
+      catch (Throwable e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static MethodHandle bind(MethodHandle handle, Class<?> enumClass,
+      String name)
+    {
+      return MethodHandles.insertArguments(handle, 0,
+        Enum.valueOf((Class) enumClass, name));
+    }
+  }
+}
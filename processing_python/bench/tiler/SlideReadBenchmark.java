@@ -0,0 +1,228 @@
+package tiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import loci.formats.FormatException;
+import loci.formats.IFormatReader;
+import loci.formats.ImageReader;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Slide reads through Bio-Formats, the way SlideTiler and VsiTileSource do
+ * them: an ImageReader with unflattened resolutions, set to one series,
+ * read with openBytes into a reused buffer.
+ *
+ * open: setId and close of a new reader, paid once per worker thread.
+ * rasterTile, randomTile: one level 0 tile of the reader's optimal size per
+ * operation, in raster or random order.
+ * crop: a 448x448 region at a random place, as SlideTiler reads its crops.
+ * readTile: VsiTileSource.readTile of level 0, openBytes plus the copy into
+ * a BGR Mat that the viewer draws.
+ *
+ * Each thread has its own reader, as in the tiler, so reads scale with
+ * JMH's -t option.  Without a slide parameter, a 16384x16384 SyntheticSlide
+ * is written to the temporary directory first.  Bytes allocated per read
+ * are reported by -prof gc:
+ *
+ *   java -jar benchmarks.jar SlideReadBenchmark -p slide=/data/slide.vsi -t 4 -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlideReadBenchmark {
+
+  // SlideTiler.DEFAULT_CROP_SIZE
+  private static final int CROP = 448;
+  private static final int SYNTHETIC_SIZE = 16384;
+
+  @State(Scope.Benchmark)
+  public static class Slide {
+
+    /** Any file Bio-Formats opens, e.g. a .vsi slide; empty for a synthetic one. */
+    @Param({""})
+    public String slide;
+
+    @Param({"0"})
+    public int series;
+
+    int width;
+    int height;
+    int tileWidth;
+    int tileHeight;
+    int channels;
+    Object tileSource;
+    File synthetic;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+      System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+      if (slide.isEmpty()) {
+        synthetic = File.createTempFile("bench-", ".ome.tif");
+        // setup only, so plain reflection into the default package will do
+        Class<?> generator = Class.forName("SyntheticSlide");
+        Object writer = generator.getConstructor(int.class, int.class)
+          .newInstance(SYNTHETIC_SIZE, SYNTHETIC_SIZE);
+        generator.getMethod("write", String.class).invoke(writer,
+          synthetic.getPath());
+        slide = synthetic.getPath();
+      }
+      IFormatReader reader = openReader(slide, series);
+      try {
+        width = reader.getSizeX();
+        height = reader.getSizeY();
+        tileWidth = Math.min(reader.getOptimalTileWidth(), width);
+        tileHeight = Math.min(reader.getOptimalTileHeight(), height);
+        channels = reader.getRGBChannelCount();
+      }
+      finally {
+        reader.close();
+      }
+      tileSource = Source.NEW.invokeExact(slide, series);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+      Source.CLOSE.invokeExact(tileSource);
+      if (synthetic != null) {
+        synthetic.delete();
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    final Random random = new Random(42);
+    IFormatReader reader;
+    byte[] tile;
+    byte[] crop;
+    int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup(Slide slide) throws FormatException, IOException {
+      reader = openReader(slide.slide, slide.series);
+      reader.setResolution(0);
+      tile = new byte[slide.tileWidth * slide.tileHeight * slide.channels];
+      crop = new byte[CROP * CROP * slide.channels];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      reader.close();
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int open(Slide slide) throws FormatException, IOException {
+    IFormatReader reader = openReader(slide.slide, slide.series);
+    reader.close();
+    return reader.getResolutionCount();
+  }
+
+  @Benchmark
+  public byte[] rasterTile(Slide slide, Cursor cursor)
+    throws FormatException, IOException
+  {
+    int cols = slide.width / slide.tileWidth;
+    int rows = slide.height / slide.tileHeight;
+    int n = cursor.next;
+    cursor.next = (n + 1) % (cols * rows);
+    return cursor.reader.openBytes(0, cursor.tile, (n % cols) * slide.tileWidth,
+      (n / cols) * slide.tileHeight, slide.tileWidth, slide.tileHeight);
+  }
+
+  @Benchmark
+  public byte[] randomTile(Slide slide, Cursor cursor)
+    throws FormatException, IOException
+  {
+    int col = cursor.random.nextInt(slide.width / slide.tileWidth);
+    int row = cursor.random.nextInt(slide.height / slide.tileHeight);
+    return cursor.reader.openBytes(0, cursor.tile, col * slide.tileWidth,
+      row * slide.tileHeight, slide.tileWidth, slide.tileHeight);
+  }
+
+  @Benchmark
+  public byte[] crop(Slide slide, Cursor cursor)
+    throws FormatException, IOException
+  {
+    int x = cursor.random.nextInt(slide.width - CROP + 1);
+    int y = cursor.random.nextInt(slide.height - CROP + 1);
+    return cursor.reader.openBytes(0, cursor.crop, x, y, CROP, CROP);
+  }
+
+  @Benchmark
+  public long readTile(Slide slide, Cursor cursor) throws Throwable {
+    int tileSize = (int) Source.TILE_SIZE.invokeExact(slide.tileSource);
+    int tx = cursor.random.nextInt((slide.width + tileSize - 1) / tileSize);
+    int ty = cursor.random.nextInt((slide.height + tileSize - 1) / tileSize);
+    Mat tile = (Mat) Source.READ_TILE.invokeExact(slide.tileSource, 0, tx, ty);
+    long total = tile.total();
+    tile.release();
+    return total;
+  }
+
+  /** As SlideTiler.openReader and VsiTileSource.openReader. */
+  static IFormatReader openReader(String slide, int series)
+    throws FormatException, IOException
+  {
+    IFormatReader reader = new ImageReader();
+    reader.setFlattenedResolutions(false);
+    reader.setId(slide);
+    reader.setSeries(series);
+    return reader;
+  }
+
+  /**
+   * Handles to VsiTileSource, which is in the default package, where JMH
+   * does not accept benchmarks.
+   */
+  static final class Source {
+    static final MethodHandle NEW, READ_TILE, TILE_SIZE, CLOSE;
+
+    static {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> source = Class.forName("VsiTileSource");
+        NEW = lookup.findConstructor(source,
+          MethodType.methodType(void.class, String.class, int.class))
+          .asType(MethodType.methodType(Object.class, String.class, int.class));
+        READ_TILE = lookup.findVirtual(source, "readTile",
+          MethodType.methodType(Mat.class, int.class, int.class, int.class))
+          .asType(MethodType.methodType(Mat.class, Object.class, int.class,
+            int.class, int.class));
+        TILE_SIZE = lookup.findVirtual(source, "getTileSize",
+          MethodType.methodType(int.class))
+          .asType(MethodType.methodType(int.class, Object.class));
+        CLOSE = lookup.findVirtual(source, "close",
+          MethodType.methodType(void.class))
+          .asType(MethodType.methodType(void.class, Object.class));
+      }
+      catch (Throwable e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+  }
+}
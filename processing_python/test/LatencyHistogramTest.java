@@ -0,0 +1,84 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bucket math and percentiles of LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+  private static final int SUB_BUCKETS = 32;
+  private static final int LAST_BUCKET = 39 * SUB_BUCKETS - 1;
+  private static final long LAST_LIMIT = (1L << 43) - 1;
+
+  @Test
+  public void smallValuesHaveOwnBucket() {
+    for (int v = 0; v < SUB_BUCKETS; v++) {
+      assertEquals(v, LatencyHistogram.bucket(v));
+      assertEquals(v, LatencyHistogram.bucketLimit(v));
+    }
+  }
+
+  @Test
+  public void firstBucketsOfEachPowerOfTwo() {
+    assertEquals(32, LatencyHistogram.bucket(32));
+    assertEquals(63, LatencyHistogram.bucket(63));
+    // from 64 on, two values per bucket, then four, ...
+    assertEquals(64, LatencyHistogram.bucket(64));
+    assertEquals(64, LatencyHistogram.bucket(65));
+    assertEquals(65, LatencyHistogram.bucket(66));
+    assertEquals(96, LatencyHistogram.bucket(128));
+    assertEquals(96, LatencyHistogram.bucket(131));
+    assertEquals(97, LatencyHistogram.bucket(132));
+  }
+
+  @Test
+  public void bucketsAreContiguous() {
+    // every bucket starts right after the limit of the previous one
+    for (int b = 1; b <= LAST_BUCKET; b++) {
+      long first = LatencyHistogram.bucketLimit(b - 1) + 1;
+      assertEquals("first value of bucket " + b, b, LatencyHistogram.bucket(first));
+      assertEquals("limit of bucket " + b, b, LatencyHistogram.bucket(LatencyHistogram.bucketLimit(b)));
+      assertTrue(LatencyHistogram.bucketLimit(b) >= first);
+    }
+    assertEquals(LAST_LIMIT, LatencyHistogram.bucketLimit(LAST_BUCKET));
+  }
+
+  @Test
+  public void relativeErrorIsBounded() {
+    for (long v = 1; v <= LAST_LIMIT / 2; v = v * 3 / 2 + 1) {
+      for (long x : new long[] { v, v + 1, 2 * v - 1 }) {
+        long limit = LatencyHistogram.bucketLimit(LatencyHistogram.bucket(x));
+        assertTrue("limit " + limit + " below " + x, limit >= x);
+        assertTrue("limit " + limit + " too far above " + x, limit - x <= x / SUB_BUCKETS);
+      }
+    }
+  }
+
+  @Test
+  public void largeValuesGoToLastBucket() {
+    assertEquals(LAST_BUCKET, LatencyHistogram.bucket(LAST_LIMIT));
+    assertEquals(LAST_BUCKET, LatencyHistogram.bucket(LAST_LIMIT + 1));
+    assertEquals(LAST_BUCKET, LatencyHistogram.bucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      h.record(i * 1000L);
+    }
+    h.record(-5);
+    LatencyHistogram.Snapshot s = h.snapshot();
+
+    assertEquals(101, s.count());
+    assertEquals(0, s.percentileNanos(0));
+    assertEquals(100000, s.maxNanos());
+    assertEquals(100000, s.percentileNanos(1));
+    long p50 = s.percentileNanos(0.5);
+    assertTrue(p50 >= 50000 && p50 - 50000 <= 50000 / SUB_BUCKETS);
+    long p99 = s.percentileNanos(0.99);
+    assertTrue(p99 >= 99000 && p99 - 99000 <= 99000 / SUB_BUCKETS);
+  }
+}
@@ -0,0 +1,97 @@
+import java.io.File;
+import java.nio.file.Path;
+
+import loci.formats.IFormatReader;
+import loci.formats.ImageReader;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencv.core.Core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SlideTiler over a SyntheticSlide, read through Bio-Formats as a scanned
+ * slide is.
+ */
+public class SlideTilerTest {
+
+  private static final int WIDTH = 4096;
+  private static final int HEIGHT = 3072;
+  private static final int TILE = 256;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void loadLibrary() {
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+  }
+
+  private String writeSlide() throws Exception {
+    SyntheticSlide slide = new SyntheticSlide(WIDTH, HEIGHT);
+    slide.setTileSize(TILE);
+    String path = new File(folder.getRoot(), "synthetic.ome.tif").getPath();
+    slide.write(path);
+    return path;
+  }
+
+  @Test
+  public void imageReaderOpensSyntheticSlide() throws Exception {
+    String path = writeSlide();
+    IFormatReader reader = new ImageReader();
+    try {
+      reader.setFlattenedResolutions(false);
+      reader.setId(path);
+      reader.setSeries(0);
+      assertEquals(WIDTH, reader.getSizeX());
+      assertEquals(HEIGHT, reader.getSizeY());
+      assertEquals(3, reader.getRGBChannelCount());
+      // down to a level that fits in one tile
+      assertEquals(5, reader.getResolutionCount());
+      reader.setResolution(4);
+      assertEquals(WIDTH / 16, reader.getSizeX());
+      assertEquals(HEIGHT / 16, reader.getSizeY());
+
+      // the centre is tissue: pink, red above green
+      reader.setResolution(0);
+      byte[] pixels = reader.openBytes(0, WIDTH / 2 - 8, HEIGHT / 2 - 8, 16,
+        16);
+      long red = 0;
+      long green = 0;
+      for (int i=0; i<pixels.length; i+=3) {
+        red += pixels[i] & 0xff;
+        green += pixels[i + 1] & 0xff;
+      }
+      assertTrue("red " + red + ", green " + green, red > green);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void tilerCutsSyntheticSlide() throws Exception {
+    String path = writeSlide();
+    Path out = folder.newFolder("tiles").toPath();
+    SlideTiler.Result result;
+    // any format the OpenCV build encodes, SlideTiler names the files .tif
+    try (TileWriter writer = new TileWriter(".png", 2, 1)) {
+      SlideTiler tiler = new SlideTiler(path, 0, writer, out);
+      tiler.setThreads(2);
+      result = tiler.run();
+    }
+
+    // the central half, 2048x1536, in 448 pixel crops
+    assertEquals(5 * 4, result.crops);
+    assertEquals(0, result.failed.get());
+    assertEquals(result.crops, result.written.get() + result.rejected.get());
+    // tissue in the centre, background around it
+    assertTrue(result.toString(), result.written.get() > 0);
+    assertTrue(result.toString(), result.rejected.get() > 0);
+    assertEquals(result.written.get(), out.toFile().list().length);
+  }
+}